@@ -23,6 +23,7 @@ import org.jebtk.core.Props;
 import org.jebtk.core.geom.IntDim;
 import org.jebtk.core.text.Formatter;
 import org.jebtk.core.text.Formatter.NumberFormatter;
+import org.jebtk.graphplot.figure.heatmap.CompiledColorMap;
 import org.jebtk.modern.graphics.DrawingContext;
 import org.jebtk.modern.graphics.colormap.ColorMap;
 
@@ -144,11 +145,13 @@ public class ColorBar extends PlotElementFixedSize {
 
 		double lf = (double) l;
 
+		CompiledColorMap colors = CompiledColorMap.get(mColorMap);
+
 		for (int i = 0; i < l; ++i) {
 
 			double r = i / lf;
 
-			g2.setColor(mColorMap.getColor(r));
+			g2.setColor(colors.color(r));
 
 			g2.fillRect(x, 0, l - i, h);
 
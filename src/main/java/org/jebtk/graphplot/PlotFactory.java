@@ -59,6 +59,7 @@ import org.jebtk.graphplot.figure.heatmap.HeatMapGridPlotLayer;
 import org.jebtk.graphplot.figure.heatmap.ImageFillPlotLayer;
 import org.jebtk.graphplot.figure.heatmap.RowHierarchicalTreeLayer;
 import org.jebtk.graphplot.figure.props.MarginProps;
+import org.jebtk.graphplot.figure.series.SeriesStats;
 import org.jebtk.graphplot.figure.series.XYSeries;
 import org.jebtk.graphplot.figure.series.XYSeriesGroup;
 import org.jebtk.graphplot.plotbox.PlotBoxColumnLayout;
@@ -66,8 +67,6 @@ import org.jebtk.math.Linspace;
 import org.jebtk.math.Normalization;
 import org.jebtk.math.cluster.Cluster;
 import org.jebtk.math.matrix.DataFrame;
-import org.jebtk.math.matrix.utils.MatrixOperations;
-import org.jebtk.math.matrix.utils.MatrixUtils;
 import org.jebtk.math.statistics.HistBin;
 import org.jebtk.modern.ModernWidget;
 import org.jebtk.modern.graphics.colormap.ColorMap;
@@ -313,13 +312,26 @@ public class PlotFactory {
 	 * @param series the series
 	 */
 	public static void createScatterPlot(DataFrame m, Axes axes, XYSeries series) {
+		createScatterPlot(m, axes, series, ScatterPlotLayer.DEFAULT_DENSITY_THRESHOLD);
+	}
+
+	/**
+	 * Create a scatter plot that is drawn as a density image if the series
+	 * has more than a given number of points.
+	 *
+	 * @param m                the m
+	 * @param axes             the axes
+	 * @param series           the series
+	 * @param densityThreshold the density threshold
+	 */
+	public static void createScatterPlot(DataFrame m, Axes axes, XYSeries series, int densityThreshold) {
 		Plot plot = axes.newPlot();
 
 		plot.setMatrix(m);
 
 		plot.getAllSeries().add(series);
 
-		plot.setStyle(series.getName(), PlotStyle.SCATTER);
+		plot.addChild(new ScatterPlotLayer(series.getName(), densityThreshold));
 
 		// plot.addChild(new ScatterPlotLayer(series.getName()));
 		// plot.getPlotLayerZModel().addChild(new
@@ -425,7 +437,7 @@ public class PlotFactory {
 		axes.getX1Axis().getTicks().getMajorTicks().getLineStyle().setVisible(false);
 		axes.getX1Axis().getTicks().getMinorTicks().getLineStyle().setVisible(false);
 
-		axes.getY1Axis().setLimitsAutoRound(0, MatrixOperations.max(m));
+		axes.getY1Axis().setLimitsAutoRound(0, SeriesStats.get(m).getMax());
 
 		// The y limits are from what we got earlier
 
@@ -484,7 +496,7 @@ public class PlotFactory {
 
 		// The y limits are from what we got earlier
 
-		axes.getX1Axis().setLimitsAutoRound(0, MatrixOperations.max(m));
+		axes.getX1Axis().setLimitsAutoRound(0, SeriesStats.get(m).getMax());
 
 		// Label the x axis
 		axes.getX1Axis().getTitle().setText("Count");
@@ -522,7 +534,7 @@ public class PlotFactory {
 		axes.getX1Axis().getTicks().getMajorTicks().getLineStyle().setVisible(false);
 		axes.getX1Axis().getTicks().getMinorTicks().getLineStyle().setVisible(false);
 
-		axes.getY1Axis().setLimitsAutoRound(0, MatrixUtils.maxColSum(m));
+		axes.getY1Axis().setLimitsAutoRound(0, SeriesStats.get(m).getMaxSum());
 
 		// axes.getYAxis().autoSetLimits(yMin, yMax);
 		axes.getY1Axis().getTitle().setText("Count");
@@ -654,7 +666,7 @@ public class PlotFactory {
 
 		axes.getX1Axis().getTicks().getMajorTicks().setLabels(labels);
 
-		axes.getY1Axis().setLimitsAutoRound(0, MatrixOperations.max(m));
+		axes.getY1Axis().setLimitsAutoRound(0, SeriesStats.get(m).getMax());
 	}
 
 	/**
@@ -27,9 +27,6 @@ import java.util.Set;
 import org.jebtk.core.IntId;
 import org.jebtk.core.Props;
 import org.jebtk.core.StringId;
-import org.jebtk.core.collections.DefaultHashMap;
-import org.jebtk.core.collections.HashMapCreator;
-import org.jebtk.core.collections.IterMap;
 import org.jebtk.core.event.ChangeEvent;
 import org.jebtk.core.event.ChangeListener;
 import org.jebtk.core.geom.DoublePos2D;
@@ -47,7 +44,6 @@ import org.jebtk.graphplot.plotbox.PlotBox;
 import org.jebtk.graphplot.plotbox.PlotBoxZLayout;
 import org.jebtk.graphplot.plotbox.PlotBoxZStorage;
 import org.jebtk.math.matrix.DataFrame;
-import org.jebtk.math.matrix.MatrixGroup;
 import org.jebtk.modern.graphics.DrawingContext;
 
 /**
@@ -58,132 +54,6 @@ import org.jebtk.modern.graphics.DrawingContext;
  *
  */
 public class Axes extends PlotBoxGraph {
-	private static abstract class CachePoints {
-		protected Axes mAxes;
-
-		protected IterMap<Double, IterMap<Double, Point>> mXYMap = DefaultHashMap
-				.create(new HashMapCreator<Double, Point>());
-
-		public CachePoints(Axes axes) {
-			mAxes = axes;
-		}
-
-		public Point toPlotXY(double x, double y) {
-			if (!mXYMap.get(x).containsKey(y)) {
-				mXYMap.get(x).put(y, new Point(toPlotX(x), toPlotY(y)));
-			}
-
-			return mXYMap.get(x).get(y);
-		}
-
-		protected abstract int toPlotX(double x);
-
-		protected abstract int toPlotY(double x);
-
-		public void clear() {
-			mXYMap.clear();
-		}
-	}
-
-	private static class CachePointsX1Y1 extends CachePoints {
-		public CachePointsX1Y1(Axes axes) {
-			super(axes);
-		}
-
-		@Override
-		protected int toPlotX(double x) {
-			return mAxes.toPlotX1(x);
-		}
-
-		@Override
-		protected int toPlotY(double x) {
-			return mAxes.toPlotY1(x);
-		}
-	}
-
-	private static class CachePointsX1Y2 extends CachePointsX1Y1 {
-		public CachePointsX1Y2(Axes axes) {
-			super(axes);
-		}
-
-		@Override
-		protected int toPlotY(double x) {
-			return mAxes.toPlotY2(x);
-		}
-	}
-
-	private static class CachePointsX2Y1 extends CachePoints {
-		public CachePointsX2Y1(Axes axes) {
-			super(axes);
-		}
-
-		@Override
-		protected int toPlotX(double x) {
-			return mAxes.toPlotX2(x);
-		}
-
-		@Override
-		protected int toPlotY(double x) {
-			return mAxes.toPlotY1(x);
-		}
-	}
-
-	private static class CachePointsX2Y2 extends CachePointsX2Y1 {
-		public CachePointsX2Y2(Axes axes) {
-			super(axes);
-		}
-
-		@Override
-		protected int toPlotY(double x) {
-			return mAxes.toPlotY2(x);
-		}
-	}
-
-	private class AxesCachePoints {
-		private CachePoints mX1Y1Map;
-		private CachePoints mX1Y2Map;
-		private CachePoints mX2Y1Map;
-		private CachePoints mX2Y2Map;
-
-		public AxesCachePoints(Axes axes) {
-			mX1Y1Map = new CachePointsX1Y1(axes);
-			mX1Y2Map = new CachePointsX1Y2(axes);
-			mX2Y1Map = new CachePointsX2Y1(axes);
-			mX2Y2Map = new CachePointsX2Y2(axes);
-		}
-
-		public Point toPlotXY(double x, XAxisType xAxis, double y, YAxisType yAxis) {
-			if (xAxis == XAxisType.X1) {
-				// X1
-
-				if (yAxis == YAxisType.Y1) {
-					return mX1Y1Map.toPlotXY(x, y);
-				} else {
-					return mX1Y2Map.toPlotXY(x, y);
-				}
-			} else {
-				// X2
-				if (yAxis == YAxisType.Y1) {
-					return mX2Y1Map.toPlotXY(x, y);
-				} else {
-					return mX2Y2Map.toPlotXY(x, y);
-				}
-			}
-		}
-
-		public Point toPlotX1Y1(double x, double y) {
-			return mX1Y1Map.toPlotXY(x, y); // toPlotXY(x, XAxisType.X1, y,
-											// YAxisType.Y1);
-		}
-
-		public void clear() {
-			mX1Y1Map.clear();
-			mX1Y2Map.clear();
-			mX2Y1Map.clear();
-			mX2Y2Map.clear();
-		}
-	}
-
 	/**
 	 * The constant serialVersionUID.
 	 */
@@ -253,9 +123,10 @@ public class Axes extends PlotBoxGraph {
 
 	private IntDim mInternalSize = DEFAULT_SIZE;
 
-	private Plot mCurrentPlot;
+	/** The epoch of the last change to the internal size. */
+	private long mSizeEpoch = nextEpoch();
 
-	private AxesCachePoints mPointsCache;
+	private Plot mCurrentPlot;
 
 	private static final StringId NEXT_ID = new StringId("Axes");
 
@@ -296,8 +167,6 @@ public class Axes extends PlotBoxGraph {
 	public Axes(String name) {
 		super(name, new PlotBoxZStorage(), new PlotBoxZLayout());
 
-		mPointsCache = new AxesCachePoints(this);
-
 		mX1AxisTrans = new AxisTranslationX1(this);
 		mY1AxisTrans = new AxisTranslationY1(this);
 		mX2AxisTrans = new AxisTranslationX2(this);
@@ -373,6 +242,8 @@ public class Axes extends PlotBoxGraph {
 		if (!d.equals(mInternalSize)) {
 			mInternalSize = d;
 
+			mSizeEpoch = nextEpoch();
+
 			refresh();
 
 			fireChanged();
@@ -385,6 +256,30 @@ public class Axes extends PlotBoxGraph {
 		return mInternalSize;
 	}
 
+	/**
+	 * Returns the epoch of the last change to the internal size of the axes.
+	 * Used by the axis translations to decide when to rebuild.
+	 * 
+	 * @return
+	 */
+	public long getSizeEpoch() {
+		return mSizeEpoch;
+	}
+
+	/**
+	 * Returns an epoch that changes whenever the size, margins or any of the
+	 * axes change. Layers that cache anything derived from the mapping between
+	 * data and pixel coordinates should compare against this rather than
+	 * {@code hashId()} since it does not need to walk the layout.
+	 * 
+	 * @return
+	 */
+	public long getLayoutEpoch() {
+		return Math.max(Math.max(mSizeEpoch, getMarginsEpoch()),
+				Math.max(Math.max(getX1Axis().getEpoch(), getX2Axis().getEpoch()),
+						Math.max(getY1Axis().getEpoch(), getY2Axis().getEpoch())));
+	}
+
 	@Override
 	public void plotSize(Dimension dim) {
 		dim.width = mInternalSize.getW();
@@ -695,8 +590,6 @@ public class Axes extends PlotBoxGraph {
 		// mY1AxisTrans.update(mYOffset, s.height);
 		// mY2AxisTrans.update(mYOffset, s.height);
 
-		mPointsCache.clear();
-
 		// fireCanvasRedraw();
 
 		fireChanged();
@@ -768,6 +661,124 @@ public class Axes extends PlotBoxGraph {
 		return mY2AxisTrans.toPlot(y);
 	}
 
+	/**
+	 * Translate a block of x values into x1 pixel coordinates.
+	 *
+	 * @param src the x values.
+	 * @param dst the array to write pixel coordinates to.
+	 * @param off offset of the first value in both arrays.
+	 * @param len the number of values to translate.
+	 */
+	public void toPlotX1(double[] src, int[] dst, int off, int len) {
+		mX1AxisTrans.toPlot(src, dst, off, len);
+	}
+
+	/**
+	 * Translate a block of y values into y1 pixel coordinates.
+	 *
+	 * @param src the y values.
+	 * @param dst the array to write pixel coordinates to.
+	 * @param off offset of the first value in both arrays.
+	 * @param len the number of values to translate.
+	 */
+	public void toPlotY1(double[] src, int[] dst, int off, int len) {
+		mY1AxisTrans.toPlot(src, dst, off, len);
+	}
+
+	/**
+	 * Translate a block of x values into x2 pixel coordinates.
+	 *
+	 * @param src the x values.
+	 * @param dst the array to write pixel coordinates to.
+	 * @param off offset of the first value in both arrays.
+	 * @param len the number of values to translate.
+	 */
+	public void toPlotX2(double[] src, int[] dst, int off, int len) {
+		mX2AxisTrans.toPlot(src, dst, off, len);
+	}
+
+	/**
+	 * Translate a block of y values into y2 pixel coordinates.
+	 *
+	 * @param src the y values.
+	 * @param dst the array to write pixel coordinates to.
+	 * @param off offset of the first value in both arrays.
+	 * @param len the number of values to translate.
+	 */
+	public void toPlotY2(double[] src, int[] dst, int off, int len) {
+		mY2AxisTrans.toPlot(src, dst, off, len);
+	}
+
+	/**
+	 * Translate all x values into x1 pixel coordinates.
+	 *
+	 * @param src the x values.
+	 * @return the pixel coordinates.
+	 */
+	public int[] toPlotX1(double[] src) {
+		int[] ret = new int[src.length];
+
+		toPlotX1(src, ret, 0, src.length);
+
+		return ret;
+	}
+
+	/**
+	 * Translate all y values into y1 pixel coordinates.
+	 *
+	 * @param src the y values.
+	 * @return the pixel coordinates.
+	 */
+	public int[] toPlotY1(double[] src) {
+		int[] ret = new int[src.length];
+
+		toPlotY1(src, ret, 0, src.length);
+
+		return ret;
+	}
+
+	/**
+	 * Translate a block of xy pairs into x1 and y1 pixel coordinates.
+	 *
+	 * @param xs  the x values.
+	 * @param ys  the y values.
+	 * @param pxs the array to write x pixel coordinates to.
+	 * @param pys the array to write y pixel coordinates to.
+	 * @param off offset of the first value in all arrays.
+	 * @param len the number of points to translate.
+	 */
+	public void toPlotX1Y1(double[] xs, double[] ys, int[] pxs, int[] pys, int off, int len) {
+		mX1AxisTrans.toPlot(xs, pxs, off, len);
+		mY1AxisTrans.toPlot(ys, pys, off, len);
+	}
+
+	/**
+	 * Translate a block of xy pairs into pixel coordinates on the given axes.
+	 *
+	 * @param xs    the x values.
+	 * @param xAxis which x axis to use.
+	 * @param ys    the y values.
+	 * @param yAxis which y axis to use.
+	 * @param pxs   the array to write x pixel coordinates to.
+	 * @param pys   the array to write y pixel coordinates to.
+	 * @param off   offset of the first value in all arrays.
+	 * @param len   the number of points to translate.
+	 */
+	public void toPlotXY(double[] xs, XAxisType xAxis, double[] ys, YAxisType yAxis, int[] pxs, int[] pys, int off,
+			int len) {
+		if (xAxis == XAxisType.X1) {
+			toPlotX1(xs, pxs, off, len);
+		} else {
+			toPlotX2(xs, pxs, off, len);
+		}
+
+		if (yAxis == YAxisType.Y1) {
+			toPlotY1(ys, pys, off, len);
+		} else {
+			toPlotY2(ys, pys, off, len);
+		}
+	}
+
 	/**
 	 * To plot x y1.
 	 *
@@ -778,17 +789,43 @@ public class Axes extends PlotBoxGraph {
 	public List<Point> toPlotX1Y1(DataFrame m, XYSeries s) {
 		int n = m.getRows();
 
-		List<Integer> columns = MatrixGroup.findColumnIndices(m, s);
+		int[] columns = XYSeries.findColumns(m, s);
+
+		int[] pxs = toPlotX1(XYSeries.toArray(m, columns[0]));
+		int[] pys = toPlotY1(XYSeries.toArray(m, columns[1]));
 
 		List<Point> points = new ArrayList<Point>(n);
 
 		for (int i = 0; i < n; ++i) {
-			points.add(toPlotX1Y1(m.getValue(i, columns.get(0)), m.getValue(i, columns.get(1))));
+			points.add(new Point(pxs[i], pys[i]));
 		}
 
 		return points;
 	}
 
+	/**
+	 * Translate the xy columns of a series into plot coordinates, writing them to
+	 * a point buffer rather than creating a Point per row.
+	 *
+	 * @param m      the m
+	 * @param s      the s
+	 * @param buffer the buffer to write to. It is cleared first.
+	 * @return the buffer
+	 */
+	public PlotPointBuffer toPlotX1Y1(DataFrame m, XYSeries s, PlotPointBuffer buffer) {
+		int[] columns = XYSeries.findColumns(m, s);
+
+		int n = m.getRows();
+
+		buffer.clear();
+		buffer.setSize(n);
+
+		toPlotX1Y1(XYSeries.toArray(m, columns[0]), XYSeries.toArray(m, columns[1]), buffer.getXs(),
+				buffer.getYs(), 0, n);
+
+		return buffer;
+	}
+
 	/**
 	 * Converts a point from a series into the plot coordinates so it can be drawn.
 	 *
@@ -827,16 +864,14 @@ public class Axes extends PlotBoxGraph {
 	 * @return the point
 	 */
 	public Point toPlotX1Y1(double x, double y) {
-		return mPointsCache.toPlotX1Y1(x, y); // toPlotXY(x, XAxisType.X1, y,
-												// YAxisType.Y1);
+		return new Point(toPlotX1(x), toPlotY1(y));
 	}
 
 	public Point toPlotXY(double x, XAxisType xAxis, double y, YAxisType yAxis) {
-		return mPointsCache.toPlotXY(x, xAxis, y, yAxis);
-	}
+		int px = xAxis == XAxisType.X1 ? toPlotX1(x) : toPlotX2(x);
+		int py = yAxis == YAxisType.Y1 ? toPlotY1(y) : toPlotY2(y);
 
-	public AxesCachePoints getPointsCache() {
-		return mPointsCache;
+		return new Point(px, py);
 	}
 
 	//
@@ -37,8 +37,8 @@ public abstract class AxesLayer extends Layer {
 	/** The m buffered image. */
 	private BufferedImage mBufferedImage;
 
-	/** The m cache axes. */
-	private String mCacheAxes;
+	/** The layout epoch of the axes when the image was cached. */
+	private long mCacheEpoch = NO_EPOCH;
 
 	public AxesLayer() {
 
@@ -98,7 +98,7 @@ public abstract class AxesLayer extends Layer {
 		} else {
 			// Create an image version of the canvas and draw that to spped
 			// up operations
-			if (mBufferedImage == null || mCacheAxes == null || !axes.hashId().equals(mCacheAxes)) {
+			if (mBufferedImage == null || mCacheEpoch != axes.getLayoutEpoch()) {
 				// The canvas need only be the size of the available display
 				mBufferedImage = ImageUtils.createImage(axes.getPreferredSize());
 
@@ -110,7 +110,7 @@ public abstract class AxesLayer extends Layer {
 					g2Temp.dispose();
 				}
 
-				mCacheAxes = axes.hashId();
+				mCacheEpoch = axes.getLayoutEpoch();
 			}
 
 			g2.drawImage(mBufferedImage, 0, 0, null);
@@ -281,6 +281,17 @@ public class Axis extends VisibleProps implements NameGetter, PlotHashProperty,
 		getTicks().setTicks(range);
 	}
 
+	/**
+	 * Returns the epoch of the last change to the axis or its limits. The limits
+	 * can be updated without firing an event so both are checked.
+	 *
+	 * @return the epoch
+	 */
+	@Override
+	public long getEpoch() {
+		return Math.max(super.getEpoch(), mLimits.getEpoch());
+	}
+
 	/**
 	 * Returns an id describing Props of an axis. Comparing hashes can indicate when
 	 * an axis Props have changed.
@@ -38,8 +38,8 @@ public class AxisLabelLayerX1 extends PlotLayer {
 	/** The Constant serialVersionUID. */
 	private static final long serialVersionUID = 1L;
 
-	/** The m hash id. */
-	protected String mHashId = null;
+	/** The layout epoch of the axes when the cache was built. */
+	protected long mCacheEpoch = NO_EPOCH;
 
 	/** The m minor ticks. */
 	protected List<Integer> mMinorTicks;
@@ -68,7 +68,7 @@ public class AxisLabelLayerX1 extends PlotLayer {
 			Plot plot, DataFrame m) {
 		Axis axis = axes.getX1Axis();
 
-		if (mHashId == null || !mHashId.equals(axes.hashId())) {
+		if (mCacheEpoch != axes.getLayoutEpoch()) {
 			// int offset = axes.getMargins().getLeft();
 
 			mMinorTicks = new UniqueArrayList<Integer>(axis.getTicks().getMinorTicks().getTickCount());
@@ -93,7 +93,7 @@ public class AxisLabelLayerX1 extends PlotLayer {
 				// }
 			}
 
-			mHashId = axes.hashId();
+			mCacheEpoch = axes.getLayoutEpoch();
 		}
 
 		TickMarkProps ticks = axis.getTicks().getMajorTicks();
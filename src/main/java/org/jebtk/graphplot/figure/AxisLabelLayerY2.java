@@ -37,8 +37,8 @@ public class AxisLabelLayerY2 extends PlotLayer {
 	 */
 	private static final long serialVersionUID = 1L;
 
-	/** The m hash id. */
-	private String mHashId = null;
+	/** The layout epoch of the axes when the cache was built. */
+	private long mCacheEpoch = NO_EPOCH;
 
 	/** The m minor ticks. */
 	private List<Integer> mMinorTicks;
@@ -68,7 +68,7 @@ public class AxisLabelLayerY2 extends PlotLayer {
 		Axis axis = axes.getY2Axis();
 
 		// Cache positions if not already done so
-		if (mHashId == null || !mHashId.equals(subFigure.hashId())) {
+		if (mCacheEpoch != axes.getLayoutEpoch()) {
 			mMinorTicks = new UniqueArrayList<Integer>(axis.getTicks().getMinorTicks().getTickCount());
 
 			for (Tick t : axis.getTicks().getMinorTicks()) {
@@ -106,7 +106,7 @@ public class AxisLabelLayerY2 extends PlotLayer {
 		drawTitle(g2, axes, axis,
 				axes.getPreferredSize().width - g2.getFontMetrics().getAscent() - g2.getFontMetrics().getDescent());
 
-		mHashId = subFigure.hashId();
+		mCacheEpoch = axes.getLayoutEpoch();
 	}
 
 	/**
@@ -42,8 +42,8 @@ public abstract class AxisLayerX extends AxesLayer {
 	 */
 	public static final int X_AXIS_Z = -100;
 
-	/** The m hash id. */
-	protected String mHashId = null;
+	/** The layout epoch of the axes when the cache was built. */
+	protected long mCacheEpoch = NO_EPOCH;
 
 	/** The m minor ticks. */
 	protected List<Integer> mMinorTicks;
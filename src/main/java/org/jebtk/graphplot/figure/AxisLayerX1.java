@@ -105,7 +105,7 @@ public class AxisLayerX1 extends AxisLayerX {
 	 */
 	@Override
 	public void cache(Axes axes, Axis axis) {
-		if (mHashId == null || !mHashId.equals(axes.hashId())) {
+		if (mCacheEpoch != axes.getLayoutEpoch()) {
 			// int offset = axes.getMargins().getLeft();
 
 			mMinorTicks = new UniqueArrayList<Integer>(axis.getTicks().getMinorTicks().getTickCount());
@@ -135,7 +135,7 @@ public class AxisLayerX1 extends AxisLayerX {
 				// }
 			}
 
-			mHashId = axes.hashId();
+			mCacheEpoch = axes.getLayoutEpoch();
 		}
 	}
 }
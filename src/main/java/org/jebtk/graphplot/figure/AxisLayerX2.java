@@ -91,7 +91,7 @@ public class AxisLayerX2 extends AxisLayerX {
 	 */
 	@Override
 	public void cache(Axes axes, Axis axis) {
-		if (mHashId == null || !mHashId.equals(axes.hashId())) {
+		if (mCacheEpoch != axes.getLayoutEpoch()) {
 			mMinorTicks = new UniqueArrayList<Integer>(axis.getTicks().getMinorTicks().getTickCount());
 
 			for (Tick t : axis.getTicks().getMinorTicks()) {
@@ -112,7 +112,7 @@ public class AxisLayerX2 extends AxisLayerX {
 				}
 			}
 
-			mHashId = axes.hashId();
+			mCacheEpoch = axes.getLayoutEpoch();
 		}
 	}
 }
@@ -37,8 +37,8 @@ public class AxisLayerY1 extends AxisLayerY {
 	 */
 	private static final long serialVersionUID = 1L;
 
-	/** The m hash id. */
-	private String mHashId = null;
+	/** The layout epoch of the axes when the cache was built. */
+	private long mCacheEpoch = NO_EPOCH;
 
 	/** The m minor ticks. */
 	private List<Integer> mMinorTicks;
@@ -71,7 +71,7 @@ public class AxisLayerY1 extends AxisLayerY {
 		}
 
 		// Cache positions if not already done so
-		if (mHashId == null || !mHashId.equals(axes.hashId())) {
+		if (mCacheEpoch != axes.getLayoutEpoch()) {
 			mMinorTicks = new UniqueArrayList<Integer>(axis.getTicks().getMinorTicks().getTickCount());
 
 			for (Tick t : axis.getTicks().getMinorTicks()) {
@@ -129,7 +129,7 @@ public class AxisLayerY1 extends AxisLayerY {
 		drawTitle(g2, axes, axis,
 				g2.getFontMetrics().getAscent() + g2.getFontMetrics().getDescent() - axes.getMargins().getLeft());
 
-		mHashId = subFigure.hashId();
+		mCacheEpoch = axes.getLayoutEpoch();
 	}
 
 	/*
@@ -1,8 +1,8 @@
 package org.jebtk.graphplot.figure;
 
-import org.jebtk.core.event.ChangeListeners;
+import org.jebtk.graphplot.figure.props.EpochChangeListeners;
 
-public class AxisLimits extends ChangeListeners {
+public class AxisLimits extends EpochChangeListeners {
 	/**
 	 * 
 	 */
@@ -35,6 +35,10 @@ public class AxisLimits extends ChangeListeners {
 
 		mMin = min;
 		mMax = max;
+
+		// Limits can be updated without firing an event so make sure
+		// anything caching transforms still sees the change
+		updateEpoch();
 	}
 
 	public double getMin() {
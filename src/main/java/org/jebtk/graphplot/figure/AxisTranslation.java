@@ -15,11 +15,7 @@
  */
 package org.jebtk.graphplot.figure;
 
-import java.util.HashMap;
-import java.util.Map;
-
-import org.jebtk.core.Mathematics;
-import org.jebtk.core.text.TextUtils;
+import org.jebtk.graphplot.figure.props.EpochChangeListeners;
 
 /**
  * Translate between graph space and pixel space.
@@ -29,18 +25,18 @@ import org.jebtk.core.text.TextUtils;
  */
 public abstract class AxisTranslation {
 
-	/** The m x map. */
-	protected Map<Double, Integer> mXMap = new HashMap<Double, Integer>();
-
-	/** The m x norm map. */
-	protected Map<Double, Double> mXNormMap = new HashMap<Double, Double>();
-
 	/** The m x min. */
 	protected double mXMin;
 
 	/** The m x diff. */
 	protected double mXDiff;
 
+	/**
+	 * Reciprocal of the axis range so that normalization is a multiply rather
+	 * than a divide.
+	 */
+	protected double mXScale;
+
 	/** The m max x. */
 	protected int mMaxX;
 
@@ -51,7 +47,8 @@ public abstract class AxisTranslation {
 
 	protected int mXPixels;
 
-	private String mHashId = TextUtils.EMPTY_STRING;
+	/** Epoch of the axis limits and axes size the transform was built from. */
+	private long mEpoch = EpochChangeListeners.NO_EPOCH;
 
 	/**
 	 * Instantiates a new axis translation.
@@ -65,7 +62,7 @@ public abstract class AxisTranslation {
 		// axes.addCanvasListener(this);
 		// axis.addChangeListener(this);
 
-		cache();
+		cacheCheck();
 	}
 
 	public Axes getAxes() {
@@ -83,25 +80,51 @@ public abstract class AxisTranslation {
 	public int toPlot(double x) {
 		cacheCheck();
 
-		if (!mXMap.containsKey(x)) {
-			mXMap.put(x, (int) Math.round(plotNormalize(x) * mXPixels));
-		}
+		return (int) Math.round(normalize(x) * mXPixels);
+	}
+
+	/**
+	 * Translate a block of values into pixel coordinates. Values are read from
+	 * {@code src[off]} to {@code src[off + len - 1]} and written to the same
+	 * positions in {@code dst}. The transform is checked once for the whole
+	 * block so the loop body is a simple multiply, clamp and round.
+	 *
+	 * @param src the values in graph space.
+	 * @param dst the array to write pixel coordinates to.
+	 * @param off the offset of the first value.
+	 * @param len the number of values to translate.
+	 */
+	public void toPlot(double[] src, int[] dst, int off, int len) {
+		cacheCheck();
+
+		double min = mXMin;
+		double scale = mXScale;
+		int pixels = mXPixels;
+		int end = off + len;
 
-		return mXMap.get(x);
+		for (int i = off; i < end; ++i) {
+			double n = (src[i] - min) * scale;
+
+			n = n < 0 ? 0 : (n > 1 ? 1 : n);
+
+			dst[i] = (int) Math.round(n * pixels);
+		}
 	}
 
 	protected void cacheCheck() {
 		// To prevent race conditions where the plot refreshes before
 		// axis translator updates, do a check before a normalization whether
-		// we need to clear the caches. We do this as an alternative to a
-		// listening model.
+		// we need to rebuild the transform. We do this as an alternative to a
+		// listening model. Comparing epochs is cheap enough to be done on
+		// every call. Epochs are globally increasing so the max of the two
+		// changes if either of them does.
 
-		String id = mAxes.hashId();
+		long epoch = Math.max(mAxis.getLimits().getEpoch(), mAxes.getSizeEpoch());
 
-		if (!mHashId.equals(id)) {
+		if (epoch != mEpoch) {
 			cache();
 
-			mHashId = id;
+			mEpoch = epoch;
 		}
 	}
 
@@ -111,9 +134,8 @@ public abstract class AxisTranslation {
 	private void cache() {
 		mXMin = mAxis.getLimits().getMin();
 		mXDiff = mAxis.getLimits().getMax() - mXMin;
+		mXScale = 1.0 / mXDiff;
 		mXPixels = getPixels();
-
-		clearCaches();
 	}
 
 	/**
@@ -123,19 +145,35 @@ public abstract class AxisTranslation {
 	 * @return the double
 	 */
 	public double plotNormalize(double x) {
-		if (!mXNormMap.containsKey(x)) {
-			mXNormMap.put(x, Mathematics.bound((x - mXMin) / mXDiff, 0, 1));
-		}
+		cacheCheck();
 
-		return mXNormMap.get(x);
+		return normalize(x);
 	}
 
 	/**
-	 * Clear caches.
+	 * Normalize a value to the range [0, 1] using the current transform. Callers
+	 * must have called {@code cacheCheck()} first.
+	 *
+	 * @param x the x
+	 * @return the double
 	 */
-	public void clearCaches() {
-		mXMap.clear();
+	protected final double normalize(double x) {
+		double n = (x - mXMin) * mXScale;
+
+		if (n < 0) {
+			return 0;
+		} else if (n > 1) {
+			return 1;
+		} else {
+			return n;
+		}
+	}
 
-		mXNormMap.clear();
+	/**
+	 * Clear caches. The transform is invalidated by epoch so this forces a
+	 * rebuild on the next call.
+	 */
+	public void clearCaches() {
+		mEpoch = EpochChangeListeners.NO_EPOCH;
 	}
 }
@@ -43,11 +43,26 @@ public abstract class AxisTranslationY extends AxisTranslation {
 	public int toPlot(double x) {
 		cacheCheck();
 
-		if (!mXMap.containsKey(x)) {
+		// Invert y axis coordinates
+		return mXPixels - (int) Math.round(normalize(x) * mXPixels);
+	}
+
+	@Override
+	public void toPlot(double[] src, int[] dst, int off, int len) {
+		cacheCheck();
+
+		double min = mXMin;
+		double scale = mXScale;
+		int pixels = mXPixels;
+		int end = off + len;
+
+		for (int i = off; i < end; ++i) {
+			double n = (src[i] - min) * scale;
+
+			n = n < 0 ? 0 : (n > 1 ? 1 : n);
+
 			// Invert y axis coordinates
-			mXMap.put(x, mXPixels - (int) Math.round(plotNormalize(x) * mXPixels));
+			dst[i] = pixels - (int) Math.round(n * pixels);
 		}
-
-		return mXMap.get(x);
 	}
 }
@@ -18,12 +18,10 @@ package org.jebtk.graphplot.figure;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.util.Arrays;
-import java.util.List;
 
 import org.jebtk.graphplot.figure.series.XYSeries;
 import org.jebtk.math.matrix.DataFrame;
 import org.jebtk.math.matrix.DoubleMatrix;
-import org.jebtk.math.matrix.MatrixGroup;
 import org.jebtk.modern.graphics.DrawingContext;
 
 /**
@@ -88,9 +86,9 @@ public class BarChartErrorBarsLayer extends PlotClippedLayer {
 		System.err.println("sd " + Arrays.toString(sds));
 
 		for (XYSeries series : plot.getAllSeries()) {
-			List<Integer> columns = MatrixGroup.findColumnIndices(m, series);
+			int[] columns = XYSeries.findColumns(m, series);
 
-			int c = columns.get(0);
+			int c = columns[0];
 
 			y = means[c];
 			sd = sds[c];
@@ -16,12 +16,10 @@
 package org.jebtk.graphplot.figure;
 
 import java.awt.Graphics2D;
-import java.util.List;
 
 import org.jebtk.graphplot.figure.series.XYSeries;
 import org.jebtk.math.matrix.DataFrame;
 import org.jebtk.math.matrix.DoubleMatrix;
-import org.jebtk.math.matrix.MatrixGroup;
 import org.jebtk.modern.graphics.DrawingContext;
 
 /**
@@ -78,9 +76,9 @@ public class BarChartHLayer extends PlotClippedLayer {
 		x = bw; // 1 + bw; //axes.toPlotX(axes.getXAxis().getLimits().getMin());
 
 		for (XYSeries series : plot.getAllSeries()) {
-			List<Integer> columns = MatrixGroup.findColumnIndices(m, series);
+			int[] columns = XYSeries.findColumns(m, series);
 
-			int c = columns.get(0);
+			int c = columns[0];
 
 			x1 = axes.toPlotY1(x + offset);
 			y2 = axes.toPlotX1(means[c]);
@@ -16,13 +16,13 @@
 package org.jebtk.graphplot.figure;
 
 import java.awt.Graphics2D;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.jebtk.graphplot.figure.props.FillPattern;
 import org.jebtk.graphplot.figure.series.XYSeries;
 import org.jebtk.math.matrix.DataFrame;
 import org.jebtk.math.matrix.DoubleMatrix;
-import org.jebtk.math.matrix.MatrixGroup;
 import org.jebtk.modern.graphics.DrawingContext;
 
 /**
@@ -77,18 +77,50 @@ public class BarChartLayer extends PlotClippedLayer {
 
 		double[] means = DoubleMatrix.columnMeans(m);
 
+		// Work out which series have data and where their bars go so that all
+		// bars can be translated into plot coordinates in one pass
+		List<XYSeries> allSeries = new ArrayList<XYSeries>();
+
 		for (XYSeries series : plot.getAllSeries()) {
-			List<Integer> columns = MatrixGroup.findColumnIndices(m, series);
+			allSeries.add(series);
+		}
+
+		int n = allSeries.size();
+
+		double[] xs = new double[n];
+		double[] ys = new double[n];
+		boolean[] used = new boolean[n];
+
+		for (int i = 0; i < n; ++i) {
+			int[] columns = XYSeries.findColumns(m, allSeries.get(i));
 
-			if (columns.size() == 0) {
+			if (columns.length == 0) {
 				continue;
 			}
 
-			int c = columns.get(0);
+			used[i] = true;
+
+			xs[i] = x + offset;
+			ys[i] = means[columns[0]];
+
+			++x;
+		}
 
-			x1 = axes.toPlotX1(x + offset);
+		int[] x1s = new int[n];
+		int[] y2s = new int[n];
 
-			y2 = axes.toPlotY1(means[c]);
+		axes.toPlotX1Y1(xs, ys, x1s, y2s, 0, n);
+
+		for (int i = 0; i < n; ++i) {
+			if (!used[i]) {
+				continue;
+			}
+
+			XYSeries series = allSeries.get(i);
+
+			x1 = x1s[i];
+
+			y2 = y2s[i];
 
 			h = y1 - y2 + 1;
 
@@ -108,8 +140,6 @@ public class BarChartLayer extends PlotClippedLayer {
 
 				g2.drawRect(x1, y2, bwp, h);
 			}
-
-			++x;
 		}
 	}
 
@@ -16,11 +16,9 @@
 package org.jebtk.graphplot.figure;
 
 import java.awt.Graphics2D;
-import java.util.List;
 
 import org.jebtk.graphplot.figure.series.XYSeries;
 import org.jebtk.math.matrix.DataFrame;
-import org.jebtk.math.matrix.MatrixGroup;
 import org.jebtk.modern.graphics.DrawingContext;
 
 /**
@@ -77,9 +75,9 @@ public class BarChartStackedLayer extends PlotClippedLayer {
 			int y = y1;
 
 			for (XYSeries series : plot.getAllSeries()) {
-				List<Integer> rows = MatrixGroup.findRowIndices(m, series);
+				int[] rows = XYSeries.findRows(m, series);
 
-				int r = rows.get(0);
+				int r = rows[0];
 
 				x1 = axes.toPlotX1(x + offset);
 
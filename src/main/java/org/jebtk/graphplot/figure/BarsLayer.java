@@ -16,7 +16,6 @@
 package org.jebtk.graphplot.figure;
 
 import java.awt.Graphics2D;
-import java.awt.Point;
 
 import org.jebtk.graphplot.figure.series.XYSeries;
 import org.jebtk.math.matrix.DataFrame;
@@ -73,23 +72,64 @@ public class BarsLayer extends UniqueXYLayer {
 		int x;
 		int h;
 
-		for (Point p : xy) {
-			x = p.x + offset;
+		int y;
 
-			h = y1 - p.y; // + 1;
+		for (int i = 0; i < xy.getPointCount(); ++i) {
+			x = xy.getX(i) + offset;
+			y = xy.getY(i);
+
+			h = y1 - y; // + 1;
 
 			if (series.getStyle().getFillStyle().getVisible()) {
 				g2.setColor(series.getStyle().getFillStyle().getColor());
 
-				g2.fillRect(x, p.y, bw, h); // h);
+				g2.fillRect(x, y, bw, h); // h);
 			}
 
 			if (series.getStyle().getLineStyle().getVisible()) {
 				g2.setStroke(series.getStyle().getLineStyle().getStroke());
 				g2.setColor(series.getStyle().getLineStyle().getColor());
 
-				g2.drawRect(x, p.y, bw, h);
+				g2.drawRect(x, y, bw, h);
+			}
+		}
+	}
+
+	@Override
+	public boolean rasterLayer(RasterCanvas canvas, DrawingContext context, Figure figure, SubFigure subFigure,
+			Axes axes, Plot plot, DataFrame m, XYSeries series, UniqueXY xy) {
+		boolean fill = series.getStyle().getFillStyle().getVisible();
+		boolean line = series.getStyle().getLineStyle().getVisible();
+
+		// The canvas can only draw one pixel wide solid outlines
+		if (line && !RasterCanvas.isPlainStroke(series.getStyle().getLineStyle().getStroke())) {
+			return false;
+		}
+
+		int fillColor = fill ? RasterCanvas.toArgb(series.getStyle().getFillStyle().getColor()) : 0;
+		int lineColor = line ? RasterCanvas.toArgb(series.getStyle().getLineStyle().getColor()) : 0;
+
+		int y1 = axes.toPlotY1(0);
+
+		int w = Math.max(1, axes.toPlotX1(1) - axes.toPlotX1(0));
+
+		int bw = Math.max(1, (int) (w * plot.getBarWidth()));
+		int offset = (w - bw) / 2;
+
+		for (int i = 0; i < xy.getPointCount(); ++i) {
+			int x = xy.getX(i) + offset;
+			int y = xy.getY(i);
+			int h = y1 - y;
+
+			if (fill) {
+				canvas.fillRect(x, y, bw, h, fillColor);
+			}
+
+			if (line) {
+				canvas.drawRect(x, y, bw, h, lineColor);
 			}
 		}
+
+		return true;
 	}
 }
\ No newline at end of file
@@ -214,6 +214,8 @@ public class BoxWhiskerScatterLayer extends PlotSeriesLayer {
 		// Arrange the points so that overlapping ones are separated
 		// about the center
 
+		Occupied2d occupied = createOccupied(axes, series.getMarker());
+
 		for (int group : overlap2PointMap.keySet()) {
 			int i = 0;
 
@@ -226,7 +228,9 @@ public class BoxWhiskerScatterLayer extends PlotSeriesLayer {
 				// the center of the shape is on x rather than the left edge
 				x = offsetX + i * (binSize + b2);
 
-				series.getMarker().plot(g2, series.getMarkerStyle(), new Point(x, p.getY()));
+				if (occupied == null || occupied.addFootprint(x, p.getY(), series.getMarker().getSize())) {
+					series.getMarker().plot(g2, series.getMarkerStyle(), x, p.getY());
+				}
 
 				System.err.println("p " + p + " " + group);
 
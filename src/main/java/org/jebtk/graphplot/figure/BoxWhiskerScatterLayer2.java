@@ -50,8 +50,8 @@ public class BoxWhiskerScatterLayer2 extends PlotClippedLayer {
 	 */
 	private double mX;
 
-	/** The m hash id. */
-	private String mHashId;
+	/** The layout epoch of the axes when the cache was built. */
+	private long mCacheEpoch = NO_EPOCH;
 
 	/** The m point map. */
 	private ListMultiMap<XYSeries, IntPos2D> mPointMap;
@@ -124,7 +124,7 @@ public class BoxWhiskerScatterLayer2 extends PlotClippedLayer {
 
 		int plotW = axes.toPlotX1(mW);
 
-		if (mHashId == null || !mHashId.equals(axes.hashId())) {
+		if (mCacheEpoch != axes.getLayoutEpoch()) {
 
 			SetMultiMap<IntPos2D, Integer> point2YBinMap = HashSetMultiMap.create();
 
@@ -241,7 +241,7 @@ public class BoxWhiskerScatterLayer2 extends PlotClippedLayer {
 				}
 			}
 
-			mHashId = axes.hashId();
+			mCacheEpoch = axes.getLayoutEpoch();
 		}
 
 		// We know the max width of the block, so we can determine the
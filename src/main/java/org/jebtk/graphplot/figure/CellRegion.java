@@ -0,0 +1,70 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.graphplot.figure;
+
+/**
+ * A block of matrix cells whose values have changed, stamped with the epoch
+ * of the change so that layers can pick up the regions they have not yet
+ * redrawn. Rows and columns are half open ranges in matrix coordinates.
+ *
+ * @author Antony Holmes
+ *
+ */
+public class CellRegion {
+
+	private final long mEpoch;
+	private final int mStartRow;
+	private final int mEndRow;
+	private final int mStartCol;
+	private final int mEndCol;
+
+	/**
+	 * Instantiates a new cell region.
+	 *
+	 * @param epoch    the epoch of the change
+	 * @param startRow the first row
+	 * @param endRow   the end row (exclusive)
+	 * @param startCol the first column
+	 * @param endCol   the end column (exclusive)
+	 */
+	public CellRegion(long epoch, int startRow, int endRow, int startCol, int endCol) {
+		mEpoch = epoch;
+		mStartRow = startRow;
+		mEndRow = endRow;
+		mStartCol = startCol;
+		mEndCol = endCol;
+	}
+
+	public long getEpoch() {
+		return mEpoch;
+	}
+
+	public int getStartRow() {
+		return mStartRow;
+	}
+
+	public int getEndRow() {
+		return mEndRow;
+	}
+
+	public int getStartCol() {
+		return mStartCol;
+	}
+
+	public int getEndCol() {
+		return mEndCol;
+	}
+}
@@ -0,0 +1,33 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.graphplot.figure;
+
+/**
+ * How a series is reduced to pixel coordinates before it is drawn.
+ */
+public enum Decimation {
+
+	/**
+	 * Keep one point per pixel column, the one furthest from zero.
+	 */
+	MAX_Y,
+
+	/**
+	 * Keep the first, last, min and max point of each pixel column so the
+	 * drawn envelope matches the full data exactly.
+	 */
+	M4
+}
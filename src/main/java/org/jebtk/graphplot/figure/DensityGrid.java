@@ -0,0 +1,275 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.graphplot.figure;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.jebtk.modern.graphics.colormap.ColorMap;
+
+/**
+ * Counts how many points fall in each cell of a regular grid over the plot
+ * area so that a very large scatter can be drawn as a 2D histogram rather
+ * than one marker per point. Binning costs one integer increment per point
+ * and drawing costs one pixel per cell, regardless of how many points there
+ * are. Large buffers are split into chunks that are counted on the common
+ * fork-join pool, each into its own array, and then summed.
+ *
+ * @author Antony Holmes
+ *
+ */
+public class DensityGrid {
+
+	/**
+	 * Buffers with more points than this are counted in parallel.
+	 */
+	public static final int PARALLEL_POINTS = 65536;
+
+	/** The number of columns. */
+	private final int mW;
+
+	/** The number of rows. */
+	private final int mH;
+
+	/** The size of a cell in pixels. */
+	private final int mBinSize;
+
+	/** The counts, row by row. */
+	private final int[] mCounts;
+
+	/** The largest count. */
+	private final int mMax;
+
+	/**
+	 * Bin the points of a buffer. Points outside the plot area are ignored,
+	 * but since the axes clamp coordinates to the plot area, points outside
+	 * the axis limits should be removed before they are transformed.
+	 *
+	 * @param points  the points in pixel coordinates.
+	 * @param w       the width of the plot area in pixels.
+	 * @param h       the height of the plot area in pixels.
+	 * @param binSize the size of a cell in pixels.
+	 */
+	public DensityGrid(PlotPointBuffer points, int w, int h, int binSize) {
+		mBinSize = Math.max(1, binSize);
+		mW = Math.max(1, (w + mBinSize - 1) / mBinSize);
+		mH = Math.max(1, (h + mBinSize - 1) / mBinSize);
+
+		mCounts = count(points.getXs(), points.getYs(), points.size());
+
+		int max = 0;
+
+		for (int c : mCounts) {
+			if (c > max) {
+				max = c;
+			}
+		}
+
+		mMax = max;
+	}
+
+	/**
+	 * Count the points, in parallel if there are enough of them.
+	 *
+	 * @param xs the xs
+	 * @param ys the ys
+	 * @param n  the n
+	 * @return the counts
+	 */
+	private int[] count(final int[] xs, final int[] ys, final int n) {
+		int chunks = Math.min(ForkJoinPool.getCommonPoolParallelism(), n / PARALLEL_POINTS);
+
+		if (chunks < 2) {
+			int[] ret = new int[mW * mH];
+
+			count(xs, ys, 0, n, ret);
+
+			return ret;
+		}
+
+		int size = (n + chunks - 1) / chunks;
+
+		List<Callable<int[]>> tasks = new ArrayList<Callable<int[]>>(chunks);
+
+		for (int i = 0; i < chunks; ++i) {
+			final int start = i * size;
+			final int end = Math.min(n, start + size);
+
+			tasks.add(new Callable<int[]>() {
+				@Override
+				public int[] call() {
+					// Each chunk has its own counts so there is no contention
+					int[] ret = new int[mW * mH];
+
+					count(xs, ys, start, end, ret);
+
+					return ret;
+				}
+			});
+		}
+
+		int[] ret = null;
+
+		try {
+			for (Future<int[]> f : ForkJoinPool.commonPool().invokeAll(tasks)) {
+				int[] counts = f.get();
+
+				if (ret == null) {
+					ret = counts;
+				} else {
+					for (int i = 0; i < ret.length; ++i) {
+						ret[i] += counts[i];
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			// Keep the interrupt for the caller and count on this thread
+			Thread.currentThread().interrupt();
+
+			ret = new int[mW * mH];
+
+			count(xs, ys, 0, n, ret);
+		} catch (ExecutionException e) {
+			// Counting throws no checked exceptions so pass on what went wrong
+			Throwable cause = e.getCause();
+
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+
+			throw new IllegalStateException(cause);
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Count the points [start, end) into an array. Points outside the grid are
+	 * ignored.
+	 *
+	 * @param xs     the xs
+	 * @param ys     the ys
+	 * @param start  the start
+	 * @param end    the end
+	 * @param counts the counts
+	 */
+	private void count(int[] xs, int[] ys, int start, int end, int[] counts) {
+		for (int i = start; i < end; ++i) {
+			int x = xs[i];
+			int y = ys[i];
+
+			if (x < 0 || y < 0) {
+				continue;
+			}
+
+			x /= mBinSize;
+			y /= mBinSize;
+
+			if (x >= mW || y >= mH) {
+				continue;
+			}
+
+			++counts[y * mW + x];
+		}
+	}
+
+	/**
+	 * Gets the count in a cell.
+	 *
+	 * @param x the x
+	 * @param y the y
+	 * @return the count
+	 */
+	public int getCount(int x, int y) {
+		return mCounts[y * mW + x];
+	}
+
+	/**
+	 * Gets the largest count in any cell.
+	 *
+	 * @return the max count
+	 */
+	public int getMaxCount() {
+		return mMax;
+	}
+
+	public int getBinSize() {
+		return mBinSize;
+	}
+
+	/**
+	 * Render the counts as an image with one pixel per cell. Counts are log
+	 * scaled so that sparse cells remain visible next to dense ones. Empty
+	 * cells are transparent. Colors are opaque so the image can also be
+	 * drawn with {@code RasterCanvas}.
+	 *
+	 * @param colorMap the color map
+	 * @return the image, which should be drawn scaled by the bin size.
+	 */
+	public BufferedImage toImage(ColorMap colorMap) {
+		BufferedImage ret = new BufferedImage(mW, mH, BufferedImage.TYPE_INT_ARGB_PRE);
+
+		int[] pixels = ((DataBufferInt) ret.getRaster().getDataBuffer()).getData();
+
+		if (mMax == 0) {
+			return ret;
+		}
+
+		// Look up each count once since many cells share the same count
+		int colors = colorMap.getColorCount();
+		int[] lut = new int[Math.min(mMax, 4096) + 1];
+		double scale = 1.0 / Math.log1p(mMax);
+
+		for (int i = 0; i < mCounts.length; ++i) {
+			int c = mCounts[i];
+
+			if (c == 0) {
+				continue;
+			}
+
+			if (c < lut.length && lut[c] != 0) {
+				pixels[i] = lut[c];
+				continue;
+			}
+
+			int index = (int) Math.round(Math.log1p(c) * scale * (colors - 1));
+
+			Color color = colorMap.getColorByIndex(Math.max(0, Math.min(colors - 1, index)));
+
+			// Force opaque so that a zero ARGB means not yet looked up
+			int argb = color.getRGB() | 0xFF000000;
+
+			if (c < lut.length) {
+				lut[c] = argb;
+			}
+
+			pixels[i] = argb;
+		}
+
+		return ret;
+	}
+}
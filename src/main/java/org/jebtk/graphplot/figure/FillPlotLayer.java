@@ -16,7 +16,6 @@
 package org.jebtk.graphplot.figure;
 
 import java.awt.Graphics2D;
-import java.awt.Point;
 import java.awt.geom.GeneralPath;
 
 import org.jebtk.graphplot.figure.series.XYSeries;
@@ -43,6 +42,9 @@ public class FillPlotLayer extends PathPlotLayer {
 	 */
 	public FillPlotLayer(String series) {
 		super(series);
+
+		// Keep the min/max envelope so spikes are not lost
+		setDecimation(Decimation.M4);
 	}
 
 	@Override
@@ -98,13 +100,15 @@ public class FillPlotLayer extends PathPlotLayer {
 
 		int y0 = Math.min(axes.toPlotY1(0), axes.toPlotY1(axes.getY1Axis().getLimits().getMin()));
 
-		path.moveTo(xy.getPoint(0).x, y0);
+		int n = xy.getPointCount();
+
+		path.moveTo(xy.getX(0), y0);
 
-		for (Point p : xy) {
-			path.lineTo(p.x, p.y);
+		for (int i = 0; i < n; ++i) {
+			path.lineTo(xy.getX(i), xy.getY(i));
 		}
 
-		path.lineTo(xy.getPoint(xy.getPointCount() - 1).x, y0);
+		path.lineTo(xy.getX(n - 1), y0);
 
 		path.closePath();
 
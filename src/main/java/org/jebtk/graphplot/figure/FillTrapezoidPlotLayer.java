@@ -15,7 +15,6 @@
  */
 package org.jebtk.graphplot.figure;
 
-import java.awt.Point;
 import java.awt.geom.GeneralPath;
 
 import org.jebtk.graphplot.figure.series.XYSeries;
@@ -72,20 +71,18 @@ public class FillTrapezoidPlotLayer extends FillPlotLayer {
 
 		GeneralPath path = new GeneralPath();
 
-		Point ep = xy.getPoint(0);
+		int n = xy.getPointCount();
 
-		path.moveTo(ep.x, yMin);
-		path.lineTo(ep.x, ep.y);
+		path.moveTo(xy.getX(0), yMin);
+		path.lineTo(xy.getX(0), xy.getY(0));
 
-		for (Point p : xy) {
-			path.lineTo(p.x, p.y);
+		for (int i = 0; i < n; ++i) {
+			path.lineTo(xy.getX(i), xy.getY(i));
 		}
 
-		ep = xy.getPoint(xy.getPointCount() - 1);
-
 		// Ensure that the end point matches the start so that when joined
-		if (ep.y != yMin) {
-			path.lineTo(ep.x, yMin);
+		if (xy.getY(n - 1) != yMin) {
+			path.lineTo(xy.getX(n - 1), yMin);
 		}
 
 		path.closePath();
@@ -60,12 +60,11 @@ public class Grid2dLayer extends AxesLayer {
 			g2.setColor(axis.getGrid().getColor());
 			g2.setStroke(axis.getGrid().getStroke());
 
-			int x;
 			int h = axes.getInternalSize().getH();
 
-			for (int i = 0; i < axis.getTicks().getMajorTicks().getTickCount(); ++i) {
-				x = axes.toPlotX1(axis.getTicks().getMajorTicks().getTick(i));
+			int[] xs = axes.toPlotX1(ticks(axis));
 
+			for (int x : xs) {
 				g2.drawLine(x, 0, x, h);
 			}
 		}
@@ -79,13 +78,29 @@ public class Grid2dLayer extends AxesLayer {
 
 			int x2 = axes.getInternalSize().getW();
 
-			int y;
-
-			for (int i = 0; i < axis.getTicks().getMajorTicks().getTickCount(); ++i) {
-				y = axes.toPlotY1(axis.getTicks().getMajorTicks().getTick(i));
+			int[] ys = axes.toPlotY1(ticks(axis));
 
+			for (int y : ys) {
 				g2.drawLine(0, y, x2, y);
 			}
 		}
 	}
+
+	/**
+	 * Returns the major tick positions of an axis as an array.
+	 * 
+	 * @param axis
+	 * @return
+	 */
+	private static double[] ticks(Axis axis) {
+		int n = axis.getTicks().getMajorTicks().getTickCount();
+
+		double[] ret = new double[n];
+
+		for (int i = 0; i < n; ++i) {
+			ret[i] = axis.getTicks().getMajorTicks().getTick(i);
+		}
+
+		return ret;
+	}
 }
@@ -16,7 +16,6 @@
 package org.jebtk.graphplot.figure;
 
 import java.awt.Graphics2D;
-import java.awt.Point;
 
 import org.jebtk.graphplot.figure.series.XYSeries;
 import org.jebtk.math.matrix.DataFrame;
@@ -77,32 +76,99 @@ public class HistogramLayer extends PlotSeriesLayer {
 
 		y1 = axes.toPlotY1(0);
 
-		// ignore last point
-		for (HistBin bin : mHist) {
-			int y = bin.getCount();
+		int n = mHist.length;
 
-			Point p1 = axes.toPlotX1Y1(bin.getX(), y);
+		int[] x1s = new int[n];
+		int[] x2s = new int[n];
+		int[] ys = new int[n];
 
-			Point p2 = axes.toPlotX1Y1(bin.getX() + bin.getWidth(), y);
+		toPlot(axes, x1s, x2s, ys);
 
-			bwp = p2.x - p1.x;
+		// ignore last point
+		for (int i = 0; i < n; ++i) {
+			bwp = x2s[i] - x1s[i];
 
-			h = y1 - p1.y;
+			h = y1 - ys[i];
 
 			if (series.getStyle().getFillStyle().getVisible()) {
 				// System.err.println("has " + series.getTitle().getText());
 
 				g2.setColor(series.getStyle().getFillStyle().getColor());
 
-				g2.fillRect(p1.x, p1.y, bwp, h); // h);
+				g2.fillRect(x1s[i], ys[i], bwp, h); // h);
 			}
 
 			if (series.getStyle().getLineStyle().getVisible()) {
 				g2.setStroke(series.getStyle().getLineStyle().getStroke());
 				g2.setColor(series.getStyle().getLineStyle().getColor());
 
-				g2.drawRect(p1.x, p1.y, bwp, h);
+				g2.drawRect(x1s[i], ys[i], bwp, h);
 			}
 		}
 	}
+
+	@Override
+	public boolean rasterLayer(RasterCanvas canvas, DrawingContext context, Figure figure, SubFigure subFigure,
+			Axes axes, Plot plot, DataFrame m, XYSeries series) {
+		boolean fill = series.getStyle().getFillStyle().getVisible();
+		boolean line = series.getStyle().getLineStyle().getVisible();
+
+		// The canvas can only draw one pixel wide solid outlines
+		if (line && !RasterCanvas.isPlainStroke(series.getStyle().getLineStyle().getStroke())) {
+			return false;
+		}
+
+		int fillColor = fill ? RasterCanvas.toArgb(series.getStyle().getFillStyle().getColor()) : 0;
+		int lineColor = line ? RasterCanvas.toArgb(series.getStyle().getLineStyle().getColor()) : 0;
+
+		int y1 = axes.toPlotY1(0);
+
+		int n = mHist.length;
+
+		int[] x1s = new int[n];
+		int[] x2s = new int[n];
+		int[] ys = new int[n];
+
+		toPlot(axes, x1s, x2s, ys);
+
+		for (int i = 0; i < n; ++i) {
+			int bwp = x2s[i] - x1s[i];
+			int h = y1 - ys[i];
+
+			if (fill) {
+				canvas.fillRect(x1s[i], ys[i], bwp, h, fillColor);
+			}
+
+			if (line) {
+				canvas.drawRect(x1s[i], ys[i], bwp, h, lineColor);
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Convert the bins to pixel coordinates.
+	 *
+	 * @param axes the axes
+	 * @param x1s  receives the start of each bin.
+	 * @param x2s  receives the end of each bin.
+	 * @param ys   receives the top of each bin.
+	 */
+	private void toPlot(Axes axes, int[] x1s, int[] x2s, int[] ys) {
+		int n = mHist.length;
+
+		double[] starts = new double[n];
+		double[] ends = new double[n];
+		double[] counts = new double[n];
+
+		for (int i = 0; i < n; ++i) {
+			starts[i] = mHist[i].getX();
+			ends[i] = mHist[i].getX() + mHist[i].getWidth();
+			counts[i] = mHist[i].getCount();
+		}
+
+		axes.toPlotX1Y1(starts, counts, x1s, ys, 0, n);
+		axes.toPlotX1(ends, x2s, 0, n);
+	}
 }
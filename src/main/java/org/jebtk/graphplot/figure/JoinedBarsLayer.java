@@ -16,7 +16,6 @@
 package org.jebtk.graphplot.figure;
 
 import java.awt.Graphics2D;
-import java.awt.Point;
 
 import org.jebtk.graphplot.figure.series.XYSeries;
 import org.jebtk.math.matrix.DataFrame;
@@ -67,15 +66,15 @@ public class JoinedBarsLayer extends UniqueXYLayer {
 		int w;
 		int y1 = axes.toPlotY1(0);
 
-		Point p;
-		Point p2;
+		int x;
+		int y2;
 
 		for (int i = 0; i < xy.getPointCount() - 1; ++i) {
-			p = xy.getPoint(i);
-			p2 = xy.getPoint(i + 1);
+			x = xy.getX(i);
+			y2 = xy.getY(i + 1);
 
-			h = y1 - p2.y;
-			w = p2.x - p.x;
+			h = y1 - y2;
+			w = xy.getX(i + 1) - x;
 
 			if (series.getStyle().getFillStyle().getVisible()) {
 				// System.err.println("has " + series.getTitle().getText());
@@ -84,14 +83,14 @@ public class JoinedBarsLayer extends UniqueXYLayer {
 
 				// System.err.println("run " + x1 + " " + y1 + " " + y2 + " " + w);
 
-				g2.fillRect(p.x, p2.y, w, h); // h);
+				g2.fillRect(x, y2, w, h); // h);
 			}
 
 			if (series.getStyle().getLineStyle().getVisible()) {
 				g2.setStroke(series.getStyle().getLineStyle().getStroke());
 				g2.setColor(series.getStyle().getLineStyle().getColor());
 
-				g2.drawRect(p.x, p2.y, w, h);
+				g2.drawRect(x, y2, w, h);
 			}
 		}
 	}
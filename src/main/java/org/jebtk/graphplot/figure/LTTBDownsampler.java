@@ -0,0 +1,123 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.graphplot.figure;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling of a series of points sorted by
+ * x. The first and last points are always kept and the points in between are
+ * split into equal sized buckets. From each bucket the point forming the
+ * largest triangle with the previously selected point and the average of the
+ * next bucket is kept. This preserves the visual shape of a curve far better
+ * than picking every nth point and runs in a single O(n) pass.
+ *
+ * Unlike {@code M4Decimator} the result does not draw exactly the same line
+ * as the input, but it has a fixed size, which keeps the cost of smoothing
+ * and of vector output bounded.
+ *
+ * @author Antony Holmes
+ *
+ */
+public class LTTBDownsampler {
+
+	/**
+	 * Instantiates a new LTTB downsampler.
+	 */
+	private LTTBDownsampler() {
+		// Do nothing
+	}
+
+	/**
+	 * Select at most budget of the first n points.
+	 *
+	 * @param xs     the x coordinates, sorted in ascending order.
+	 * @param ys     the y coordinates.
+	 * @param n      the number of points.
+	 * @param budget the maximum number of points to keep. Must be at least 3.
+	 * @param out    receives the indices of the selected points in ascending
+	 *               order. Must have room for min(n, budget) indices.
+	 * @return the number of points selected.
+	 */
+	public static int downsample(int[] xs, int[] ys, int n, int budget, int[] out) {
+		if (budget < 3 || n <= budget) {
+			for (int i = 0; i < n; ++i) {
+				out[i] = i;
+			}
+
+			return n;
+		}
+
+		// Points between the two ends are divided into budget - 2 buckets
+		double bucketSize = (double) (n - 2) / (budget - 2);
+
+		int size = 0;
+
+		int a = 0;
+
+		out[size++] = a;
+
+		for (int b = 0; b < budget - 2; ++b) {
+			int start = (int) (b * bucketSize) + 1;
+			int end = (int) ((b + 1) * bucketSize) + 1;
+
+			// Average of the next bucket, which for the final bucket is the
+			// last point
+			int nextStart = end;
+			int nextEnd = Math.min(n, (int) ((b + 2) * bucketSize) + 1);
+
+			if (b == budget - 3) {
+				nextStart = n - 1;
+				nextEnd = n;
+			}
+
+			double avgX = 0;
+			double avgY = 0;
+
+			for (int i = nextStart; i < nextEnd; ++i) {
+				avgX += xs[i];
+				avgY += ys[i];
+			}
+
+			int count = nextEnd - nextStart;
+
+			avgX /= count;
+			avgY /= count;
+
+			double ax = xs[a];
+			double ay = ys[a];
+
+			double maxArea = -1;
+			int maxI = start;
+
+			for (int i = start; i < end; ++i) {
+				// Twice the triangle area, which is fine for comparison
+				double area = Math.abs((ax - avgX) * (ys[i] - ay) - (ax - xs[i]) * (avgY - ay));
+
+				if (area > maxArea) {
+					maxArea = area;
+					maxI = i;
+				}
+			}
+
+			out[size++] = maxI;
+
+			a = maxI;
+		}
+
+		out[size++] = n - 1;
+
+		return size;
+	}
+}
@@ -16,7 +16,6 @@
 package org.jebtk.graphplot.figure;
 
 import java.awt.Graphics2D;
-import java.awt.Point;
 import java.awt.geom.GeneralPath;
 
 import org.jebtk.graphplot.figure.series.XYSeries;
@@ -43,6 +42,9 @@ public class LinePlotLayer extends PathPlotLayer {
 	 */
 	public LinePlotLayer(String series) {
 		super(series);
+
+		// Keep the min/max envelope so spikes are not lost
+		setDecimation(Decimation.M4);
 	}
 
 	@Override
@@ -95,14 +97,9 @@ public class LinePlotLayer extends PathPlotLayer {
 
 		if (n > 0) {
 
-			Point p;
-
 			GeneralPath path = new GeneralPath();
 
-			// List<Point> allPoints = xy.getAllPoints();
-
-			p = xy.getPoint(0); // )allPoints.get(0);
-			path.moveTo(p.x, p.y);
+			path.moveTo(xy.getX(0), xy.getY(0));
 
 			/*
 			 * for (int i = 1; i < allPoints.size(); ++i) { p = allPoints.get(i);
@@ -112,10 +109,8 @@ public class LinePlotLayer extends PathPlotLayer {
 			 * path.lineTo(p.x, p.y); }
 			 */
 
-			for (int i = 1; i < xy.getPointCount(); ++i) {
-				p = xy.getPoint(i);
-
-				path.lineTo(p.x, p.y);
+			for (int i = 1; i < n; ++i) {
+				path.lineTo(xy.getX(i), xy.getY(i));
 			}
 
 			return path;
@@ -16,7 +16,6 @@
 package org.jebtk.graphplot.figure;
 
 import java.awt.Graphics2D;
-import java.awt.Point;
 
 import org.jebtk.graphplot.figure.series.XYSeries;
 import org.jebtk.math.matrix.DataFrame;
@@ -70,8 +69,8 @@ public class LinesPlotLayer extends UniqueXYLayer {
 		g2.setStroke(series.getStyle().getLineStyle().getStroke());
 		g2.setColor(series.getStyle().getLineStyle().getColor());
 
-		for (Point p : xy) {
-			g2.drawLine(p.x, y1, p.x, p.y);
+		for (int i = 0; i < xy.getPointCount(); ++i) {
+			g2.drawLine(xy.getX(i), y1, xy.getX(i), xy.getY(i));
 		}
 	}
 
@@ -0,0 +1,181 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.graphplot.figure;
+
+import java.util.Arrays;
+
+/**
+ * M4 decimation of a series that has already been mapped to pixel
+ * coordinates. For each pixel column the first, last, min and max rows are
+ * kept, which is the smallest set of points that draws exactly the same line
+ * as the full data at that resolution. Works in a single O(n) pass over
+ * primitive arrays and does not allocate per row. The selected rows are
+ * returned in pixel column order and, within a column, in row order.
+ * 
+ * @author Antony Holmes
+ *
+ */
+public class M4Decimator {
+
+	/** The first row in each pixel column. */
+	private int[] mFirst = new int[0];
+
+	/** The last row in each pixel column. */
+	private int[] mLast = new int[0];
+
+	/** The row with the smallest pixel y in each column. */
+	private int[] mMin = new int[0];
+
+	/** The row with the largest pixel y in each column. */
+	private int[] mMax = new int[0];
+
+	/** The selected rows. */
+	private int[] mRows = new int[16];
+
+	/** The number of selected rows. */
+	private int mSize = 0;
+
+	/**
+	 * Decimate a series.
+	 *
+	 * @param pxs    the pixel x coordinates of each row.
+	 * @param pys    the pixel y coordinates of each row.
+	 * @param n      the number of rows.
+	 * @param w      the number of pixel columns. Rows whose pixel x lies
+	 *               outside [0, w) are ignored.
+	 * @param xs     the original x values. Only used if limits is not null.
+	 * @param limits if not null, rows whose x value is outside the limits are
+	 *               ignored.
+	 * @return the number of rows selected.
+	 */
+	public int decimate(int[] pxs, int[] pys, int n, int w, double[] xs, AxisLimits limits) {
+		if (mFirst.length < w) {
+			mFirst = new int[w];
+			mLast = new int[w];
+			mMin = new int[w];
+			mMax = new int[w];
+		}
+
+		Arrays.fill(mFirst, 0, w, -1);
+
+		for (int i = 0; i < n; ++i) {
+			int x = pxs[i];
+
+			if (x < 0 || x >= w) {
+				continue;
+			}
+
+			if (limits != null && !limits.withinBounds(xs[i])) {
+				continue;
+			}
+
+			if (mFirst[x] == -1) {
+				mFirst[x] = i;
+				mLast[x] = i;
+				mMin[x] = i;
+				mMax[x] = i;
+			} else {
+				mLast[x] = i;
+
+				int y = pys[i];
+
+				if (y < pys[mMin[x]]) {
+					mMin[x] = i;
+				}
+
+				if (y > pys[mMax[x]]) {
+					mMax[x] = i;
+				}
+			}
+		}
+
+		mSize = 0;
+
+		int[] rows = new int[4];
+
+		for (int x = 0; x < w; ++x) {
+			if (mFirst[x] == -1) {
+				continue;
+			}
+
+			rows[0] = mFirst[x];
+			rows[1] = mMin[x];
+			rows[2] = mMax[x];
+			rows[3] = mLast[x];
+
+			// Insertion sort of four rows so that the line visits them in the
+			// same order as the original data.
+			for (int i = 1; i < 4; ++i) {
+				int r = rows[i];
+				int j = i - 1;
+
+				while (j >= 0 && rows[j] > r) {
+					rows[j + 1] = rows[j];
+					--j;
+				}
+
+				rows[j + 1] = r;
+			}
+
+			int prev = -1;
+
+			for (int r : rows) {
+				// Skip rows that would draw the same pixel again
+				if (prev != -1 && (r == prev || pys[r] == pys[prev])) {
+					continue;
+				}
+
+				add(r);
+
+				prev = r;
+			}
+		}
+
+		return mSize;
+	}
+
+	/**
+	 * Adds a row.
+	 *
+	 * @param r the r
+	 */
+	private void add(int r) {
+		if (mSize == mRows.length) {
+			mRows = Arrays.copyOf(mRows, mRows.length * 2);
+		}
+
+		mRows[mSize++] = r;
+	}
+
+	/**
+	 * Returns the selected rows. Only the first {@code size()} elements are
+	 * valid.
+	 *
+	 * @return the rows
+	 */
+	public int[] getRows() {
+		return mRows;
+	}
+
+	/**
+	 * Returns the number of selected rows.
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		return mSize;
+	}
+}
@@ -16,21 +16,51 @@
 package org.jebtk.graphplot.figure;
 
 import java.awt.Point;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Arrays;
 
 /**
- * Can store x y positions in use. Useful for testing whether to draw a shape
- * over another one if they are occupying the same space.
+ * Records which cells of a grid over the plot area are in use. Useful for
+ * testing whether to draw a shape over another one if they are occupying the
+ * same space. Occupancy is held as a bitmap, one bit per cell, so testing and
+ * marking a cell is a couple of array operations. Points outside the grid are
+ * never considered occupied.
+ *
+ * Shapes can also be tracked by their footprint, a square centered on a
+ * pixel. Only the cells that lie entirely within a footprint are marked, and
+ * a footprint is only reported as covered if every cell it touches is
+ * marked, so a shape is never considered hidden unless earlier shapes cover
+ * all of it.
  *
  * @author Antony Holmes
  */
 public class Occupied2d {
 
+	/** The width of the grid in cells. */
+	private final int mW;
+
+	/** The height of the grid in cells. */
+	private final int mH;
+
+	/** The size of a cell in pixels. */
+	private final int mCellSize;
+
+	/** The occupied cells, row by row. */
+	private final long[] mBits;
+
 	/**
-	 * The member occupied.
+	 * Instantiates a new occupied 2d.
+	 *
+	 * @param w        the width of the area in pixels.
+	 * @param h        the height of the area in pixels.
+	 * @param cellSize the size of a cell in pixels.
 	 */
-	private Set<Point> mOccupied = new HashSet<Point>();
+	public Occupied2d(int w, int h, int cellSize) {
+		mCellSize = Math.max(1, cellSize);
+		mW = Math.max(1, (w + mCellSize) / mCellSize);
+		mH = Math.max(1, (h + mCellSize) / mCellSize);
+
+		mBits = new long[(mW * mH + 63) >>> 6];
+	}
 
 	/**
 	 * Adds the.
@@ -38,7 +68,34 @@ public class Occupied2d {
 	 * @param p the p
 	 */
 	public void add(Point p) {
-		mOccupied.add(p);
+		add(p.x, p.y);
+	}
+
+	/**
+	 * Mark the cell containing a pixel as occupied.
+	 *
+	 * @param x the x
+	 * @param y the y
+	 * @return true if the cell was not already occupied, or the pixel is
+	 *         outside the grid.
+	 */
+	public boolean add(int x, int y) {
+		int i = index(x, y);
+
+		if (i == -1) {
+			return true;
+		}
+
+		long bit = 1L << i;
+		int word = i >>> 6;
+
+		if ((mBits[word] & bit) != 0) {
+			return false;
+		}
+
+		mBits[word] |= bit;
+
+		return true;
 	}
 
 	/**
@@ -48,6 +105,166 @@ public class Occupied2d {
 	 * @return true, if is occupied
 	 */
 	public boolean isOccupied(Point p) {
-		return mOccupied.contains(p);
+		return isOccupied(p.x, p.y);
+	}
+
+	/**
+	 * Checks if the cell containing a pixel is occupied.
+	 *
+	 * @param x the x
+	 * @param y the y
+	 * @return true, if is occupied
+	 */
+	public boolean isOccupied(int x, int y) {
+		int i = index(x, y);
+
+		return i != -1 && (mBits[i >>> 6] & (1L << i)) != 0;
+	}
+
+	/**
+	 * Mark the footprint of a shape as occupied unless it is already entirely
+	 * covered.
+	 *
+	 * @param x    the x of the center of the shape.
+	 * @param y    the y of the center of the shape.
+	 * @param size the width and height of the footprint in pixels.
+	 * @return true if the footprint was not already covered, i.e. the shape
+	 *         should be drawn.
+	 */
+	public boolean addFootprint(int x, int y, int size) {
+		int x1 = x - size / 2;
+		int y1 = y - size / 2;
+		int x2 = x1 + Math.max(1, size);
+		int y2 = y1 + Math.max(1, size);
+
+		if (isCovered(x1, y1, x2, y2)) {
+			return false;
+		}
+
+		// Mark the cells entirely inside the footprint
+		int cx1 = Math.max(0, Math.floorDiv(x1 + mCellSize - 1, mCellSize));
+		int cy1 = Math.max(0, Math.floorDiv(y1 + mCellSize - 1, mCellSize));
+		int cx2 = Math.min(mW, Math.floorDiv(x2, mCellSize));
+		int cy2 = Math.min(mH, Math.floorDiv(y2, mCellSize));
+
+		for (int cy = cy1; cy < cy2; ++cy) {
+			for (int cx = cx1; cx < cx2; ++cx) {
+				int i = cy * mW + cx;
+
+				mBits[i >>> 6] |= 1L << i;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns true if every cell touched by the pixels [x1, x2) x [y1, y2) is
+	 * occupied. Areas that extend outside the grid are never covered.
+	 *
+	 * @param x1 the x1
+	 * @param y1 the y1
+	 * @param x2 the x2 (exclusive)
+	 * @param y2 the y2 (exclusive)
+	 * @return true, if is covered
+	 */
+	private boolean isCovered(int x1, int y1, int x2, int y2) {
+		if (x1 < 0 || y1 < 0) {
+			return false;
+		}
+
+		int cx2 = (x2 - 1) / mCellSize;
+		int cy2 = (y2 - 1) / mCellSize;
+
+		if (cx2 >= mW || cy2 >= mH) {
+			return false;
+		}
+
+		for (int cy = y1 / mCellSize; cy <= cy2; ++cy) {
+			for (int cx = x1 / mCellSize; cx <= cx2; ++cx) {
+				int i = cy * mW + cx;
+
+				if ((mBits[i >>> 6] & (1L << i)) == 0) {
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Copy the points of a buffer whose footprints are not yet covered into
+	 * another buffer, marking their footprints as it goes.
+	 *
+	 * @param points the points
+	 * @param size   the size of the footprint of each point.
+	 * @param out    receives the points that are kept.
+	 * @return out
+	 */
+	public PlotPointBuffer cull(PlotPointBuffer points, int size, PlotPointBuffer out) {
+		int[] xs = points.getXs();
+		int[] ys = points.getYs();
+		int n = points.size();
+
+		for (int i = 0; i < n; ++i) {
+			if (addFootprint(xs[i], ys[i], size)) {
+				out.add(xs[i], ys[i]);
+			}
+		}
+
+		return out;
+	}
+
+	/**
+	 * Copy the points of a buffer whose cells are not yet occupied into
+	 * another buffer, marking them as occupied as it goes. Only the first point
+	 * in each cell is kept.
+	 *
+	 * @param points the points
+	 * @param out    receives the points that are kept.
+	 * @return out
+	 */
+	public PlotPointBuffer cull(PlotPointBuffer points, PlotPointBuffer out) {
+		int[] xs = points.getXs();
+		int[] ys = points.getYs();
+		int n = points.size();
+
+		for (int i = 0; i < n; ++i) {
+			if (add(xs[i], ys[i])) {
+				out.add(xs[i], ys[i]);
+			}
+		}
+
+		return out;
+	}
+
+	/**
+	 * Remove all occupied cells.
+	 */
+	public void clear() {
+		Arrays.fill(mBits, 0);
+	}
+
+	/**
+	 * Returns the cell index of a pixel or -1 if it is outside the grid.
+	 *
+	 * @param x the x
+	 * @param y the y
+	 * @return the index
+	 */
+	private int index(int x, int y) {
+		if (x < 0 || y < 0) {
+			return -1;
+		}
+
+		x /= mCellSize;
+		y /= mCellSize;
+
+		if (x >= mW || y >= mH) {
+			return -1;
+		}
+
+		return y * mW + x;
 	}
 }
@@ -16,7 +16,6 @@
 package org.jebtk.graphplot.figure;
 
 import java.awt.Graphics2D;
-import java.awt.Point;
 import java.awt.geom.GeneralPath;
 
 import org.jebtk.core.KeyValuePair;
@@ -37,6 +36,18 @@ public abstract class PathPlotLayer extends UniqueXYLayer {
 	 */
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * A point budget that keeps smoothing and vector output cheap whilst
+	 * preserving the shape of the curve at typical plot widths.
+	 */
+	public static final int DEFAULT_POINT_BUDGET = 1000;
+
+	/**
+	 * The maximum number of points used to build the path, or 0 to use every
+	 * unique point.
+	 */
+	private int mPointBudget = 0;
+
 	/**
 	 * The member path.
 	 */
@@ -63,6 +74,36 @@ public abstract class PathPlotLayer extends UniqueXYLayer {
 		super(series, zeroEnds);
 	}
 
+	/**
+	 * Limit the number of points used to build the path. If the series has
+	 * more unique points than this, they are reduced with
+	 * Largest-Triangle-Three-Buckets before the path is created. Markers are
+	 * still drawn at every unique point.
+	 *
+	 * @param budget the maximum number of points, or 0 for no limit. Values
+	 *               between 1 and 2 are raised to 3, the smallest budget
+	 *               that can keep both ends and a point in between.
+	 */
+	public void setPointBudget(int budget) {
+		budget = budget > 0 ? Math.max(3, budget) : 0;
+
+		if (budget != mPointBudget) {
+			mPointBudget = budget;
+			mPath = null;
+
+			fireChanged();
+		}
+	}
+
+	/**
+	 * Gets the point budget.
+	 *
+	 * @return the point budget or 0 if there is no limit.
+	 */
+	public int getPointBudget() {
+		return mPointBudget;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -94,9 +135,8 @@ public abstract class PathPlotLayer extends UniqueXYLayer {
 		// Plot points if necessary
 
 		if (series.getMarker().getVisible()) {
-			for (Point p : xy) {
-				series.getMarker().plot(g2, series.getMarkerStyle(), p);
-			}
+			series.getMarker().plot(g2, context, series.getMarkerStyle(),
+					cullMarkers(axes, series.getMarker(), xy.getUniqueX()));
 		}
 	}
 
@@ -129,7 +169,10 @@ public abstract class PathPlotLayer extends UniqueXYLayer {
 	private void updatePath(Figure figure, SubFigure subFigure, Axes axes, Plot plot, DataFrame m, XYSeries series,
 			UniqueXY xy) {
 		if (mPath == null || !mPath.getKey().equals(xy)) {
-			mPath = new KeyValuePair<UniqueXY, GeneralPath>(xy, getPath(figure, subFigure, axes, plot, m, series, xy));
+			UniqueXY pathXY = mPointBudget > 0 ? xy.downsample(mPointBudget) : xy;
+
+			mPath = new KeyValuePair<UniqueXY, GeneralPath>(xy,
+					getPath(figure, subFigure, axes, plot, m, series, pathXY));
 		}
 	}
 
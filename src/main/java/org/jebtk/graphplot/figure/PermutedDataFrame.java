@@ -0,0 +1,331 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.graphplot.figure;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+import org.jebtk.math.cluster.Cluster;
+import org.jebtk.math.matrix.DataFrame;
+
+/**
+ * A read only view of a matrix with its rows and columns permuted, for
+ * example into the leaf order of a clustering. Nothing is copied; row i and
+ * column j of the view are row {@code getRowIndex(i)} and column
+ * {@code getColumnIndex(j)} of the matrix.
+ *
+ * Views are cached by the identity of the matrix and the clusters, and the
+ * leaf order of each cluster tree is cached by the identity of its root, so
+ * the heat map, label, group and tree layers of a clustered plot share one
+ * ordering which is computed once per clustering. The orders returned are
+ * shared and must not be modified. Both caches only hold weak references so
+ * they do not keep matrices or cluster trees that are no longer plotted
+ * alive.
+ *
+ * @author Antony Holmes
+ *
+ */
+public class PermutedDataFrame {
+
+	/**
+	 * The number of views and orders to keep.
+	 */
+	private static final int CACHE_SIZE = 16;
+
+	/**
+	 * Most recently used first. Views are held weakly since each holds its
+	 * matrix; they stay cached for as long as a layer uses them.
+	 */
+	private static final List<WeakReference<PermutedDataFrame>> CACHE = new ArrayList<WeakReference<PermutedDataFrame>>(
+			CACHE_SIZE);
+
+	/**
+	 * The leaf order of recently used cluster trees, most recently used
+	 * first.
+	 */
+	private static final List<LeafOrder> ORDERS = new ArrayList<LeafOrder>(CACHE_SIZE);
+
+	/**
+	 * The leaf order of a cluster tree.
+	 */
+	private static class LeafOrder {
+		private final WeakReference<Cluster> mRoot;
+		private final int[] mOrder;
+
+		public LeafOrder(Cluster root, int[] order) {
+			mRoot = new WeakReference<Cluster>(root);
+			mOrder = order;
+		}
+	}
+
+	/** The matrix. */
+	private final DataFrame mM;
+
+	/** The row and column clusters the view was made from, or null. */
+	private final Cluster mRowCluster;
+	private final Cluster mColumnCluster;
+
+	/** The matrix row of each view row, or null for the matrix order. */
+	private final int[] mRowOrder;
+
+	/**
+	 * The matrix column of each view column, or null for the matrix order.
+	 */
+	private final int[] mColumnOrder;
+
+	/** The size of the matrix when the view was made. */
+	private final int mRows;
+	private final int mCols;
+
+	/**
+	 * Create a view of a matrix.
+	 *
+	 * @param m           the m
+	 * @param rowOrder    the matrix row of each view row, or null.
+	 * @param columnOrder the matrix column of each view column, or null.
+	 */
+	public PermutedDataFrame(DataFrame m, int[] rowOrder, int[] columnOrder) {
+		this(m, null, null, rowOrder, columnOrder);
+	}
+
+	/**
+	 * Instantiates a new permuted data frame.
+	 *
+	 * @param m             the m
+	 * @param rowCluster    the row cluster
+	 * @param columnCluster the column cluster
+	 * @param rowOrder      the row order
+	 * @param columnOrder   the column order
+	 */
+	private PermutedDataFrame(DataFrame m, Cluster rowCluster, Cluster columnCluster, int[] rowOrder,
+			int[] columnOrder) {
+		mM = m;
+		mRowCluster = rowCluster;
+		mColumnCluster = columnCluster;
+		mRows = m.getRows();
+		mCols = m.getCols();
+
+		// An order that does not cover the matrix, such as a clustering of a
+		// different matrix, is ignored
+		mRowOrder = rowOrder != null && rowOrder.length == mRows ? rowOrder : null;
+		mColumnOrder = columnOrder != null && columnOrder.length == mCols ? columnOrder : null;
+	}
+
+	/**
+	 * Returns the underlying matrix.
+	 *
+	 * @return the matrix
+	 */
+	public DataFrame getMatrix() {
+		return mM;
+	}
+
+	public int getRows() {
+		return mRows;
+	}
+
+	public int getCols() {
+		return mCols;
+	}
+
+	/**
+	 * Returns the value of a cell of the view.
+	 *
+	 * @param i the view row
+	 * @param j the view column
+	 * @return the value
+	 */
+	public double getValue(int i, int j) {
+		return mM.getValue(getRowIndex(i), getColumnIndex(j));
+	}
+
+	/**
+	 * Returns the matrix row shown in a view row.
+	 *
+	 * @param i the view row
+	 * @return the matrix row
+	 */
+	public int getRowIndex(int i) {
+		return mRowOrder != null ? mRowOrder[i] : i;
+	}
+
+	/**
+	 * Returns the matrix column shown in a view column.
+	 *
+	 * @param j the view column
+	 * @return the matrix column
+	 */
+	public int getColumnIndex(int j) {
+		return mColumnOrder != null ? mColumnOrder[j] : j;
+	}
+
+	public String getRowName(int i) {
+		return mM.getRowName(getRowIndex(i));
+	}
+
+	public String getColumnName(int j) {
+		return mM.getColumnName(getColumnIndex(j));
+	}
+
+	/**
+	 * Returns the matrix row of each view row, or null if the rows are in
+	 * matrix order.
+	 *
+	 * @return the row order
+	 */
+	public int[] getRowOrder() {
+		return mRowOrder;
+	}
+
+	/**
+	 * Returns the matrix column of each view column, or null if the columns
+	 * are in matrix order.
+	 *
+	 * @return the column order
+	 */
+	public int[] getColumnOrder() {
+		return mColumnOrder;
+	}
+
+	/**
+	 * Returns a view of a matrix with its rows and columns in the leaf order
+	 * of clusterings, creating it if necessary.
+	 *
+	 * @param m             the m
+	 * @param rowCluster    the root of the row clustering or null to keep the
+	 *                      matrix order.
+	 * @param columnCluster the root of the column clustering or null to keep
+	 *                      the matrix order.
+	 * @return the view
+	 */
+	public static PermutedDataFrame get(DataFrame m, Cluster rowCluster, Cluster columnCluster) {
+		synchronized (CACHE) {
+			Iterator<WeakReference<PermutedDataFrame>> iter = CACHE.iterator();
+
+			while (iter.hasNext()) {
+				WeakReference<PermutedDataFrame> ref = iter.next();
+
+				PermutedDataFrame v = ref.get();
+
+				if (v == null) {
+					// No longer used by any layer
+					iter.remove();
+					continue;
+				}
+
+				if (v.mM == m && v.mRowCluster == rowCluster && v.mColumnCluster == columnCluster
+						&& v.mRows == m.getRows() && v.mCols == m.getCols()) {
+					// Move to front
+					iter.remove();
+					CACHE.add(0, ref);
+					return v;
+				}
+			}
+
+			PermutedDataFrame ret = new PermutedDataFrame(m, rowCluster, columnCluster, getOrder(rowCluster),
+					getOrder(columnCluster));
+
+			CACHE.add(0, new WeakReference<PermutedDataFrame>(ret));
+
+			if (CACHE.size() > CACHE_SIZE) {
+				CACHE.remove(CACHE.size() - 1);
+			}
+
+			return ret;
+		}
+	}
+
+	/**
+	 * Returns the ids of the leaves of a cluster tree in the order they
+	 * appear in the tree, i.e. the matrix index shown at each position.
+	 *
+	 * @param root the root cluster.
+	 * @return the order, or null if the root is null.
+	 */
+	public static int[] getOrder(Cluster root) {
+		if (root == null) {
+			return null;
+		}
+
+		synchronized (ORDERS) {
+			Iterator<LeafOrder> iter = ORDERS.iterator();
+
+			while (iter.hasNext()) {
+				LeafOrder o = iter.next();
+
+				Cluster r = o.mRoot.get();
+
+				if (r == null) {
+					iter.remove();
+					continue;
+				}
+
+				if (r == root) {
+					iter.remove();
+					ORDERS.add(0, o);
+					return o.mOrder;
+				}
+			}
+
+			LeafOrder ret = new LeafOrder(root, leaves(root));
+
+			ORDERS.add(0, ret);
+
+			if (ORDERS.size() > CACHE_SIZE) {
+				ORDERS.remove(ORDERS.size() - 1);
+			}
+
+			return ret.mOrder;
+		}
+	}
+
+	/**
+	 * Walk a cluster tree and return the ids of its leaves in order.
+	 *
+	 * @param root the root
+	 * @return the leaves
+	 */
+	private static int[] leaves(Cluster root) {
+		List<Integer> ids = new ArrayList<Integer>();
+
+		Deque<Cluster> stack = new ArrayDeque<Cluster>();
+
+		stack.push(root);
+
+		while (!stack.isEmpty()) {
+			Cluster cluster = stack.pop();
+
+			if (cluster.isParent()) {
+				stack.push(cluster.getChild2());
+				stack.push(cluster.getChild1());
+			} else {
+				ids.add(cluster.getId());
+			}
+		}
+
+		int[] ret = new int[ids.size()];
+
+		for (int i = 0; i < ret.length; ++i) {
+			ret[i] = ids.get(i);
+		}
+
+		return ret;
+	}
+}
@@ -17,7 +17,6 @@ package org.jebtk.graphplot.figure;
 
 import java.awt.Graphics2D;
 import java.awt.geom.Arc2D;
-import java.util.List;
 
 import org.jebtk.core.Mathematics;
 import org.jebtk.core.text.Formatter;
@@ -25,7 +24,6 @@ import org.jebtk.graphplot.figure.series.XYSeries;
 import org.jebtk.graphplot.figure.series.XYSeriesGroup;
 import org.jebtk.math.matrix.DataFrame;
 import org.jebtk.math.matrix.DoubleMatrix;
-import org.jebtk.math.matrix.MatrixGroup;
 import org.jebtk.modern.graphics.DrawingContext;
 
 /**
@@ -93,9 +91,9 @@ public class PieChartLayer extends PlotLayer {
 		int a = 0;
 
 		for (XYSeries series : sc) {
-			List<Integer> columns = MatrixGroup.findColumnIndices(m, series);
+			int[] columns = XYSeries.findColumns(m, series);
 
-			int c = columns.get(0);
+			int c = columns[0];
 
 			a = (int) Math.round(360 * m.getValue(0, c) / sum);
 
@@ -136,9 +134,9 @@ public class PieChartLayer extends PlotLayer {
 
 		for (XYSeries s1 : sc) {
 
-			List<Integer> columns = MatrixGroup.findColumnIndices(m, s1);
+			int[] columns = XYSeries.findColumns(m, s1);
 
-			int c = columns.get(0);
+			int c = columns[0];
 
 			per = m.getValue(0, c) / sum;
 
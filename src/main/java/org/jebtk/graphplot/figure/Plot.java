@@ -17,6 +17,9 @@ package org.jebtk.graphplot.figure;
 
 import java.awt.Dimension;
 import java.awt.Graphics2D;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 import org.jebtk.core.IntId;
@@ -25,6 +28,7 @@ import org.jebtk.core.Props;
 import org.jebtk.core.event.ChangeEvent;
 import org.jebtk.core.event.ChangeListener;
 import org.jebtk.graphplot.figure.heatmap.HeatMapFillPlotLayer;
+import org.jebtk.graphplot.figure.series.SeriesStats;
 import org.jebtk.graphplot.figure.series.XYSeries;
 import org.jebtk.graphplot.figure.series.XYSeriesGroup;
 import org.jebtk.graphplot.plotbox.PlotBox;
@@ -50,6 +54,11 @@ public class Plot extends PlotBoxGraph implements MatrixEventListener, ChangeLis
 	 */
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * The number of cell regions kept before the whole matrix is invalidated.
+	 */
+	public static final int MAX_INVALID_CELLS = 64;
+
 	/**
 	 * The constant NEXT_ID.
 	 */
@@ -75,6 +84,28 @@ public class Plot extends PlotBoxGraph implements MatrixEventListener, ChangeLis
 	 */
 	private DataFrame mM;
 
+	/**
+	 * The epoch of the last change to the matrix.
+	 */
+	private long mMatrixEpoch = nextEpoch();
+
+	/**
+	 * Regions of cells changed since the matrix epoch and not yet consumed,
+	 * oldest first.
+	 */
+	private final List<CellRegion> mInvalidCells = new ArrayList<CellRegion>();
+
+	/**
+	 * The epoch of the most recent cell region, or the matrix epoch if there
+	 * has been none since the matrix changed.
+	 */
+	private long mCellsEpoch = mMatrixEpoch;
+
+	/**
+	 * Regions up to and including this epoch have been consumed and removed.
+	 */
+	private long mConsumedEpoch = mMatrixEpoch;
+
 	/**
 	 * The member bar width.
 	 */
@@ -151,6 +182,114 @@ public class Plot extends PlotBoxGraph implements MatrixEventListener, ChangeLis
 		return mM;
 	}
 
+	/**
+	 * Returns the epoch of the last time the matrix was set or reported a
+	 * change. Layers caching values derived from the matrix can compare against
+	 * this rather than hashing the matrix.
+	 *
+	 * @return the matrix epoch
+	 */
+	public long getMatrixEpoch() {
+		return mMatrixEpoch;
+	}
+
+	/**
+	 * Report that the values of a block of cells have changed without
+	 * invalidating the whole matrix. Layers that support it redraw only the
+	 * affected pixels; other layers are unaffected since the matrix epoch does
+	 * not change. If too many regions accumulate between redraws the whole
+	 * matrix is invalidated instead.
+	 *
+	 * @param startRow the first row
+	 * @param endRow   the end row (exclusive)
+	 * @param startCol the first column
+	 * @param endCol   the end column (exclusive)
+	 */
+	public void invalidateCells(int startRow, int endRow, int startCol, int endCol) {
+		if (startRow >= endRow || startCol >= endCol) {
+			return;
+		}
+
+		if (mInvalidCells.size() == MAX_INVALID_CELLS) {
+			resetCells();
+		} else {
+			mCellsEpoch = nextEpoch();
+
+			mInvalidCells.add(new CellRegion(mCellsEpoch, startRow, endRow, startCol, endCol));
+		}
+
+		fireChanged();
+	}
+
+	/**
+	 * Returns the regions of cells changed after an epoch, oldest first. Only
+	 * regions reported since the matrix epoch are kept, so callers should
+	 * redraw everything if their matrix epoch is out of date. Returns null if
+	 * some of the regions after the epoch have already been consumed, in
+	 * which case the caller should also redraw everything.
+	 *
+	 * @param epoch the epoch
+	 * @return the invalid cells or null.
+	 */
+	public List<CellRegion> getInvalidCells(long epoch) {
+		if (epoch < mConsumedEpoch) {
+			return null;
+		}
+
+		List<CellRegion> ret = new ArrayList<CellRegion>();
+
+		for (CellRegion r : mInvalidCells) {
+			if (r.getEpoch() > epoch) {
+				ret.add(r);
+			}
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Returns the epoch of the most recent cell region, or the matrix epoch if
+	 * there is none.
+	 *
+	 * @return the cells epoch
+	 */
+	public long getCellsEpoch() {
+		return mCellsEpoch;
+	}
+
+	/**
+	 * Discard the cell regions up to and including an epoch once they have
+	 * been redrawn, so that the regions do not accumulate until the whole
+	 * matrix is invalidated.
+	 *
+	 * @param epoch the epoch of the last region applied.
+	 */
+	public void consumeCells(long epoch) {
+		if (epoch <= mConsumedEpoch) {
+			return;
+		}
+
+		Iterator<CellRegion> iter = mInvalidCells.iterator();
+
+		while (iter.hasNext()) {
+			if (iter.next().getEpoch() <= epoch) {
+				iter.remove();
+			}
+		}
+
+		mConsumedEpoch = epoch;
+	}
+
+	/**
+	 * Invalidate the whole matrix and forget any cell regions.
+	 */
+	private void resetCells() {
+		mMatrixEpoch = nextEpoch();
+		mCellsEpoch = mMatrixEpoch;
+		mConsumedEpoch = mMatrixEpoch;
+		mInvalidCells.clear();
+	}
+
 	/**
 	 * Sets the matrix.
 	 *
@@ -163,6 +302,8 @@ public class Plot extends PlotBoxGraph implements MatrixEventListener, ChangeLis
 
 			mM.addMatrixListener(this);
 
+			resetCells();
+
 			fireChanged();
 		}
 	}
@@ -361,6 +502,12 @@ public class Plot extends PlotBoxGraph implements MatrixEventListener, ChangeLis
 		case JOINED_SMOOTH:
 			plot.addChild(new SplineLinePlotLayer(series, false));
 			break;
+		case JOINED_SMOOTH_DOWNSAMPLED:
+			plot.addChild(downsample(new SplineLinePlotLayer(series, false)));
+			break;
+		case JOINED_DOWNSAMPLED:
+			plot.addChild(downsample(new LinePlotLayer(series)));
+			break;
 		case LINES:
 			plot.addChild(new LinesPlotLayer(series));
 			break;
@@ -397,6 +544,18 @@ public class Plot extends PlotBoxGraph implements MatrixEventListener, ChangeLis
 		}
 	}
 
+	/**
+	 * Limit a path layer to the default point budget.
+	 *
+	 * @param layer the layer
+	 * @return the layer
+	 */
+	private static PathPlotLayer downsample(PathPlotLayer layer) {
+		layer.setPointBudget(PathPlotLayer.DEFAULT_POINT_BUDGET);
+
+		return layer;
+	}
+
 	/*
 	 * @Override public void canvasChanged(ChangeEvent e) { fireCanvasChanged(); }
 	 * 
@@ -407,6 +566,8 @@ public class Plot extends PlotBoxGraph implements MatrixEventListener, ChangeLis
 
 	@Override
 	public void matrixChanged(ChangeEvent e) {
+		resetCells();
+
 		fireChanged();
 	}
 
@@ -424,6 +585,8 @@ public class Plot extends PlotBoxGraph implements MatrixEventListener, ChangeLis
 	public static double getXMax(Plot plot) {
 		double ret = Double.MIN_VALUE;
 
+		cacheStats(plot);
+
 		for (XYSeries g : plot.mColumnSeries) {
 			double m = XYSeries.getXMax(plot.getMatrix(), g);
 
@@ -444,6 +607,8 @@ public class Plot extends PlotBoxGraph implements MatrixEventListener, ChangeLis
 	public static double getY1Max(Plot plot) {
 		double ret = Double.MIN_VALUE;
 
+		cacheStats(plot);
+
 		for (XYSeries g : plot.mColumnSeries) {
 			if (plot.getAxesType() == AxesCombType.X_Y1) {
 				double m = XYSeries.getYMax(plot.getMatrix(), g);
@@ -466,6 +631,8 @@ public class Plot extends PlotBoxGraph implements MatrixEventListener, ChangeLis
 	public static double getY2Max(Plot plot) {
 		double ret = Double.MIN_VALUE;
 
+		cacheStats(plot);
+
 		for (XYSeries g : plot.mColumnSeries) {
 			if (plot.getAxesType() == AxesCombType.X_Y2) {
 				double m = XYSeries.getYMax(plot.getMatrix(), g);
@@ -488,6 +655,8 @@ public class Plot extends PlotBoxGraph implements MatrixEventListener, ChangeLis
 	public static double getXMin(Plot plot) {
 		double ret = Double.MAX_VALUE;
 
+		cacheStats(plot);
+
 		for (XYSeries g : plot.mColumnSeries) {
 			double m = XYSeries.getXMin(plot.getMatrix(), g);
 
@@ -508,6 +677,8 @@ public class Plot extends PlotBoxGraph implements MatrixEventListener, ChangeLis
 	public static double getY1Min(Plot plot) {
 		double ret = Double.MAX_VALUE;
 
+		cacheStats(plot);
+
 		for (XYSeries s : plot.mColumnSeries) {
 			if (plot.getAxesType() == AxesCombType.X_Y1) {
 				double m = XYSeries.getYMin(plot.getMatrix(), s);
@@ -530,6 +701,8 @@ public class Plot extends PlotBoxGraph implements MatrixEventListener, ChangeLis
 	public static double getY2Min(Plot plot) {
 		double ret = Double.MAX_VALUE;
 
+		cacheStats(plot);
+
 		for (XYSeries g : plot.mColumnSeries) {
 			if (plot.getAxesType() == AxesCombType.X_Y2) {
 				double m = XYSeries.getYMin(plot.getMatrix(), g);
@@ -543,6 +716,19 @@ public class Plot extends PlotBoxGraph implements MatrixEventListener, ChangeLis
 		return ret;
 	}
 
+	/**
+	 * Compute the statistics for every series in the plot in a single pass so
+	 * that the per series min/max lookups that follow are served from the
+	 * cache.
+	 *
+	 * @param plot the plot
+	 */
+	private static void cacheStats(Plot plot) {
+		if (plot.getMatrix() != null) {
+			SeriesStats.get(plot.getMatrix(), plot.mColumnSeries);
+		}
+	}
+
 	public static String createPlotId(int id) {
 		return createId(LayerType.PLOT, id);
 	}
@@ -20,7 +20,6 @@ import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 
 import org.jebtk.core.Props;
-import org.jebtk.core.text.TextUtils;
 import org.jebtk.math.matrix.DataFrame;
 import org.jebtk.modern.graphics.DrawingContext;
 import org.jebtk.modern.graphics.ImageUtils;
@@ -157,14 +156,18 @@ public abstract class PlotLayer extends Layer {
 			if (mBufferedImage == null || figure.invalidated() || subFigure.invalidated() || axes.invalidated()
 					|| plot.invalidated()) {
 				// The canvas need only be the size of the available display
-				mBufferedImage = ImageUtils.createImage(axes.getPreferredSize());
+				Dimension size = axes.getPreferredSize();
 
-				Graphics2D g2Temp = ImageUtils.createGraphics(mBufferedImage);
+				mBufferedImage = RasterCanvas.createImage(size.width, size.height);
 
-				try {
-					aaPlotLayer(g2Temp, context, figure, subFigure, axes, plot, m);
-				} finally {
-					g2Temp.dispose();
+				if (!rasterCanvasLayer(context, figure, subFigure, axes, plot, m)) {
+					Graphics2D g2Temp = ImageUtils.createGraphics(mBufferedImage);
+
+					try {
+						aaPlotLayer(g2Temp, context, figure, subFigure, axes, plot, m);
+					} finally {
+						g2Temp.dispose();
+					}
 				}
 			}
 
@@ -174,6 +177,34 @@ public abstract class PlotLayer extends Layer {
 		}
 	}
 
+	/**
+	 * Try to draw the layer into the raster mode image through a
+	 * {@code RasterCanvas}. Custom clips cannot be expressed on the canvas so
+	 * only the default rectangular clip is supported.
+	 *
+	 * @param context   the context
+	 * @param figure    the figure
+	 * @param subFigure the sub figure
+	 * @param axes      the axes
+	 * @param plot      the plot
+	 * @param m         the m
+	 * @return true if the layer was drawn.
+	 */
+	private boolean rasterCanvasLayer(DrawingContext context, Figure figure, SubFigure subFigure, Axes axes,
+			Plot plot, DataFrame m) {
+		if (mClipMode && mPlotClip != CLIP) {
+			return false;
+		}
+
+		RasterCanvas canvas = new RasterCanvas(mBufferedImage);
+
+		if (mClipMode) {
+			canvas.clip(0, 0, axes.getInternalSize().getW(), axes.getInternalSize().getH());
+		}
+
+		return rasterLayer(canvas, context, figure, subFigure, axes, plot, m);
+	}
+
 	public void clipPlotLayer(Graphics2D g2, DrawingContext context, Figure figure, SubFigure subFigure, Axes axes,
 			Plot plot, DataFrame m) {
 		if (mClipMode) {
@@ -205,15 +236,36 @@ public abstract class PlotLayer extends Layer {
 	}
 
 	/**
-	 * Gets the id.
+	 * Draw the layer by writing pixels directly into a raster canvas rather
+	 * than through a Graphics2D. This is only used in raster mode, where the
+	 * layer is cached as an image anyway. Layers that can draw themselves with
+	 * the canvas primitives should override this and return true. If false is
+	 * returned nothing must have been drawn, since the layer will then be
+	 * drawn with {@code plotLayer(...)} instead.
+	 *
+	 * @param canvas    the canvas
+	 * @param context   the context
+	 * @param figure    the figure
+	 * @param subFigure the sub figure
+	 * @param axes      the axes
+	 * @param plot      the plot
+	 * @param m         the m
+	 * @return true if the layer was drawn.
+	 */
+	public boolean rasterLayer(RasterCanvas canvas, DrawingContext context, Figure figure, SubFigure subFigure,
+			Axes axes, Plot plot, DataFrame m) {
+		return false;
+	}
+
+	/**
+	 * Returns an epoch that changes whenever the matrix of the plot or the
+	 * mapping between data and pixel coordinates changes.
 	 *
-	 * @param m    the m
 	 * @param axes the axes
-	 * @return the id
+	 * @param plot the plot
+	 * @return the epoch
 	 */
-	protected static String getId(DataFrame m, Axes axes) {
-		return TextUtils.join(TextUtils.COLON_DELIMITER, m.hashCode(), axes.getMargins(), axes.getPreferredSize(),
-				axes.getX1Axis().getLimits().getMin(), axes.getX1Axis().getLimits().getMax(),
-				axes.getY1Axis().getLimits().getMin(), axes.getY1Axis().getLimits().getMax());
+	protected static long getCacheEpoch(Axes axes, Plot plot) {
+		return Math.max(axes.getLayoutEpoch(), plot.getMatrixEpoch());
 	}
 }
@@ -0,0 +1,191 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.graphplot.figure;
+
+import java.awt.Point;
+import java.util.Arrays;
+
+/**
+ * Stores pixel coordinates as two parallel int arrays rather than as a list of
+ * Point objects. This avoids an object per datum when plotting large series.
+ * Buffers grow as needed and can be cleared and reused.
+ *
+ * @author Antony Holmes
+ *
+ */
+public class PlotPointBuffer {
+
+	/** The default capacity. */
+	private static final int DEFAULT_CAPACITY = 256;
+
+	/** The x coordinates. */
+	private int[] mX;
+
+	/** The y coordinates. */
+	private int[] mY;
+
+	/** The number of points in use. */
+	private int mSize = 0;
+
+	/**
+	 * Instantiates a new plot point buffer.
+	 */
+	public PlotPointBuffer() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Instantiates a new plot point buffer.
+	 *
+	 * @param capacity the initial capacity.
+	 */
+	public PlotPointBuffer(int capacity) {
+		capacity = Math.max(1, capacity);
+
+		mX = new int[capacity];
+		mY = new int[capacity];
+	}
+
+	/**
+	 * Adds a point.
+	 *
+	 * @param x the x
+	 * @param y the y
+	 */
+	public void add(int x, int y) {
+		ensureCapacity(mSize + 1);
+
+		mX[mSize] = x;
+		mY[mSize] = y;
+
+		++mSize;
+	}
+
+	/**
+	 * Replace the point at index i.
+	 *
+	 * @param i the i
+	 * @param x the x
+	 * @param y the y
+	 */
+	public void set(int i, int x, int y) {
+		mX[i] = x;
+		mY[i] = y;
+	}
+
+	/**
+	 * Gets the x coordinate of point i.
+	 *
+	 * @param i the i
+	 * @return the x
+	 */
+	public int getX(int i) {
+		return mX[i];
+	}
+
+	/**
+	 * Gets the y coordinate of point i.
+	 *
+	 * @param i the i
+	 * @return the y
+	 */
+	public int getY(int i) {
+		return mY[i];
+	}
+
+	/**
+	 * Returns a new Point for index i. Should only be used where a Point is
+	 * genuinely needed, e.g. for mouse interaction, and not in paint loops.
+	 *
+	 * @param i the i
+	 * @return the point
+	 */
+	public Point getPoint(int i) {
+		return new Point(mX[i], mY[i]);
+	}
+
+	/**
+	 * Returns the backing x array. Only the first {@code size()} elements are
+	 * valid.
+	 *
+	 * @return the x array
+	 */
+	public int[] getXs() {
+		return mX;
+	}
+
+	/**
+	 * Returns the backing y array. Only the first {@code size()} elements are
+	 * valid.
+	 *
+	 * @return the y array
+	 */
+	public int[] getYs() {
+		return mY;
+	}
+
+	/**
+	 * Returns the number of points in the buffer.
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		return mSize;
+	}
+
+	/**
+	 * Checks if the buffer is empty.
+	 *
+	 * @return true, if is empty
+	 */
+	public boolean isEmpty() {
+		return mSize == 0;
+	}
+
+	/**
+	 * Sets the number of points in use. The backing arrays are grown if necessary
+	 * so that callers can fill them directly, e.g. with
+	 * {@code Axes.toPlotX1Y1(double[], double[], int[], int[], int, int)}.
+	 *
+	 * @param size the new size
+	 */
+	public void setSize(int size) {
+		ensureCapacity(size);
+
+		mSize = size;
+	}
+
+	/**
+	 * Remove all points. The backing arrays are retained for reuse.
+	 */
+	public void clear() {
+		mSize = 0;
+	}
+
+	/**
+	 * Ensure the buffer can hold at least n points.
+	 *
+	 * @param n the n
+	 */
+	public void ensureCapacity(int n) {
+		if (n > mX.length) {
+			int capacity = Math.max(n, mX.length + (mX.length >> 1));
+
+			mX = Arrays.copyOf(mX, capacity);
+			mY = Arrays.copyOf(mY, capacity);
+		}
+	}
+}
@@ -60,6 +60,13 @@ public enum PlotStyle {
 
 	/** The joined smooth. */
 	JOINED_SMOOTH,
+
+	/** Joined, with the path limited to a fixed number of points. */
+	JOINED_DOWNSAMPLED,
+
+	/** Joined smooth, with the path limited to a fixed number of points. */
+	JOINED_SMOOTH_DOWNSAMPLED,
+
 	/** The filled trapezoid. */
 	FILLED_TRAPEZOID,
 
@@ -96,6 +103,10 @@ public enum PlotStyle {
 			return PlotStyle.FILLED_SMOOTH;
 		} else if (text.equals("joined_smooth")) {
 			return PlotStyle.JOINED_SMOOTH;
+		} else if (text.equals("joined_downsampled")) {
+			return PlotStyle.JOINED_DOWNSAMPLED;
+		} else if (text.equals("joined_smooth_downsampled")) {
+			return PlotStyle.JOINED_SMOOTH_DOWNSAMPLED;
 		} else if (text.equals("segments")) {
 			return PlotStyle.SEGMENTS;
 		} else if (text.equals("Heat Map")) {
@@ -0,0 +1,401 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.graphplot.figure;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Stroke;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * A minimal canvas that writes directly into the pixels of a
+ * {@code TYPE_INT_ARGB_PRE} image. It supports the handful of primitives that
+ * data layers need (spans, rectangles, one pixel wide lines and image blits)
+ * without the state changes and pipeline validation of a Graphics2D, which
+ * dominate when drawing hundreds of thousands of small primitives. Colors are
+ * premultiplied ARGB ints, see {@code toArgb(Color)}, and are composited with
+ * source over. There is no transform or anti-aliasing; everything is drawn
+ * in whole pixels and clipped to a rectangle.
+ *
+ * @author Antony Holmes
+ *
+ */
+public class RasterCanvas {
+
+	/** The pixels, row by row. */
+	private final int[] mPixels;
+
+	/** The image width. */
+	private final int mW;
+
+	/** The image height. */
+	private final int mH;
+
+	/** The clip, with exclusive upper bounds. */
+	private int mClipX1;
+	private int mClipY1;
+	private int mClipX2;
+	private int mClipY2;
+
+	/**
+	 * Instantiates a new raster canvas.
+	 *
+	 * @param image an image created by {@code createImage(int, int)}.
+	 */
+	public RasterCanvas(BufferedImage image) {
+		if (image.getType() != BufferedImage.TYPE_INT_ARGB_PRE) {
+			throw new IllegalArgumentException("image must be TYPE_INT_ARGB_PRE.");
+		}
+
+		mPixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		mW = image.getWidth();
+		mH = image.getHeight();
+
+		mClipX1 = 0;
+		mClipY1 = 0;
+		mClipX2 = mW;
+		mClipY2 = mH;
+	}
+
+	/**
+	 * Restrict drawing to the intersection of the current clip and a
+	 * rectangle.
+	 *
+	 * @param x the x
+	 * @param y the y
+	 * @param w the w
+	 * @param h the h
+	 */
+	public void clip(int x, int y, int w, int h) {
+		mClipX1 = Math.max(mClipX1, x);
+		mClipY1 = Math.max(mClipY1, y);
+		mClipX2 = Math.min(mClipX2, x + w);
+		mClipY2 = Math.min(mClipY2, y + h);
+	}
+
+	public int getWidth() {
+		return mW;
+	}
+
+	public int getHeight() {
+		return mH;
+	}
+
+	/**
+	 * Set every pixel to transparent.
+	 */
+	public void clear() {
+		Arrays.fill(mPixels, 0);
+	}
+
+	/**
+	 * Set a pixel.
+	 *
+	 * @param x    the x
+	 * @param y    the y
+	 * @param argb the premultiplied color
+	 */
+	public void setPixel(int x, int y, int argb) {
+		if (x >= mClipX1 && x < mClipX2 && y >= mClipY1 && y < mClipY2) {
+			blend(y * mW + x, argb);
+		}
+	}
+
+	/**
+	 * Draw a horizontal span of pixels.
+	 *
+	 * @param x1   the first x
+	 * @param x2   the last x (inclusive)
+	 * @param y    the y
+	 * @param argb the premultiplied color
+	 */
+	public void hspan(int x1, int x2, int y, int argb) {
+		if (y < mClipY1 || y >= mClipY2) {
+			return;
+		}
+
+		x1 = Math.max(x1, mClipX1);
+		x2 = Math.min(x2, mClipX2 - 1);
+
+		if (x1 > x2) {
+			return;
+		}
+
+		int offset = y * mW;
+
+		if ((argb >>> 24) == 0xFF) {
+			Arrays.fill(mPixels, offset + x1, offset + x2 + 1, argb);
+		} else {
+			for (int x = x1; x <= x2; ++x) {
+				blend(offset + x, argb);
+			}
+		}
+	}
+
+	/**
+	 * Draw a vertical span of pixels.
+	 *
+	 * @param x    the x
+	 * @param y1   the first y
+	 * @param y2   the last y (inclusive)
+	 * @param argb the premultiplied color
+	 */
+	public void vspan(int x, int y1, int y2, int argb) {
+		if (x < mClipX1 || x >= mClipX2) {
+			return;
+		}
+
+		y1 = Math.max(y1, mClipY1);
+		y2 = Math.min(y2, mClipY2 - 1);
+
+		for (int y = y1; y <= y2; ++y) {
+			blend(y * mW + x, argb);
+		}
+	}
+
+	/**
+	 * Fill a rectangle. Matches {@code Graphics.fillRect}, so covers w by h
+	 * pixels.
+	 *
+	 * @param x    the x
+	 * @param y    the y
+	 * @param w    the w
+	 * @param h    the h
+	 * @param argb the premultiplied color
+	 */
+	public void fillRect(int x, int y, int w, int h, int argb) {
+		int y2 = Math.min(y + h, mClipY2);
+
+		for (int i = Math.max(y, mClipY1); i < y2; ++i) {
+			hspan(x, x + w - 1, i, argb);
+		}
+	}
+
+	/**
+	 * Outline a rectangle with one pixel wide lines. Matches
+	 * {@code Graphics.drawRect}, so covers w + 1 by h + 1 pixels.
+	 *
+	 * @param x    the x
+	 * @param y    the y
+	 * @param w    the w
+	 * @param h    the h
+	 * @param argb the premultiplied color
+	 */
+	public void drawRect(int x, int y, int w, int h, int argb) {
+		if (w < 0 || h < 0) {
+			return;
+		}
+
+		hspan(x, x + w, y, argb);
+
+		if (h > 0) {
+			hspan(x, x + w, y + h, argb);
+		}
+
+		if (h > 1) {
+			vspan(x, y + 1, y + h - 1, argb);
+
+			if (w > 0) {
+				vspan(x + w, y + 1, y + h - 1, argb);
+			}
+		}
+	}
+
+	/**
+	 * Draw a one pixel wide line with Bresenham's algorithm.
+	 *
+	 * @param x1   the x 1
+	 * @param y1   the y 1
+	 * @param x2   the x 2
+	 * @param y2   the y 2
+	 * @param argb the premultiplied color
+	 */
+	public void drawLine(int x1, int y1, int x2, int y2, int argb) {
+		if (y1 == y2) {
+			hspan(Math.min(x1, x2), Math.max(x1, x2), y1, argb);
+			return;
+		}
+
+		if (x1 == x2) {
+			vspan(x1, Math.min(y1, y2), Math.max(y1, y2), argb);
+			return;
+		}
+
+		int dx = Math.abs(x2 - x1);
+		int dy = -Math.abs(y2 - y1);
+		int sx = x1 < x2 ? 1 : -1;
+		int sy = y1 < y2 ? 1 : -1;
+		int err = dx + dy;
+
+		while (true) {
+			setPixel(x1, y1, argb);
+
+			if (x1 == x2 && y1 == y2) {
+				break;
+			}
+
+			int e2 = 2 * err;
+
+			if (e2 >= dy) {
+				err += dy;
+				x1 += sx;
+			}
+
+			if (e2 <= dx) {
+				err += dx;
+				y1 += sy;
+			}
+		}
+	}
+
+	/**
+	 * Composite an image with its top left corner at (x, y).
+	 *
+	 * @param image a {@code TYPE_INT_ARGB_PRE} image.
+	 * @param x     the x
+	 * @param y     the y
+	 */
+	public void drawImage(BufferedImage image, int x, int y) {
+		int[] src = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		int w = image.getWidth();
+
+		int sx1 = Math.max(0, mClipX1 - x);
+		int sy1 = Math.max(0, mClipY1 - y);
+		int sx2 = Math.min(w, mClipX2 - x);
+		int sy2 = Math.min(image.getHeight(), mClipY2 - y);
+
+		for (int sy = sy1; sy < sy2; ++sy) {
+			int s = sy * w;
+			int d = (y + sy) * mW + x;
+
+			for (int sx = sx1; sx < sx2; ++sx) {
+				int argb = src[s + sx];
+
+				if (argb != 0) {
+					blend(d + sx, argb);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Composite an image scaled up by a whole number, with its top left corner
+	 * at (x, y). Each source pixel becomes a scale by scale block.
+	 *
+	 * @param image a {@code TYPE_INT_ARGB_PRE} image.
+	 * @param x     the x
+	 * @param y     the y
+	 * @param scale the scale
+	 */
+	public void drawImage(BufferedImage image, int x, int y, int scale) {
+		if (scale == 1) {
+			drawImage(image, x, y);
+			return;
+		}
+
+		int[] src = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		int w = image.getWidth();
+		int h = image.getHeight();
+
+		for (int sy = 0; sy < h; ++sy) {
+			int s = sy * w;
+
+			for (int sx = 0; sx < w; ++sx) {
+				int argb = src[s + sx];
+
+				if (argb != 0) {
+					fillRect(x + sx * scale, y + sy * scale, scale, scale, argb);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Source over composite of a premultiplied color onto a pixel.
+	 *
+	 * @param i    the pixel index
+	 * @param argb the premultiplied color
+	 */
+	private void blend(int i, int argb) {
+		int a = argb >>> 24;
+
+		if (a == 0xFF) {
+			mPixels[i] = argb;
+		} else if (a > 0) {
+			int d = mPixels[i];
+			int f = 255 - a;
+
+			int da = ((d >>> 24) * f + 127) / 255;
+			int dr = (((d >> 16) & 0xFF) * f + 127) / 255;
+			int dg = (((d >> 8) & 0xFF) * f + 127) / 255;
+			int db = ((d & 0xFF) * f + 127) / 255;
+
+			mPixels[i] = ((a + da) << 24) | ((((argb >> 16) & 0xFF) + dr) << 16) | ((((argb >> 8) & 0xFF) + dg) << 8)
+					| ((argb & 0xFF) + db);
+		}
+	}
+
+	/**
+	 * Convert a color to the premultiplied ARGB used by the canvas.
+	 *
+	 * @param color the color
+	 * @return the premultiplied ARGB
+	 */
+	public static int toArgb(Color color) {
+		int a = color.getAlpha();
+
+		if (a == 0xFF) {
+			return color.getRGB();
+		}
+
+		int r = (color.getRed() * a + 127) / 255;
+		int g = (color.getGreen() * a + 127) / 255;
+		int b = (color.getBlue() * a + 127) / 255;
+
+		return (a << 24) | (r << 16) | (g << 8) | b;
+	}
+
+	/**
+	 * Returns true if a stroke draws the same as the one pixel wide solid
+	 * lines of the canvas. Wider, dashed or custom strokes must be drawn with
+	 * a graphics context instead.
+	 *
+	 * @param stroke the stroke
+	 * @return true if the canvas can draw the stroke.
+	 */
+	public static boolean isPlainStroke(Stroke stroke) {
+		if (!(stroke instanceof BasicStroke)) {
+			return false;
+		}
+
+		BasicStroke s = (BasicStroke) stroke;
+
+		return s.getLineWidth() <= 1 && s.getDashArray() == null;
+	}
+
+	/**
+	 * Create an image that a raster canvas can draw into.
+	 *
+	 * @param w the w
+	 * @param h the h
+	 * @return the buffered image
+	 */
+	public static BufferedImage createImage(int w, int h) {
+		return new BufferedImage(Math.max(1, w), Math.max(1, h), BufferedImage.TYPE_INT_ARGB_PRE);
+	}
+}
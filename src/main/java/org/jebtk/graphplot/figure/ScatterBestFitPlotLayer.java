@@ -31,7 +31,6 @@ import org.jebtk.graphplot.figure.series.Marker;
 import org.jebtk.graphplot.figure.series.XYSeries;
 import org.jebtk.math.Linspace;
 import org.jebtk.math.matrix.DataFrame;
-import org.jebtk.math.matrix.MatrixGroup;
 import org.jebtk.modern.graphics.DrawingContext;
 
 /**
@@ -172,12 +171,12 @@ public class ScatterBestFitPlotLayer extends PlotSeriesLayer {
 		DoublePos2D p1;
 		DoublePos2D p2;
 
-		List<Integer> columns = MatrixGroup.findColumnIndices(m, series);
+		int[] columns = XYSeries.findColumns(m, series);
 
 		WeightedObservedPoints obs = new WeightedObservedPoints();
 
 		for (int i = 0; i < n; ++i) {
-			p1 = new DoublePos2D(m.getValue(i, columns.get(0)), m.getValue(i, columns.get(1)));
+			p1 = new DoublePos2D(m.getValue(i, columns[0]), m.getValue(i, columns[1]));
 
 			knotsX[i] = p1.getX();
 			knotsY[i] = p1.getY();
@@ -185,7 +184,7 @@ public class ScatterBestFitPlotLayer extends PlotSeriesLayer {
 			obs.add(p1.getX(), p1.getY());
 		}
 
-		System.err.println("C" + columns + " " + Arrays.toString(knotsX) + " " + axes.getX1Axis().getLimits().getMin()
+		System.err.println("C" + Arrays.toString(columns) + " " + Arrays.toString(knotsX) + " " + axes.getX1Axis().getLimits().getMin()
 				+ " " + axes.getX1Axis().getLimits().getMax());
 
 		//
@@ -16,14 +16,19 @@
 package org.jebtk.graphplot.figure;
 
 import java.awt.Graphics2D;
-import java.awt.Point;
+import java.awt.image.BufferedImage;
 
+import org.jebtk.graphplot.figure.series.MarkerSprite;
 import org.jebtk.graphplot.figure.series.XYSeries;
 import org.jebtk.math.matrix.DataFrame;
 import org.jebtk.modern.graphics.DrawingContext;
+import org.jebtk.modern.graphics.colormap.ColorMap;
 
 /**
- * Plot each series point as a shape.
+ * Plot each series point as a shape. Above a threshold number of points the
+ * markers mostly overlap, so the series is instead drawn as a density image
+ * of how many points fall in each cell of a grid, coloured with the plot
+ * color map.
  *
  * @author Antony Holmes
  */
@@ -34,13 +39,89 @@ public class ScatterPlotLayer extends UniqueXYLayer {
 	 */
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * Series with more points than this are drawn as a density image.
+	 */
+	public static final int DEFAULT_DENSITY_THRESHOLD = 200000;
+
+	/**
+	 * The default size of a density cell in pixels.
+	 */
+	public static final int DEFAULT_BIN_SIZE = 2;
+
+	/** The density threshold. */
+	private int mDensityThreshold;
+
+	/** The bin size. */
+	private int mBinSize = DEFAULT_BIN_SIZE;
+
+	/** The cached density image. */
+	private BufferedImage mDensity = null;
+
+	/** The points the density image was created from. */
+	private UniqueXY mDensityXY = null;
+
+	/** The color map the density image was created with. */
+	private ColorMap mDensityColorMap = null;
+
 	/**
 	 * Instantiates a new scatter plot layer.
 	 *
 	 * @param series the series
 	 */
 	public ScatterPlotLayer(String series) {
+		this(series, DEFAULT_DENSITY_THRESHOLD);
+	}
+
+	/**
+	 * Instantiates a new scatter plot layer.
+	 *
+	 * @param series           the series
+	 * @param densityThreshold series with more points than this are drawn as
+	 *                         a density image. Use 0 to always draw the
+	 *                         density or Integer.MAX_VALUE to never draw it.
+	 */
+	public ScatterPlotLayer(String series, int densityThreshold) {
 		super(series);
+
+		mDensityThreshold = densityThreshold;
+	}
+
+	/**
+	 * Sets the density threshold.
+	 *
+	 * @param threshold the new density threshold
+	 */
+	public void setDensityThreshold(int threshold) {
+		if (threshold != mDensityThreshold) {
+			mDensityThreshold = threshold;
+
+			fireChanged();
+		}
+	}
+
+	public int getDensityThreshold() {
+		return mDensityThreshold;
+	}
+
+	/**
+	 * Sets the size of the density cells in pixels.
+	 *
+	 * @param binSize the new bin size
+	 */
+	public void setBinSize(int binSize) {
+		binSize = Math.max(1, binSize);
+
+		if (binSize != mBinSize) {
+			mBinSize = binSize;
+			mDensity = null;
+
+			fireChanged();
+		}
+	}
+
+	public int getBinSize() {
+		return mBinSize;
 	}
 
 	@Override
@@ -63,11 +144,113 @@ public class ScatterPlotLayer extends UniqueXYLayer {
 	@Override
 	public void plotLayer(Graphics2D g2, DrawingContext context, Figure figure, SubFigure subFigure, Axes axes,
 			Plot plot, DataFrame m, XYSeries series, UniqueXY xy) {
-		// If the marker is not visible, no point continuing
-		if (series.getMarker().getVisible()) {
-			for (Point p : xy) {
-				series.getMarker().plot(g2, series.getMarkerStyle(), p);
+		if (m.getRows() > mDensityThreshold) {
+			plotDensity(g2, axes, plot, m, series, xy);
+		} else if (series.getMarker().getVisible()) {
+			// If the marker is not visible, no point continuing
+			series.getMarker().plot(g2, context, series.getMarkerStyle(),
+					cullMarkers(axes, series.getMarker(), xy.getUniqueX()));
+		}
+	}
+
+	@Override
+	public boolean rasterLayer(RasterCanvas canvas, DrawingContext context, Figure figure, SubFigure subFigure,
+			Axes axes, Plot plot, DataFrame m, XYSeries series, UniqueXY xy) {
+		if (m.getRows() > mDensityThreshold) {
+			canvas.drawImage(getDensity(axes, plot, m, series, xy), 0, 0, mBinSize);
+		} else if (series.getMarker().getVisible()) {
+			MarkerSprite.get(series.getMarker(), series.getMarkerStyle()).plot(canvas,
+					cullMarkers(axes, series.getMarker(), xy.getUniqueX()));
+		}
+
+		return true;
+	}
+
+	/**
+	 * Draw the points as a density image. The image is only rebuilt when the
+	 * points or the color map change.
+	 *
+	 * @param g2     the g2
+	 * @param axes   the axes
+	 * @param plot   the plot
+	 * @param m      the m
+	 * @param series the series
+	 * @param xy     the xy
+	 */
+	private void plotDensity(Graphics2D g2, Axes axes, Plot plot, DataFrame m, XYSeries series, UniqueXY xy) {
+		BufferedImage density = getDensity(axes, plot, m, series, xy);
+
+		g2.drawImage(density, 0, 0, density.getWidth() * mBinSize, density.getHeight() * mBinSize, null);
+	}
+
+	/**
+	 * Returns the density image with one pixel per cell, creating it if
+	 * necessary.
+	 *
+	 * @param axes   the axes
+	 * @param plot   the plot
+	 * @param m      the m
+	 * @param series the series
+	 * @param xy     the points drawn, which change whenever the rows or axes
+	 *               do.
+	 * @return the density image
+	 */
+	private BufferedImage getDensity(Axes axes, Plot plot, DataFrame m, XYSeries series, UniqueXY xy) {
+		ColorMap colorMap = plot.getColorMap();
+
+		if (mDensity == null || xy != mDensityXY || !colorMap.equals(mDensityColorMap)) {
+			DensityGrid grid = new DensityGrid(getDensityPoints(axes, m, series), axes.getInternalSize().getW(),
+					axes.getInternalSize().getH(), mBinSize);
+
+			mDensity = grid.toImage(colorMap);
+			mDensityXY = xy;
+			mDensityColorMap = colorMap;
+		}
+
+		return mDensity;
+	}
+
+	/**
+	 * Returns the rows of a series within the axis limits in pixel
+	 * coordinates. The rows are always read from the matrix, since the points
+	 * drawn may be samples, and rows outside the limits are dropped before
+	 * they are transformed because the transform clamps them to the edges of
+	 * the plot.
+	 *
+	 * @param axes   the axes
+	 * @param m      the m
+	 * @param series the series
+	 * @return the points
+	 */
+	private static PlotPointBuffer getDensityPoints(Axes axes, DataFrame m, XYSeries series) {
+		int[] columns = XYSeries.findColumns(m, series);
+
+		if (columns.length < 2) {
+			return new PlotPointBuffer(1);
+		}
+
+		AxisLimits limits = axes.getX1Axis().getLimits();
+
+		int[] rows = series.getVisibleRows(m, limits.getMin(), limits.getMax());
+
+		double[] xs = XYSeries.toArray(m, columns[0], rows[0], rows[1]);
+		double[] ys = XYSeries.toArray(m, columns[1], rows[0], rows[1]);
+
+		int n = 0;
+
+		for (int i = 0; i < xs.length; ++i) {
+			if (axes.getX1Axis().withinBounds(xs[i]) && axes.getY1Axis().withinBounds(ys[i])) {
+				xs[n] = xs[i];
+				ys[n] = ys[i];
+				++n;
 			}
 		}
+
+		PlotPointBuffer ret = new PlotPointBuffer(Math.max(1, n));
+		ret.setSize(n);
+
+		axes.toPlotX1Y1(xs, ys, ret.getXs(), ret.getYs(), 0, n);
+
+		return ret;
 	}
 }
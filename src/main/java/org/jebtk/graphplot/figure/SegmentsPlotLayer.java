@@ -17,6 +17,7 @@ package org.jebtk.graphplot.figure;
 
 import java.awt.Graphics2D;
 
+import org.jebtk.graphplot.figure.series.SortedXIndex;
 import org.jebtk.graphplot.figure.series.XYSeries;
 import org.jebtk.math.matrix.DataFrame;
 import org.jebtk.modern.graphics.DrawingContext;
@@ -67,14 +68,24 @@ public class SegmentsPlotLayer extends PlotSeriesLayer {
 		g2.setColor(series.getStyle().getLineStyle().getColor());
 		g2.setStroke(series.getStyle().getLineStyle().getStroke());
 
-		for (int i = 0; i < m.getRows(); ++i) {
-			int x1 = axes.toPlotX1(m.getValue(i, 0));
-			int y1 = axes.toPlotY1(m.getValue(i, 1));
-			// Ensure line is at least 1 pixel wide
-			int x2 = Math.max(x1 + 1, axes.toPlotX1(m.getValue(i, 2)));
-			int y2 = axes.toPlotY1(m.getValue(i, 3));
+		AxisLimits limits = axes.getX1Axis().getLimits();
+
+		// Segments that start after the max or end before the min cannot be
+		// seen. If the start and end columns are sorted only the rows in
+		// between need to be transformed.
+		int hi = SortedXIndex.get(m, 0).upperBound(limits.getMax());
+		int lo = Math.min(hi, SortedXIndex.get(m, 2).lowerBound(limits.getMin()));
+
+		int n = hi - lo;
 
-			g2.drawLine(x1, y1, x2, y2);
+		int[] x1 = axes.toPlotX1(XYSeries.toArray(m, 0, lo, hi));
+		int[] y1 = axes.toPlotY1(XYSeries.toArray(m, 1, lo, hi));
+		int[] x2 = axes.toPlotX1(XYSeries.toArray(m, 2, lo, hi));
+		int[] y2 = axes.toPlotY1(XYSeries.toArray(m, 3, lo, hi));
+
+		for (int i = 0; i < n; ++i) {
+			// Ensure line is at least 1 pixel wide
+			g2.drawLine(x1[i], y1[i], Math.max(x1[i] + 1, x2[i]), y2[i]);
 		}
 	}
 }
\ No newline at end of file
@@ -16,7 +16,6 @@
 package org.jebtk.graphplot.figure;
 
 import java.awt.Graphics2D;
-import java.awt.Point;
 import java.awt.geom.GeneralPath;
 
 import org.jebtk.graphplot.figure.series.XYSeries;
@@ -72,8 +71,6 @@ public class SplineFillPlotLayer extends SplinePlotLayer {
 			return null;
 		}
 
-		Point p;
-
 		// grab (x,y) coordinates of the control points
 		double[] knotsX = new double[n];
 		double[] knotsY = new double[n];
@@ -83,11 +80,9 @@ public class SplineFillPlotLayer extends SplinePlotLayer {
 		// knotsY[0] = Math.min(axes.toPlotY1(0),
 		// axes.toPlotY1(axes.getY1Axis().getLimits().getMin()));
 
-		for (int i = 0; i < xy.getPointCount(); ++i) {
-			p = xy.getPoint(i);
-
-			knotsX[i] = p.x;
-			knotsY[i] = p.y;
+		for (int i = 0; i < n; ++i) {
+			knotsX[i] = xy.getX(i);
+			knotsY[i] = xy.getY(i);
 		}
 
 		// zero end point
@@ -108,7 +103,6 @@ public class SplineFillPlotLayer extends SplinePlotLayer {
 		int p2Index = n - 1;
 
 		for (int i = 0; i < n - 1; ++i) {
-			p = xy.getPoint(i + 1);
 			path.curveTo(px[i], py[i], px[p2Index + i], py[p2Index + i], knotsX[i + 1], knotsY[i + 1]);
 		}
 
@@ -51,6 +51,9 @@ public class SplineLinePlotLayer extends SplinePlotLayer {
 	 */
 	public SplineLinePlotLayer(String series, boolean zeroEnds) {
 		super(series, zeroEnds);
+
+		// Keep the min/max envelope so spikes are not lost
+		setDecimation(Decimation.M4);
 	}
 
 	@Override
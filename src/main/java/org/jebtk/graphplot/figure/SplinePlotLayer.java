@@ -15,7 +15,6 @@
  */
 package org.jebtk.graphplot.figure;
 
-import java.awt.Point;
 import java.awt.geom.GeneralPath;
 
 import org.jebtk.graphplot.figure.series.XYSeries;
@@ -67,19 +66,13 @@ public abstract class SplinePlotLayer extends PathPlotLayer {
 			return null;
 		}
 
-		Point p;
-
 		// grab (x,y) coordinates of the control points
 		double[] knotsX = new double[n];
 		double[] knotsY = new double[n];
 
-		p = xy.getPoint(0);
-
 		for (int i = 0; i < n; ++i) {
-			p = xy.getPoint(i);
-
-			knotsX[i] = p.x;
-			knotsY[i] = p.y;
+			knotsX[i] = xy.getX(i);
+			knotsY[i] = xy.getY(i);
 		}
 
 		// computes control points p1 and p2 for x and y direction
@@ -16,42 +16,56 @@
 package org.jebtk.graphplot.figure;
 
 import java.awt.Point;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
-import java.util.TreeMap;
+import java.util.NoSuchElementException;
 
 import org.jebtk.core.geom.DoublePos2D;
+import org.jebtk.graphplot.figure.series.XYPyramid;
 import org.jebtk.graphplot.figure.series.XYSeries;
 import org.jebtk.math.matrix.DataFrame;
-import org.jebtk.math.matrix.MatrixGroup;
 
 /**
- * Stores the max y for a given x so that you can find the unique values of x
- * and the max y at that x for plotting purposes. Should only be used for
- * painting coordinates and not graph plot points.
+ * Reduces a series to the points needed to draw it at the resolution of the
+ * axes. By default this is the max y for a given x so that you can find the
+ * unique values of x and the max y at that x for plotting purposes. Line
+ * layers use M4 decimation instead, which keeps the min/max envelope. Should
+ * only be used for painting coordinates and not graph plot points. Coordinates
+ * are held in {@code PlotPointBuffer}s rather than as Point objects.
  * 
  * @author Antony Holmes
  *
  */
 public class UniqueXY implements Iterable<Point>, Comparable<UniqueXY> {
-	// private Map<Integer, Integer> mPointMap =
-	// new TreeMap<Integer, Integer>();
+
+	/** The unique points, sorted by x. */
+	private PlotPointBuffer mPoints = new PlotPointBuffer(1);
+
+	/** The original x value of each unique point. */
+	private double[] mOriginalX = new double[0];
+
+	/** The original y value of each unique point. */
+	private double[] mOriginalY = new double[0];
+
+	/** The matrix row each unique point was taken from. */
+	private int[] mRows = new int[0];
 
 	/**
-	 * The member point original map.
+	 * The points that were reduced, i.e. the rows within the x limits or the
+	 * samples of them, in row order.
 	 */
-	private Map<Integer, DoublePos2D> mPointOriginalMap = new TreeMap<Integer, DoublePos2D>();
+	private PlotPointBuffer mVisiblePoints = new PlotPointBuffer(1);
 
 	/**
-	 * The member list.
+	 * One point for every row of the series, in row order. Created on first
+	 * use since only the visible points are needed for drawing.
 	 */
-	private List<Point> mList = Collections.emptyList();
+	private PlotPointBuffer mAllPoints = null;
 
-	/** The m all list. */
-	private List<Point> mAllList;
+	/** The matrix, x and y columns and axes used to create all points. */
+	private DataFrame mM;
+	private int mXC;
+	private int mYC;
+	private Axes mAxes;
 
 	/**
 	 * Instantiates a new unique xy.
@@ -74,74 +88,282 @@ public class UniqueXY implements Iterable<Point>, Comparable<UniqueXY> {
 	 * @param zeroEnds the zero ends
 	 */
 	public UniqueXY(DataFrame m, XYSeries series, Axes axes, boolean zeroEnds) {
+		this(m, series, axes, zeroEnds, Decimation.MAX_Y);
+	}
 
-		Map<Integer, Point> pointMap = new TreeMap<Integer, Point>();
+	/**
+	 * Instantiates a new unique xy.
+	 *
+	 * @param m          the m
+	 * @param series     the series
+	 * @param axes       the axes
+	 * @param zeroEnds   the zero ends
+	 * @param decimation how to reduce the points in each pixel column.
+	 */
+	public UniqueXY(DataFrame m, XYSeries series, Axes axes, boolean zeroEnds, Decimation decimation) {
 
-		List<Integer> columns = MatrixGroup.findColumnIndices(m, series);
+		int[] columns = XYSeries.findColumns(m, series);
 
-		if (columns.size() > 0) {
-			mAllList = new ArrayList<Point>(m.getRows());
+		if (columns.length > 0) {
+			setSeries(m, columns, axes);
 
-			for (int i = 0; i < m.getRows(); ++i) {
-				DoublePos2D point = new DoublePos2D(m.getValue(i, columns.get(0)), m.getValue(i, columns.get(1)));
+			// If x is sorted only the rows within the axis limits need to be
+			// transformed
+			AxisLimits limits = axes.getX1Axis().getLimits();
 
-				Point p = axes.toPlotX1Y1(point);
+			int[] rows = series.getVisibleRows(m, limits.getMin(), limits.getMax());
 
-				// if (i < 10) {
-				// System.err.println("unique " + point + " " + p);
-				// }
+			init(XYSeries.toArray(m, columns[0], rows[0], rows[1]), XYSeries.toArray(m, columns[1], rows[0], rows[1]),
+					null, rows[1] - rows[0], rows[0], axes, zeroEnds, decimation);
 
-				mAllList.add(p);
+			if (rows[1] - rows[0] == m.getRows()) {
+				// Every row is visible
+				mAllPoints = mVisiblePoints;
+			}
+		}
+	}
 
-				if (axes.getX1Axis().withinBounds(point.getX())) {
-					if (pointMap.containsKey(p.x)) {
-						if (point.getY() >= 0) {
-							// For points above zero keep the min y we find
-							// (since pixel y coordinates are inverted)
-							if (p.y < pointMap.get(p.x).y) {
-								pointMap.put(p.x, p);
+	/**
+	 * Instantiates a new unique xy from points sampled from a series, for
+	 * example by an {@code XYPyramid}.
+	 *
+	 * @param m          the m
+	 * @param series     the series
+	 * @param samples    the samples
+	 * @param axes       the axes
+	 * @param zeroEnds   the zero ends
+	 * @param decimation how to reduce the points in each pixel column.
+	 */
+	public UniqueXY(DataFrame m, XYSeries series, XYPyramid.Samples samples, Axes axes, boolean zeroEnds,
+			Decimation decimation) {
+		int[] columns = XYSeries.findColumns(m, series);
 
-								mPointOriginalMap.put(p.x, point);
-							}
-						} else {
-							if (p.y > pointMap.get(p.x).y) {
-								pointMap.put(p.x, p);
+		if (columns.length > 0) {
+			setSeries(m, columns, axes);
+		}
 
-								mPointOriginalMap.put(p.x, point);
-							}
-						}
-					} else {
-						pointMap.put(p.x, p);
+		init(samples.getXs(), samples.getYs(), samples.getRows(), samples.size(), 0, axes, zeroEnds, decimation);
+	}
 
-						mPointOriginalMap.put(p.x, point);
-					}
+	/**
+	 * Instantiates a new empty unique xy.
+	 */
+	private UniqueXY() {
+		// Do nothing
+	}
+
+	/**
+	 * Returns at most budget of the unique points chosen with
+	 * Largest-Triangle-Three-Buckets so that the shape of the curve is
+	 * preserved. If there are already few enough points this object is
+	 * returned.
+	 *
+	 * @param budget the maximum number of points.
+	 * @return the unique xy
+	 */
+	public UniqueXY downsample(int budget) {
+		int n = mPoints.size();
+
+		if (n <= budget) {
+			return this;
+		}
+
+		int[] rows = new int[budget];
+
+		int size = LTTBDownsampler.downsample(mPoints.getXs(), mPoints.getYs(), n, budget, rows);
+
+		UniqueXY ret = new UniqueXY();
+
+		ret.mVisiblePoints = mVisiblePoints;
+		ret.mAllPoints = mAllPoints;
+		ret.mM = mM;
+		ret.mXC = mXC;
+		ret.mYC = mYC;
+		ret.mAxes = mAxes;
+		ret.mPoints = new PlotPointBuffer(size);
+		ret.mOriginalX = new double[size];
+		ret.mOriginalY = new double[size];
+		ret.mRows = new int[size];
+
+		for (int i = 0; i < size; ++i) {
+			int r = rows[i];
+
+			ret.mOriginalX[i] = mOriginalX[r];
+			ret.mOriginalY[i] = mOriginalY[r];
+			ret.mRows[i] = mRows[r];
+
+			ret.mPoints.add(mPoints.getX(r), mPoints.getY(r));
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Remember the series so that all of its points can be created on demand.
+	 *
+	 * @param m       the m
+	 * @param columns the x and y columns.
+	 * @param axes    the axes
+	 */
+	private void setSeries(DataFrame m, int[] columns, Axes axes) {
+		mM = m;
+		mXC = columns[0];
+		mYC = columns[1];
+		mAxes = axes;
+	}
+
+	/**
+	 * Map the first n values to pixel coordinates and reduce them.
+	 *
+	 * @param xs         the xs
+	 * @param ys         the ys
+	 * @param rows       the matrix row of each value, or null if the values
+	 *                   are consecutive rows starting at firstRow.
+	 * @param n          the n
+	 * @param firstRow   the matrix row of the first value.
+	 * @param axes       the axes
+	 * @param zeroEnds   the zero ends
+	 * @param decimation the decimation
+	 */
+	private void init(double[] xs, double[] ys, int[] rows, int n, int firstRow, Axes axes, boolean zeroEnds,
+			Decimation decimation) {
+		mVisiblePoints = new PlotPointBuffer(n);
+		mVisiblePoints.setSize(n);
+
+		int[] pxs = mVisiblePoints.getXs();
+		int[] pys = mVisiblePoints.getYs();
+
+		axes.toPlotX1Y1(xs, ys, pxs, pys, 0, n);
+
+		// Pixel x coordinates are bounded by the axes width so we can
+		// index pixel columns directly.
+		int w = axes.getInternalSize().getW() + 1;
+
+		switch (decimation) {
+		case M4:
+			m4(xs, ys, pxs, pys, n, w, axes);
+			break;
+		default:
+			maxY(xs, ys, pxs, pys, n, w, axes);
+			break;
+		}
+
+		int unique = mPoints.size();
+
+		// The reductions record the index of each point in the values, which
+		// is mapped to the matrix row
+		for (int i = 0; i < unique; ++i) {
+			mRows[i] = rows != null ? rows[mRows[i]] : firstRow + mRows[i];
+		}
+
+		if (zeroEnds && unique > 0) {
+			int z = axes.toPlotY1(0);
+
+			// Force the starting and end coordinates to have a y of zero
+			mPoints.set(0, mPoints.getX(0), z);
+			mPoints.set(unique - 1, mPoints.getX(unique - 1), z);
+
+			mOriginalY[0] = 0;
+			mOriginalY[unique - 1] = 0;
+		}
+	}
+
+	/**
+	 * Keep the point furthest from zero in each pixel column.
+	 *
+	 * @param xs   the xs
+	 * @param ys   the ys
+	 * @param pxs  the pxs
+	 * @param pys  the pys
+	 * @param n    the n
+	 * @param w    the w
+	 * @param axes the axes
+	 */
+	private void maxY(double[] xs, double[] ys, int[] pxs, int[] pys, int n, int w, Axes axes) {
+		int[] colRow = new int[w];
+
+		for (int i = 0; i < w; ++i) {
+			colRow[i] = -1;
+		}
+
+		int unique = 0;
+
+		for (int i = 0; i < n; ++i) {
+			int x = pxs[i];
+
+			if (x < 0 || x >= w || !axes.getX1Axis().withinBounds(xs[i])) {
+				continue;
+			}
+
+			int r = colRow[x];
+
+			if (r == -1) {
+				colRow[x] = i;
+				++unique;
+			} else if (ys[i] >= 0) {
+				// For points above zero keep the min y we find
+				// (since pixel y coordinates are inverted)
+				if (pys[i] < pys[r]) {
+					colRow[x] = i;
+				}
+			} else {
+				if (pys[i] > pys[r]) {
+					colRow[x] = i;
 				}
 			}
+		}
+
+		// Create a sorted list of the points based on the x coordinate
 
-			mAllList = Collections.unmodifiableList(mAllList);
+		mPoints = new PlotPointBuffer(unique);
+		mOriginalX = new double[unique];
+		mOriginalY = new double[unique];
+		mRows = new int[unique];
 
-			// Create a sorted list of the points based on the x coordinate
+		for (int x = 0; x < w; ++x) {
+			int r = colRow[x];
 
-			mList = new ArrayList<Point>(pointMap.size());
+			if (r != -1) {
+				mOriginalX[mPoints.size()] = xs[r];
+				mOriginalY[mPoints.size()] = ys[r];
+				mRows[mPoints.size()] = r;
 
-			for (int x : pointMap.keySet()) {
-				mList.add(pointMap.get(x));
+				mPoints.add(x, pys[r]);
 			}
+		}
+	}
 
-			if (zeroEnds && mList.size() > 0) {
-				int z = axes.toPlotY1(0);
+	/**
+	 * Keep the first, last, min and max points of each pixel column.
+	 *
+	 * @param xs   the xs
+	 * @param ys   the ys
+	 * @param pxs  the pxs
+	 * @param pys  the pys
+	 * @param n    the n
+	 * @param w    the w
+	 * @param axes the axes
+	 */
+	private void m4(double[] xs, double[] ys, int[] pxs, int[] pys, int n, int w, Axes axes) {
+		M4Decimator decimator = new M4Decimator();
 
-				// Force the starting and end coordinates to have a y of zero
-				mList.set(0, new Point(mList.get(0).x, z));
-				mList.set(mList.size() - 1, new Point(mList.get(mList.size() - 1).x, z));
+		int size = decimator.decimate(pxs, pys, n, w, xs, axes.getX1Axis().getLimits());
 
-				mPointOriginalMap.put(mList.get(0).x, new DoublePos2D(mPointOriginalMap.get(mList.get(0).x).getX(), 0));
+		int[] rows = decimator.getRows();
 
-				mPointOriginalMap.put(mList.get(mList.size() - 1).x,
-						new DoublePos2D(mPointOriginalMap.get(mList.get(mList.size() - 1).x).getX(), 0));
-			}
+		mPoints = new PlotPointBuffer(size);
+		mOriginalX = new double[size];
+		mOriginalY = new double[size];
+		mRows = new int[size];
+
+		for (int i = 0; i < size; ++i) {
+			int r = rows[i];
 
-			mList = Collections.unmodifiableList(mList);
+			mOriginalX[i] = xs[r];
+			mOriginalY[i] = ys[r];
+			mRows[i] = r;
+
+			mPoints.add(pxs[r], pys[r]);
 		}
 	}
 
@@ -152,7 +374,23 @@ public class UniqueXY implements Iterable<Point>, Comparable<UniqueXY> {
 	 */
 	@Override
 	public Iterator<Point> iterator() {
-		return mList.iterator();
+		return new Iterator<Point>() {
+			private int mI = 0;
+
+			@Override
+			public boolean hasNext() {
+				return mI < mPoints.size();
+			}
+
+			@Override
+			public Point next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+
+				return mPoints.getPoint(mI++);
+			}
+		};
 	}
 
 	/**
@@ -160,8 +398,8 @@ public class UniqueXY implements Iterable<Point>, Comparable<UniqueXY> {
 	 *
 	 * @return the unique x
 	 */
-	public List<Point> getUniqueX() {
-		return mList;
+	public PlotPointBuffer getUniqueX() {
+		return mPoints;
 	}
 
 	/**
@@ -171,7 +409,27 @@ public class UniqueXY implements Iterable<Point>, Comparable<UniqueXY> {
 	 * @return the point
 	 */
 	public Point getPoint(int i) {
-		return mList.get(i);
+		return mPoints.getPoint(i);
+	}
+
+	/**
+	 * Gets the x pixel coordinate of unique point i.
+	 *
+	 * @param i the i
+	 * @return the x
+	 */
+	public int getX(int i) {
+		return mPoints.getX(i);
+	}
+
+	/**
+	 * Gets the y pixel coordinate of unique point i.
+	 *
+	 * @param i the i
+	 * @return the y
+	 */
+	public int getY(int i) {
+		return mPoints.getY(i);
 	}
 
 	/**
@@ -180,36 +438,146 @@ public class UniqueXY implements Iterable<Point>, Comparable<UniqueXY> {
 	 * @return the point count
 	 */
 	public int getPointCount() {
-		return mList.size();
+		return mPoints.size();
 	}
 
 	/**
-	 * Gets the all points.
+	 * Gets the all points, one for every row of the series in row order. The
+	 * points are created on first use, so layers that only draw what is
+	 * within the axes should use {@code getVisiblePoints()}.
 	 *
 	 * @return the all points
 	 */
-	public List<Point> getAllPoints() {
-		return mAllList;
+	public synchronized PlotPointBuffer getAllPoints() {
+		if (mAllPoints == null) {
+			if (mM != null) {
+				int n = mM.getRows();
+
+				mAllPoints = new PlotPointBuffer(n);
+				mAllPoints.setSize(n);
+
+				mAxes.toPlotX1Y1(XYSeries.toArray(mM, mXC), XYSeries.toArray(mM, mYC), mAllPoints.getXs(),
+						mAllPoints.getYs(), 0, n);
+			} else {
+				mAllPoints = new PlotPointBuffer(1);
+			}
+		}
+
+		return mAllPoints;
 	}
 
 	/**
-	 * Original.
+	 * Gets the points that were reduced, in row order. These are the rows
+	 * within the x limits when x is sorted, or the samples taken from a
+	 * pyramid, so points outside the axes may be missing.
+	 *
+	 * @return the visible points
+	 */
+	public PlotPointBuffer getVisiblePoints() {
+		return mVisiblePoints;
+	}
+
+	/**
+	 * Gets the matrix row unique point i was taken from.
+	 *
+	 * @param i the i
+	 * @return the row
+	 */
+	public int getRow(int i) {
+		return mRows[i];
+	}
+
+	/**
+	 * Returns the original values of the unique point at a pixel coordinate.
+	 * Decimation can keep several points in a pixel column, so the one
+	 * closest to p in y is used.
 	 *
 	 * @param p the p
 	 * @return the point2 d double
 	 */
 	public DoublePos2D original(Point p) {
-		return original(p.x);
+		int i = indexOf(p.x, p.y);
+
+		if (i == -1) {
+			return null;
+		}
+
+		return new DoublePos2D(mOriginalX[i], mOriginalY[i]);
 	}
 
 	/**
-	 * Original.
+	 * Returns the original values of the first unique point in a pixel
+	 * column.
 	 *
 	 * @param x the x
 	 * @return the point2 d double
 	 */
 	public DoublePos2D original(int x) {
-		return mPointOriginalMap.get(x);
+		int i = indexOf(x);
+
+		if (i == -1) {
+			return null;
+		}
+
+		return new DoublePos2D(mOriginalX[i], mOriginalY[i]);
+	}
+
+	/**
+	 * Returns the index of the unique point at a pixel coordinate, choosing
+	 * the point closest in y among those in the pixel column, or -1 if there
+	 * is no point in the column. The index can be used with
+	 * {@code getRow(int)} to find the matrix row.
+	 *
+	 * @param x the x
+	 * @param y the y
+	 * @return the index
+	 */
+	public int indexOf(int x, int y) {
+		int i = indexOf(x);
+
+		if (i == -1) {
+			return -1;
+		}
+
+		int[] xs = mPoints.getXs();
+		int[] ys = mPoints.getYs();
+
+		int ret = i;
+
+		for (++i; i < mPoints.size() && xs[i] == x; ++i) {
+			if (Math.abs(ys[i] - y) < Math.abs(ys[ret] - y)) {
+				ret = i;
+			}
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Returns the index of the first unique point with pixel coordinate x or
+	 * -1 if there is no point in that pixel column.
+	 *
+	 * @param x the x
+	 * @return the index
+	 */
+	private int indexOf(int x) {
+		int[] xs = mPoints.getXs();
+
+		int si = 0;
+		int se = mPoints.size();
+
+		// Lower bound, since M4 can keep several points with the same x
+		while (si < se) {
+			int i = (si + se) >>> 1;
+
+			if (xs[i] < x) {
+				si = i + 1;
+			} else {
+				se = i;
+			}
+		}
+
+		return si < mPoints.size() && xs[si] == x ? si : -1;
 	}
 
 	/**
@@ -230,37 +598,34 @@ public class UniqueXY implements Iterable<Point>, Comparable<UniqueXY> {
 	 * @return the point
 	 */
 	public Point closestX(int x) {
-		if (mList.size() == 0) {
+		if (mPoints.size() == 0) {
 			return null;
 		}
 
+		int[] xs = mPoints.getXs();
+
 		int si = 0;
-		int se = mList.size() - 1;
+		int se = mPoints.size() - 1;
 
 		while (se - si > 1) {
 			int i = (si + se) / 2;
 
-			Point p = mList.get(i);
-
-			if (x > p.x) {
+			if (x > xs[i]) {
 				si = i;
-			} else if (x < p.x) {
+			} else if (x < xs[i]) {
 				se = i;
 			} else {
-				return p;
+				return mPoints.getPoint(i);
 			}
 		}
 
-		Point x1 = mList.get(si);
-		Point x2 = mList.get(se);
-
-		int d1 = Math.abs(x - x1.x);
-		int d2 = Math.abs(x - x2.x);
+		int d1 = Math.abs(x - xs[si]);
+		int d2 = Math.abs(x - xs[se]);
 
 		if (d1 <= d2) {
-			return x1;
+			return mPoints.getPoint(si);
 		} else {
-			return x2;
+			return mPoints.getPoint(se);
 		}
 
 	}
@@ -17,7 +17,7 @@ package org.jebtk.graphplot.figure;
 
 import java.awt.Graphics2D;
 
-import org.jebtk.core.KeyValuePair;
+import org.jebtk.graphplot.figure.series.XYPyramid;
 import org.jebtk.graphplot.figure.series.XYSeries;
 import org.jebtk.math.matrix.DataFrame;
 import org.jebtk.modern.graphics.DrawingContext;
@@ -39,10 +39,25 @@ public abstract class UniqueXYLayer extends PlotSeriesLayer {
 	 */
 	private boolean mZeroEnds;
 
+	/**
+	 * How the series is reduced to pixel coordinates.
+	 */
+	private Decimation mDecimation = Decimation.MAX_Y;
+
 	/**
 	 * The member unique.
 	 */
-	private KeyValuePair<String, UniqueXY> mUnique = null;
+	private UniqueXY mUnique = null;
+
+	/**
+	 * The matrix the unique points were generated from.
+	 */
+	private DataFrame mUniqueM = null;
+
+	/**
+	 * The epoch of the axes and plot when the unique points were generated.
+	 */
+	private long mUniqueEpoch = NO_EPOCH;
 
 	/**
 	 * Instantiates a new unique xy layer.
@@ -72,6 +87,29 @@ public abstract class UniqueXYLayer extends PlotSeriesLayer {
 		return "Unique XY Layer";
 	}
 
+	/**
+	 * Set how the series is reduced to pixel coordinates before it is drawn.
+	 *
+	 * @param decimation the decimation
+	 */
+	public void setDecimation(Decimation decimation) {
+		if (decimation != mDecimation) {
+			mDecimation = decimation;
+			mUnique = null;
+
+			fireChanged();
+		}
+	}
+
+	/**
+	 * Gets the decimation.
+	 *
+	 * @return the decimation
+	 */
+	public Decimation getDecimation() {
+		return mDecimation;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -88,24 +126,84 @@ public abstract class UniqueXYLayer extends PlotSeriesLayer {
 	public final void plotLayer(Graphics2D g2, DrawingContext context, Figure figure, SubFigure subFigure, Axes axes,
 			Plot plot, DataFrame m, XYSeries series) {
 
-		String id = getId(m, axes);
+		UniqueXY xy = getUniqueXY(axes, plot, m, series);
+
+		if (xy != null) {
+			plotLayer(g2, context, figure, subFigure, axes, plot, m, series, xy);
+		}
+	}
+
+	@Override
+	public final boolean rasterLayer(RasterCanvas canvas, DrawingContext context, Figure figure, SubFigure subFigure,
+			Axes axes, Plot plot, DataFrame m, XYSeries series) {
+
+		UniqueXY xy = getUniqueXY(axes, plot, m, series);
+
+		if (xy == null) {
+			// Nothing to draw
+			return true;
+		}
 
-		if (mUnique == null || !mUnique.getKey().equals(id)) {
+		return rasterLayer(canvas, context, figure, subFigure, axes, plot, m, series, xy);
+	}
+
+	/**
+	 * Returns the unique points of the series, reusing the cached points if
+	 * neither the matrix nor the axes have changed.
+	 *
+	 * @param axes   the axes
+	 * @param plot   the plot
+	 * @param m      the m
+	 * @param series the series
+	 * @return the unique xy or null if there is nothing to draw.
+	 */
+	private UniqueXY getUniqueXY(Axes axes, Plot plot, DataFrame m, XYSeries series) {
+		long epoch = getCacheEpoch(axes, plot);
+
+		if (mUnique == null || m != mUniqueM || epoch != mUniqueEpoch) {
 			if (m.getCols() % 2 == 0) {
 				// There must be at least two columns in the matrix otherwise
 				// there cannot possibly be an x and y column.
 
-				UniqueXY xy = new UniqueXY(m, series, axes, mZeroEnds);
+				UniqueXY xy = createUniqueXY(axes, m, series);
 
 				if (xy.getPointCount() > 0) {
-					mUnique = new KeyValuePair<String, UniqueXY>(id, xy);
+					mUnique = xy;
+					mUniqueM = m;
+					mUniqueEpoch = epoch;
 				}
 			}
 		}
 
-		if (mUnique != null) {
-			plotLayer(g2, context, figure, subFigure, axes, plot, m, series, mUnique.getValue());
+		return mUnique;
+	}
+
+	/**
+	 * Reduce the series to the points needed at the current resolution. When
+	 * the envelope is being kept and the series is long enough to have a
+	 * pyramid, only the rows within the x limits are summarised, at the level
+	 * that matches the axes width.
+	 *
+	 * @param axes   the axes
+	 * @param m      the m
+	 * @param series the series
+	 * @return the unique xy
+	 */
+	private UniqueXY createUniqueXY(Axes axes, DataFrame m, XYSeries series) {
+		if (mDecimation == Decimation.M4) {
+			XYPyramid pyramid = series.getPyramid(m);
+
+			if (pyramid != null) {
+				AxisLimits limits = axes.getX1Axis().getLimits();
+
+				XYPyramid.Samples samples = pyramid.sample(limits.getMin(), limits.getMax(),
+						axes.getInternalSize().getW());
+
+				return new UniqueXY(m, series, samples, axes, mZeroEnds, mDecimation);
+			}
 		}
+
+		return new UniqueXY(m, series, axes, mZeroEnds, mDecimation);
 	}
 
 	/**
@@ -122,4 +220,24 @@ public abstract class UniqueXYLayer extends PlotSeriesLayer {
 	 */
 	public abstract void plotLayer(Graphics2D g2, DrawingContext context, Figure figure, SubFigure subFigure, Axes axes,
 			Plot plot, DataFrame m, XYSeries series, UniqueXY xy);
+
+	/**
+	 * Draw the unique points directly into a raster canvas. The default
+	 * returns false so that they are drawn with {@code plotLayer(...)}.
+	 *
+	 * @param canvas    the canvas
+	 * @param context   the context
+	 * @param figure    the figure
+	 * @param subFigure the sub figure
+	 * @param axes      the axes
+	 * @param plot      the plot
+	 * @param m         the m
+	 * @param series    the series
+	 * @param xy        the xy
+	 * @return true if the points were drawn.
+	 */
+	public boolean rasterLayer(RasterCanvas canvas, DrawingContext context, Figure figure, SubFigure subFigure,
+			Axes axes, Plot plot, DataFrame m, XYSeries series, UniqueXY xy) {
+		return false;
+	}
 }
\ No newline at end of file
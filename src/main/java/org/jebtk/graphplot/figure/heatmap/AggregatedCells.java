@@ -0,0 +1,181 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.graphplot.figure.heatmap;
+
+import org.jebtk.core.Mathematics;
+import org.jebtk.math.matrix.DataFrame;
+
+/**
+ * Reduces blocks of heat map cells to one value per block, so that when
+ * cells are smaller than a pixel each pixel is drawn from every cell it
+ * covers rather than from whichever one happens to be sampled. Each block is
+ * read once and rows of blocks are reduced in parallel.
+ *
+ * @author Antony Holmes
+ *
+ */
+public class AggregatedCells {
+
+	/**
+	 * Instantiates a new aggregated cells.
+	 */
+	private AggregatedCells() {
+		// Do nothing
+	}
+
+	/**
+	 * Reduce blocks of display cells. Block (g, h) covers the display rows
+	 * [rowStarts[g], rowStarts[g + 1]) and the display columns [colStarts[h],
+	 * colStarts[h + 1]).
+	 *
+	 * @param m           the m
+	 * @param rowOrder    the matrix row of each display row or null.
+	 * @param columnOrder the matrix column of each display column or null.
+	 * @param rowStarts   the first display row of each block, followed by
+	 *                    the end row.
+	 * @param colStarts   the first display column of each block, followed by
+	 *                    the end column.
+	 * @param agg         the aggregation
+	 * @return the block values, row by row. Blocks with no valid cells are
+	 *         NaN.
+	 */
+	public static double[] aggregate(final DataFrame m, final int[] rowOrder, final int[] columnOrder,
+			final int[] rowStarts, final int[] colStarts, final CellAggregation agg) {
+		final int cols = colStarts.length - 1;
+		final int rows = rowStarts.length - 1;
+
+		final double[] ret = new double[rows * cols];
+
+		// Whether to split the work depends on the cells read rather than the
+		// number of blocks
+		long cells = (long) (rowStarts[rows] - rowStarts[0]) * (colStarts[cols] - colStarts[0]);
+
+		ParallelBands.fill(cells, rows, new ParallelBands.Band() {
+			@Override
+			public void fill(int g1, int g2) {
+				for (int g = g1; g < g2; ++g) {
+					for (int h = 0; h < cols; ++h) {
+						ret[g * cols + h] = aggregate(m, rowOrder, columnOrder, rowStarts[g], rowStarts[g + 1],
+								colStarts[h], colStarts[h + 1], agg);
+					}
+				}
+			}
+		});
+
+		return ret;
+	}
+
+	/**
+	 * Reduce one block of display cells, for example to refresh a block after
+	 * some of its cells have changed.
+	 *
+	 * @param m           the m
+	 * @param rowOrder    the row order
+	 * @param columnOrder the column order
+	 * @param r1          the first display row
+	 * @param r2          the end display row
+	 * @param c1          the first display column
+	 * @param c2          the end display column
+	 * @param agg         the agg
+	 * @return the value
+	 */
+	public static double aggregate(DataFrame m, int[] rowOrder, int[] columnOrder, int r1, int r2, int c1, int c2,
+			CellAggregation agg) {
+		double sum = 0;
+		int n = 0;
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+
+		for (int r = r1; r < r2; ++r) {
+			int i = rowOrder != null ? rowOrder[r] : r;
+
+			for (int c = c1; c < c2; ++c) {
+				double v = m.getValue(i, columnOrder != null ? columnOrder[c] : c);
+
+				if (!Mathematics.isValidNumber(v)) {
+					continue;
+				}
+
+				sum += v;
+				++n;
+
+				if (v < min) {
+					min = v;
+				}
+
+				if (v > max) {
+					max = v;
+				}
+			}
+		}
+
+		if (n == 0) {
+			return Double.NaN;
+		}
+
+		switch (agg) {
+		case MEAN:
+			return sum / n;
+		case MIN:
+			return min;
+		case MAX:
+			return max;
+		default:
+			// Furthest from zero
+			return -min > max ? min : max;
+		}
+	}
+
+	/**
+	 * Group display cells by the pixel their leading edge falls on. Returns
+	 * null if every cell is on a different pixel, in which case there is
+	 * nothing to aggregate.
+	 *
+	 * @param bounds the pixel boundaries of the cells in ascending order,
+	 *               with the trailing edge of the last cell at the end.
+	 * @return the first cell of each group followed by the number of cells,
+	 *         or null.
+	 */
+	public static int[] groups(int[] bounds) {
+		int n = bounds.length - 1;
+
+		int size = 0;
+
+		for (int i = 0; i < n; ++i) {
+			if (i == 0 || bounds[i] != bounds[i - 1]) {
+				++size;
+			}
+		}
+
+		if (size == n) {
+			return null;
+		}
+
+		int[] ret = new int[size + 1];
+
+		size = 0;
+
+		for (int i = 0; i < n; ++i) {
+			if (i == 0 || bounds[i] != bounds[i - 1]) {
+				ret[size++] = i;
+			}
+		}
+
+		ret[size] = n;
+
+		return ret;
+	}
+}
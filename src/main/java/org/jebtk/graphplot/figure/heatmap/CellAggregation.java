@@ -0,0 +1,49 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.graphplot.figure.heatmap;
+
+/**
+ * How the cells of a heat map that fall on the same pixel are reduced to the
+ * single value that pixel shows. Invalid values are ignored.
+ */
+public enum CellAggregation {
+
+	/**
+	 * Show one of the cells, without reading the others.
+	 */
+	NONE,
+
+	/**
+	 * Show the mean of the cells.
+	 */
+	MEAN,
+
+	/**
+	 * Show the cell furthest from zero, keeping its sign, so that outliers in
+	 * either direction remain visible.
+	 */
+	MAX_ABS,
+
+	/**
+	 * Show the smallest cell.
+	 */
+	MIN,
+
+	/**
+	 * Show the largest cell.
+	 */
+	MAX
+}
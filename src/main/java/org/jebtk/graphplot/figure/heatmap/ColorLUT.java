@@ -0,0 +1,154 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.graphplot.figure.heatmap;
+
+import java.awt.Color;
+
+import org.jebtk.core.Mathematics;
+import org.jebtk.graphplot.figure.RasterCanvas;
+import org.jebtk.modern.graphics.colormap.ColorMap;
+
+/**
+ * A color map sampled at evenly spaced values between its min and max and
+ * stored as premultiplied ARGB ints, so that mapping a value to a pixel is an
+ * array lookup rather than a color interpolation and a {@code Color}
+ * allocation. Values outside the range of the color map are clamped to the
+ * end colors and invalid values map to a fixed color.
+ *
+ * @author Antony Holmes
+ *
+ */
+public class ColorLUT {
+
+	/**
+	 * The default number of samples. This is finer than the number of colors
+	 * in a typical color map so the quantization is not visible.
+	 */
+	public static final int DEFAULT_SIZE = 1024;
+
+	/** The sampled colors. */
+	private final int[] mArgb;
+
+	/** The sampled colors for drawing with a Graphics2D. */
+	private final Color[] mColors;
+
+	/** The value of the first sample. */
+	private final double mMin;
+
+	/** Converts a value offset from the min into a sample index. */
+	private final double mScale;
+
+	/** The color of invalid values. */
+	private final int mInvalid;
+
+	private final Color mInvalidColor;
+
+	/** The color map that was sampled. */
+	private final ColorMap mColorMap;
+
+	/**
+	 * Sample a color map with the default number of samples. Invalid values
+	 * are drawn white.
+	 *
+	 * @param colorMap the color map
+	 */
+	public ColorLUT(ColorMap colorMap) {
+		this(colorMap, DEFAULT_SIZE, Color.WHITE);
+	}
+
+	/**
+	 * Sample a color map.
+	 *
+	 * @param colorMap     the color map
+	 * @param size         the number of samples.
+	 * @param invalidColor the color of invalid values such as NaN.
+	 */
+	public ColorLUT(ColorMap colorMap, int size, Color invalidColor) {
+		mColorMap = colorMap;
+		mArgb = new int[Math.max(2, size)];
+		mColors = new Color[mArgb.length];
+		mMin = colorMap.getMin();
+		mInvalid = RasterCanvas.toArgb(invalidColor);
+		mInvalidColor = invalidColor;
+
+		double range = colorMap.getMax() - mMin;
+
+		mScale = range > 0 ? (mArgb.length - 1) / range : 0;
+
+		double step = range / (mArgb.length - 1);
+
+		for (int i = 0; i < mArgb.length; ++i) {
+			mColors[i] = colorMap.getColor(mMin + i * step);
+			mArgb[i] = RasterCanvas.toArgb(mColors[i]);
+		}
+	}
+
+	/**
+	 * Returns the color of a value.
+	 *
+	 * @param v the value, in the range of the color map.
+	 * @return the premultiplied ARGB color.
+	 */
+	public int getArgb(double v) {
+		if (!Mathematics.isValidNumber(v)) {
+			return mInvalid;
+		}
+
+		return mArgb[index(v)];
+	}
+
+	/**
+	 * Returns the color of a value as a shared {@code Color}.
+	 *
+	 * @param v the value, in the range of the color map.
+	 * @return the color
+	 */
+	public Color getColor(double v) {
+		if (!Mathematics.isValidNumber(v)) {
+			return mInvalidColor;
+		}
+
+		return mColors[index(v)];
+	}
+
+	/**
+	 * Returns the sample nearest a valid value, clamped to the table.
+	 *
+	 * @param v the v
+	 * @return the index
+	 */
+	private int index(double v) {
+		double i = (v - mMin) * mScale + 0.5;
+
+		if (i <= 0) {
+			return 0;
+		}
+
+		if (i >= mArgb.length - 1) {
+			return mArgb.length - 1;
+		}
+
+		return (int) i;
+	}
+
+	public ColorMap getColorMap() {
+		return mColorMap;
+	}
+
+	public int size() {
+		return mArgb.length;
+	}
+}
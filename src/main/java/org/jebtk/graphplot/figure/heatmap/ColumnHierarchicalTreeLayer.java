@@ -126,54 +126,22 @@ public class ColumnHierarchicalTreeLayer extends HierarchicalTreeLayer {
 	public void plotTree(Graphics2D g2, DrawingContext context, Figure figure, SubFigure subFigure, Axes axes,
 			Plot plot, DataFrame m) {
 
-		g2.setColor(mColor);
-
-		int w = axes.toPlotX1(1) - axes.toPlotX1(0);
-
-		int h = plot.getPreferredSize().height - GAP - mMaxRows * GroupColorBarLayer.HEIGHT - GROUP_GAP;
-
-		int x1;
-		int x2;
-		int y1;
-		int y2;
-		double s1;
-		double s2;
-
-		int offset = w / 2; // axes.getMargins().getLeft();
-
-		// process all the parents
-		for (Cluster cluster : mParents) {
-			// a pair
-			// Cluster cluster = parentStack.pop();
-			Cluster c1 = cluster.getChild1();
-			Cluster c2 = cluster.getChild2();
-
-			x1 = (int) (mClusterOffsetMap.get(c1) * w + offset);
-			x2 = (int) (mClusterOffsetMap.get(c2) * w + offset);
-
-			// now do some drawing
-
-			s1 = mClusterDistMap.get(cluster);
-
-			y1 = h - (int) (s1 * h);
-
-			// horizontal line
-			g2.drawLine(x1, y1, x2, y1);
-
-			// vertical lines
-
-			s2 = mClusterDistMap.get(c1);
+		if (mTree == null) {
+			return;
+		}
 
-			y2 = h - (int) (s2 * h) - 1;
+		g2.setColor(mColor);
 
-			g2.drawLine(x1, y1, x1, y2);
+		// The pitch of the leaves is kept fractional so that the tree can
+		// collapse when there are more leaves than pixels
+		int n = Math.max(1, mTree.getLeafCount());
 
-			s2 = mClusterDistMap.get(c2);
+		double w = (axes.toPlotX1(n) - axes.toPlotX1(0)) / (double) n;
 
-			y2 = h - (int) (s2 * h) - 1;
+		int h = plot.getPreferredSize().height - GAP - mMaxRows * GroupColorBarLayer.HEIGHT - GROUP_GAP;
 
-			g2.drawLine(x2, y1, x2, y2);
-		}
+		// Leaves run across the plot with the root at the top
+		g2.draw(mTree.getPath(false, w / 2, w, h - 1, 0));
 	}
 
 	/**
@@ -0,0 +1,208 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.graphplot.figure.heatmap;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.jebtk.core.Mathematics;
+import org.jebtk.math.Normalization;
+import org.jebtk.modern.graphics.colormap.ColorMap;
+
+/**
+ * A color map, an optional normalization and a color for invalid values
+ * compiled into a single value to color function backed by a
+ * {@code ColorLUT}. Compiled maps are cached by the identity of the color map
+ * and normalization, and by a version made from the range and number of
+ * colors of the map, so the table is built once per map change rather than
+ * per cell or per plot.
+ *
+ * @author Antony Holmes
+ *
+ */
+public class CompiledColorMap {
+
+	/**
+	 * The number of compiled maps to keep.
+	 */
+	private static final int CACHE_SIZE = 16;
+
+	/**
+	 * Most recently used first.
+	 */
+	private static final List<CompiledColorMap> CACHE = new ArrayList<CompiledColorMap>(CACHE_SIZE);
+
+	/** The color map. */
+	private final ColorMap mColorMap;
+
+	/** The normalization or null. */
+	private final Normalization mNorm;
+
+	/** The color of invalid values. */
+	private final Color mInvalidColor;
+
+	/** The version of the color map when it was compiled. */
+	private final double mMin;
+	private final double mMax;
+	private final int mColorCount;
+
+	/** The sampled color map. */
+	private final ColorLUT mLUT;
+
+	/** The premultiplied color of invalid values. */
+	private final int mInvalid;
+
+	/**
+	 * Compile a color map.
+	 *
+	 * @param colorMap     the color map
+	 * @param norm         the norm
+	 * @param invalidColor the invalid color
+	 */
+	private CompiledColorMap(ColorMap colorMap, Normalization norm, Color invalidColor) {
+		mColorMap = colorMap;
+		mNorm = norm;
+		mInvalidColor = invalidColor;
+		mMin = colorMap.getMin();
+		mMax = colorMap.getMax();
+		mColorCount = colorMap.getColorCount();
+		mLUT = new ColorLUT(colorMap, ColorLUT.DEFAULT_SIZE, invalidColor);
+		mInvalid = mLUT.getArgb(Double.NaN);
+	}
+
+	/**
+	 * Returns the color of a value.
+	 *
+	 * @param v the value before normalization.
+	 * @return the premultiplied ARGB color.
+	 */
+	public int argb(double v) {
+		// Test before normalizing so a normalization never sees NaN
+		if (!Mathematics.isValidNumber(v)) {
+			return mInvalid;
+		}
+
+		if (mNorm != null) {
+			v = mNorm.norm(v);
+		}
+
+		return mLUT.getArgb(v);
+	}
+
+	/**
+	 * Returns the color of a value for drawing with a Graphics2D. Colors are
+	 * shared, so there is no allocation per call.
+	 *
+	 * @param v the value before normalization.
+	 * @return the color
+	 */
+	public Color color(double v) {
+		if (!Mathematics.isValidNumber(v)) {
+			return mInvalidColor;
+		}
+
+		if (mNorm != null) {
+			v = mNorm.norm(v);
+		}
+
+		return mLUT.getColor(v);
+	}
+
+	/**
+	 * Returns the normalization or null if values are used as they are.
+	 *
+	 * @return the norm
+	 */
+	public Normalization getNorm() {
+		return mNorm;
+	}
+
+	/**
+	 * Returns true if this was compiled from the given inputs and the color
+	 * map has not changed since.
+	 *
+	 * @param colorMap     the color map
+	 * @param norm         the norm
+	 * @param invalidColor the invalid color
+	 * @return true, if successful
+	 */
+	private boolean isFor(ColorMap colorMap, Normalization norm, Color invalidColor) {
+		return mColorMap == colorMap && mNorm == norm && mInvalidColor.equals(invalidColor)
+				&& mMin == colorMap.getMin() && mMax == colorMap.getMax()
+				&& mColorCount == colorMap.getColorCount();
+	}
+
+	/**
+	 * Returns the compiled form of a color map with no normalization. Invalid
+	 * values are white.
+	 *
+	 * @param colorMap the color map
+	 * @return the compiled color map
+	 */
+	public static CompiledColorMap get(ColorMap colorMap) {
+		return get(colorMap, null);
+	}
+
+	/**
+	 * Returns the compiled form of a color map and normalization. Invalid
+	 * values are white.
+	 *
+	 * @param colorMap the color map
+	 * @param norm     the norm or null.
+	 * @return the compiled color map
+	 */
+	public static CompiledColorMap get(ColorMap colorMap, Normalization norm) {
+		return get(colorMap, norm, Color.WHITE);
+	}
+
+	/**
+	 * Returns the compiled form of a color map and normalization, compiling
+	 * it if necessary.
+	 *
+	 * @param colorMap     the color map
+	 * @param norm         the norm or null.
+	 * @param invalidColor the color of invalid values such as NaN.
+	 * @return the compiled color map
+	 */
+	public static CompiledColorMap get(ColorMap colorMap, Normalization norm, Color invalidColor) {
+		synchronized (CACHE) {
+			Iterator<CompiledColorMap> iter = CACHE.iterator();
+
+			while (iter.hasNext()) {
+				CompiledColorMap c = iter.next();
+
+				if (c.isFor(colorMap, norm, invalidColor)) {
+					// Move to front
+					iter.remove();
+					CACHE.add(0, c);
+					return c;
+				}
+			}
+
+			CompiledColorMap ret = new CompiledColorMap(colorMap, norm, invalidColor);
+
+			CACHE.add(0, ret);
+
+			if (CACHE.size() > CACHE_SIZE) {
+				CACHE.remove(CACHE.size() - 1);
+			}
+
+			return ret;
+		}
+	}
+}
@@ -0,0 +1,347 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.graphplot.figure.heatmap;
+
+import java.awt.Shape;
+import java.awt.geom.Path2D;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.jebtk.math.cluster.Cluster;
+
+/**
+ * The layout of a dendrogram computed once from its root cluster and stored
+ * in flat arrays indexed by merge, so that drawing the tree needs no maps or
+ * traversal of the cluster objects. Merges are ordered so that every merge
+ * comes after the merges of its children and the root is last.
+ *
+ * Positions along the leaf axis are in leaf units, so leaf i is at i and each
+ * merge is at the midpoint of its children. Levels are scaled so that the
+ * root is 1 and leaves are usually 0.
+ *
+ * The tree is drawn as a single path, which is cached until the size it is
+ * drawn at changes. When there are more leaves than pixels, a merge that spans
+ * less than a pixel or is less than a pixel above the leaves is collapsed,
+ * with everything below it, into the stem that joins it to its parent, so the
+ * cost of drawing is bounded by the number of pixels rather than the number of
+ * leaves.
+ *
+ * @author Antony Holmes
+ *
+ */
+public class DendrogramGeometry {
+
+	/** The number of leaves. */
+	private final int mLeaves;
+
+	/** The number of merges. */
+	private final int mMerges;
+
+	/** The level of each merge. */
+	private final double[] mLevel;
+
+	/**
+	 * The distance in leaf units between the first and last leaf below each
+	 * merge.
+	 */
+	private final double[] mSpan;
+
+	/**
+	 * The two children of each merge at 2i and 2i + 1. A child is either the
+	 * index of a merge or, if negative, -1 - the position of a leaf.
+	 */
+	private final int[] mChild;
+
+	/** The position of each child along the leaf axis. */
+	private final double[] mChildX;
+
+	/** The level of each child. */
+	private final double[] mChildLevel;
+
+	/** The last path drawn and the size it was drawn at. */
+	private Path2D mPath;
+	private boolean mPathAlongY;
+	private double mPathLeafOffset;
+	private double mPathLeafSize;
+	private int mPathLeafDepth;
+	private int mPathRootDepth;
+
+	/**
+	 * Compute the layout of a tree.
+	 *
+	 * @param root the root cluster.
+	 */
+	public DendrogramGeometry(Cluster root) {
+		// Collect the clusters in pre-order, i.e. parents first and leaves
+		// in the order they appear in the tree
+		List<Cluster> clusters = new ArrayList<Cluster>();
+
+		Deque<Cluster> stack = new ArrayDeque<Cluster>();
+
+		stack.push(root);
+
+		int leaves = 0;
+
+		while (!stack.isEmpty()) {
+			Cluster cluster = stack.pop();
+
+			clusters.add(cluster);
+
+			if (cluster.isParent()) {
+				stack.push(cluster.getChild2());
+				stack.push(cluster.getChild1());
+			} else {
+				++leaves;
+			}
+		}
+
+		mLeaves = leaves;
+		mMerges = clusters.size() - leaves;
+
+		mLevel = new double[mMerges];
+		mSpan = new double[mMerges];
+		mChild = new int[mMerges * 2];
+		mChildX = new double[mMerges * 2];
+		mChildLevel = new double[mMerges * 2];
+
+		double rootLevel = root.getLevel();
+		double scale = rootLevel > 0 ? 1.0 / rootLevel : 0;
+
+		// Walking the pre-order backwards visits children before their
+		// parents, child 2 before child 1, so the results of the children of
+		// a merge are on top of the value stack when it is reached.
+		int n = clusters.size();
+		int[] refs = new int[n];
+		double[] xs = new double[n];
+		double[] levels = new double[n];
+		double[] firsts = new double[n];
+		double[] lasts = new double[n];
+		int top = 0;
+
+		int leaf = leaves;
+		int merge = 0;
+
+		for (int i = n - 1; i >= 0; --i) {
+			Cluster cluster = clusters.get(i);
+
+			double level = cluster.getLevel() * scale;
+
+			if (cluster.isParent()) {
+				int c1 = --top;
+				int c2 = --top;
+
+				mLevel[merge] = level;
+				mSpan[merge] = lasts[c2] - firsts[c1];
+
+				mChild[2 * merge] = refs[c1];
+				mChild[2 * merge + 1] = refs[c2];
+				mChildX[2 * merge] = xs[c1];
+				mChildX[2 * merge + 1] = xs[c2];
+				mChildLevel[2 * merge] = levels[c1];
+				mChildLevel[2 * merge + 1] = levels[c2];
+
+				refs[top] = merge;
+				xs[top] = (xs[c1] + xs[c2]) / 2.0;
+				levels[top] = level;
+				firsts[top] = firsts[c1];
+				lasts[top] = lasts[c2];
+
+				++merge;
+			} else {
+				--leaf;
+
+				refs[top] = -1 - leaf;
+				xs[top] = leaf;
+				levels[top] = level;
+				firsts[top] = leaf;
+				lasts[top] = leaf;
+			}
+
+			++top;
+		}
+	}
+
+	/**
+	 * Returns the number of leaves.
+	 *
+	 * @return the leaf count
+	 */
+	public int getLeafCount() {
+		return mLeaves;
+	}
+
+	/**
+	 * Returns the number of merges.
+	 *
+	 * @return the merge count
+	 */
+	public int getMergeCount() {
+		return mMerges;
+	}
+
+	/**
+	 * Returns the level of a merge.
+	 *
+	 * @param merge the merge
+	 * @return the level
+	 */
+	public double getLevel(int merge) {
+		return mLevel[merge];
+	}
+
+	/**
+	 * Returns a child of a merge, either the index of a merge or, if
+	 * negative, -1 - the position of a leaf.
+	 *
+	 * @param merge the merge
+	 * @param child 0 or 1.
+	 * @return the child
+	 */
+	public int getChild(int merge, int child) {
+		return mChild[2 * merge + child];
+	}
+
+	/**
+	 * Returns the position of a child of a merge along the leaf axis.
+	 *
+	 * @param merge the merge
+	 * @param child 0 or 1.
+	 * @return the position in leaf units.
+	 */
+	public double getChildX(int merge, int child) {
+		return mChildX[2 * merge + child];
+	}
+
+	/**
+	 * Returns the level of a child of a merge.
+	 *
+	 * @param merge the merge
+	 * @param child 0 or 1.
+	 * @return the level
+	 */
+	public double getChildLevel(int merge, int child) {
+		return mChildLevel[2 * merge + child];
+	}
+
+	/**
+	 * Returns the tree as a single path. Each merge is drawn as a bracket from
+	 * its first child up to its level and down to its second child.
+	 *
+	 * @param leavesAlongY true if the leaves are laid out along the y axis, as
+	 *                     for a row tree, false if they are along the x axis.
+	 * @param leafOffset   the position of the first leaf in pixels.
+	 * @param leafSize     the distance between leaves in pixels, which may be
+	 *                     fractional when there are more leaves than pixels.
+	 * @param leafDepth    the position of level 0 across the leaf axis.
+	 * @param rootDepth    the position of level 1, i.e. the root.
+	 * @return the path
+	 */
+	public Shape getPath(boolean leavesAlongY, double leafOffset, double leafSize, int leafDepth, int rootDepth) {
+		if (mPath != null && mPathAlongY == leavesAlongY && mPathLeafOffset == leafOffset
+				&& mPathLeafSize == leafSize && mPathLeafDepth == leafDepth && mPathRootDepth == rootDepth) {
+			return mPath;
+		}
+
+		int extent = rootDepth - leafDepth;
+
+		// Merges only need collapsing when the leaves are narrower than a
+		// pixel, so that trees with room for every leaf are drawn in full.
+		// Leaves with no room at all collapse the whole tree.
+		boolean collapse = leafSize < 1;
+
+		double minSpan = leafSize > 0 ? (collapse ? 1 / leafSize : 0) : Double.POSITIVE_INFINITY;
+
+		boolean[] collapsed = new boolean[mMerges];
+
+		int drawn = 0;
+
+		for (int i = 0; i < mMerges; ++i) {
+			collapsed[i] = collapse && (mSpan[i] < minSpan || Math.abs(mLevel[i] * extent) < 1);
+
+			if (!collapsed[i]) {
+				++drawn;
+			}
+		}
+
+		Path2D path = new Path2D.Float(Path2D.WIND_NON_ZERO, drawn * 4);
+
+		for (int i = 0; i < mMerges; ++i) {
+			if (collapsed[i]) {
+				continue;
+			}
+
+			int p1 = (int) (leafOffset + mChildX[2 * i] * leafSize);
+			int p2 = (int) (leafOffset + mChildX[2 * i + 1] * leafSize);
+
+			int d = depth(mLevel[i], leafDepth, extent);
+			int d1 = depth(childLevel(2 * i, collapsed), leafDepth, extent);
+			int d2 = depth(childLevel(2 * i + 1, collapsed), leafDepth, extent);
+
+			if (leavesAlongY) {
+				path.moveTo(d1, p1);
+				path.lineTo(d, p1);
+				path.lineTo(d, p2);
+				path.lineTo(d2, p2);
+			} else {
+				path.moveTo(p1, d1);
+				path.lineTo(p1, d);
+				path.lineTo(p2, d);
+				path.lineTo(p2, d2);
+			}
+		}
+
+		mPath = path;
+		mPathAlongY = leavesAlongY;
+		mPathLeafOffset = leafOffset;
+		mPathLeafSize = leafSize;
+		mPathLeafDepth = leafDepth;
+		mPathRootDepth = rootDepth;
+
+		return mPath;
+	}
+
+	/**
+	 * Returns the level a child is drawn down to. Collapsed children are
+	 * drawn down to the leaves.
+	 *
+	 * @param c         the index of the child.
+	 * @param collapsed the collapsed merges.
+	 * @return the level
+	 */
+	private double childLevel(int c, boolean[] collapsed) {
+		int child = mChild[c];
+
+		if (child >= 0 && collapsed[child]) {
+			return 0;
+		}
+
+		return mChildLevel[c];
+	}
+
+	/**
+	 * Returns the position of a level across the leaf axis.
+	 *
+	 * @param level     the level
+	 * @param leafDepth the leaf depth
+	 * @param extent    the distance from the leaves to the root.
+	 * @return the depth
+	 */
+	private static int depth(double level, int leafDepth, int extent) {
+		return leafDepth + (int) (level * extent);
+	}
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.graphplot.figure.heatmap;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+import org.jebtk.graphplot.figure.RasterCanvas;
+import org.jebtk.math.matrix.DataFrame;
+
+/**
+ * Helpers for writing heat maps to vector formats such as SVG and PDF. Small
+ * heat maps are written as rectangles, with each horizontal run of cells of
+ * the same color merged into a single rectangle, which keeps files small for
+ * heat maps with large uniform areas. Heat maps with more cells than a
+ * threshold are written as one image with a pixel per cell, which the
+ * graphics context embeds (and compresses) in the document, so the file size
+ * no longer grows with the number of rectangles. Axes, labels and other
+ * layers are unaffected and remain vectors.
+ *
+ * @author Antony Holmes
+ *
+ */
+public class HeatMapExport {
+
+	/**
+	 * Heat maps with more cells than this are written as an embedded image
+	 * rather than as rectangles.
+	 */
+	public static final int DEFAULT_MAX_VECTOR_CELLS = 100000;
+
+	/**
+	 * Instantiates a new heat map export.
+	 */
+	private HeatMapExport() {
+		// Do nothing
+	}
+
+	/**
+	 * Returns true if a heat map is small enough to write as rectangles.
+	 *
+	 * @param rows           the rows
+	 * @param cols           the cols
+	 * @param maxVectorCells the max vector cells
+	 * @return true, if is vector
+	 */
+	public static boolean isVector(int rows, int cols, int maxVectorCells) {
+		return (long) rows * cols <= maxVectorCells;
+	}
+
+	/**
+	 * Fill a row of cells, merging neighbouring cells of the same color into
+	 * one rectangle.
+	 *
+	 * @param g2     the g2
+	 * @param xs     the left edge of each cell, in ascending order.
+	 * @param colors the color of each cell. Cells with a null color are not
+	 *               drawn.
+	 * @param n      the number of cells.
+	 * @param w      the width of a cell.
+	 * @param y      the top of the row.
+	 * @param h      the height of the row.
+	 */
+	public static void fillRuns(Graphics2D g2, int[] xs, Color[] colors, int n, int w, int y, int h) {
+		int i = 0;
+
+		while (i < n) {
+			Color color = colors[i];
+
+			int j = i + 1;
+
+			while (j < n && color != null && color.equals(colors[j])) {
+				++j;
+			}
+
+			if (color != null) {
+				g2.setColor(color);
+				g2.fillRect(xs[i], y, xs[j - 1] + w - xs[i], h);
+			}
+
+			i = j;
+		}
+	}
+
+	/**
+	 * Render a matrix as an image with one pixel per cell, to be drawn scaled
+	 * to the size of the heat map.
+	 *
+	 * @param m           the m
+	 * @param colors      maps each value to a color.
+	 * @param rowOrder    the matrix row to draw in each image row, or null for
+	 *                    the matrix order.
+	 * @param columnOrder the matrix column to draw in each image column, or
+	 *                    null for the matrix order.
+	 * @return the image
+	 */
+	public static BufferedImage toImage(final DataFrame m, final CompiledColorMap colors, final int[] rowOrder,
+			final int[] columnOrder) {
+		final int cols = m.getCols();
+
+		BufferedImage ret = RasterCanvas.createImage(Math.max(1, cols), Math.max(1, m.getRows()));
+
+		final int[] pixels = ((DataBufferInt) ret.getRaster().getDataBuffer()).getData();
+
+		ParallelBands.fill(cols, m.getRows(), new ParallelBands.Band() {
+			@Override
+			public void fill(int y1, int y2) {
+				for (int i = y1; i < y2; ++i) {
+					int r = rowOrder != null ? rowOrder[i] : i;
+					int offset = i * cols;
+
+					for (int j = 0; j < cols; ++j) {
+						pixels[offset + j] = colors.argb(m.getValue(r, columnOrder != null ? columnOrder[j] : j));
+					}
+				}
+			}
+		});
+
+		return ret;
+	}
+}
@@ -18,21 +18,21 @@ package org.jebtk.graphplot.figure.heatmap;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
-import org.jebtk.core.Mathematics;
 import org.jebtk.core.collections.DefaultHashMap;
 import org.jebtk.core.collections.HashMapCreator;
 import org.jebtk.core.collections.IterMap;
 import org.jebtk.core.collections.UniqueArrayList;
-import org.jebtk.graphplot.Image;
 import org.jebtk.graphplot.figure.Axes;
 import org.jebtk.graphplot.figure.Figure;
+import org.jebtk.graphplot.figure.PermutedDataFrame;
 import org.jebtk.graphplot.figure.Plot;
 import org.jebtk.graphplot.figure.PlotClippedLayer;
+import org.jebtk.graphplot.figure.RasterCanvas;
 import org.jebtk.graphplot.figure.SubFigure;
+import org.jebtk.math.Normalization;
 import org.jebtk.math.matrix.DataFrame;
 import org.jebtk.modern.graphics.DrawingContext;
 import org.jebtk.modern.graphics.colormap.ColorMap;
@@ -47,6 +47,12 @@ public class HeatMapFillPlotLayer extends PlotClippedLayer {
 	 */
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * Plot areas with more pixels than this are always drawn in tiles rather
+	 * than as one image.
+	 */
+	public static final int MAX_IMAGE_PIXELS = 2048 * 2048;
+
 	/** The m X. */
 	protected List<Integer> mX = null;
 
@@ -57,17 +63,26 @@ public class HeatMapFillPlotLayer extends PlotClippedLayer {
 	protected IterMap<Integer, IterMap<Integer, Color>> mColorsMap = DefaultHashMap
 			.create(new HashMapCreator<Integer, Color>());
 
-	/** The m color tile map. */
-	protected Map<Color, BufferedImage> mColorTileMap = new HashMap<Color, BufferedImage>();
-
 	/** The m color map. */
 	protected ColorMap mColorMap = null;
 
 	/** The m M. */
 	protected DataFrame mM;
 
-	/** The m hash id. */
-	protected String mHashId;
+	/** The layout epoch of the axes when the cache was built. */
+	protected long mCacheEpoch = NO_EPOCH;
+
+	/** The cells epoch of the plot when the colors were cached. */
+	protected long mColorsEpoch = NO_EPOCH;
+
+	/** Renders the heat map for on screen drawing. */
+	protected final HeatMapRaster mRaster = new HeatMapRaster();
+
+	/** Whether to draw in tiles regardless of size. */
+	private boolean mTiled = false;
+
+	/** Heat maps with more cells are exported as an image. */
+	private int mMaxVectorCells = HeatMapExport.DEFAULT_MAX_VECTOR_CELLS;
 
 	@Override
 	public String getType() {
@@ -89,6 +104,33 @@ public class HeatMapFillPlotLayer extends PlotClippedLayer {
 	public void plotLayer(Graphics2D g2, DrawingContext context, Figure figure, SubFigure subFigure, Axes axes,
 			Plot plot, DataFrame m) {
 
+		// On screen the heat map is one image, or tiles of the visible part
+		// for large plots.
+		if (context != DrawingContext.OUTPUT) {
+			update(axes, plot, m);
+
+			if (isTiled(axes)) {
+				mRaster.drawTiles(g2, axes, m, getColors(plot), getRowOrder(m), getColumnOrder(m),
+						getCacheEpoch(axes, plot));
+			} else {
+				g2.drawImage(getImage(axes, plot, m), 0, 0, null);
+			}
+
+			return;
+		}
+
+		// Large heat maps are embedded as one image so the document does not
+		// contain a rectangle per cell
+		if (!HeatMapExport.isVector(m.getRows(), m.getCols(), mMaxVectorCells)) {
+			int x = axes.toPlotX1(0);
+			int y = axes.toPlotY1(m.getRows());
+
+			g2.drawImage(HeatMapExport.toImage(m, getColors(plot), getRowOrder(m), getColumnOrder(m)), x, y,
+					axes.toPlotX1(m.getCols()) - x, axes.toPlotY1(0) - y, null);
+
+			return;
+		}
+
 		int w = Math.max(1, axes.toPlotX1(1) - axes.toPlotX1(0));
 		int h = Math.max(1, axes.toPlotY1(0) - axes.toPlotY1(1));
 
@@ -97,28 +139,186 @@ public class HeatMapFillPlotLayer extends PlotClippedLayer {
 
 		cache(context, figure, subFigure, axes, plot, m, x1, y1, w, h);
 
+		// Runs of equal colors are merged so walk the columns left to right
+		int[] xs = new int[mX.size()];
+
+		for (int i = 0; i < xs.length; ++i) {
+			xs[i] = mX.get(i);
+		}
+
+		Arrays.sort(xs);
+
+		Color[] colors = new Color[xs.length];
+
 		Graphics2D g2Temp = (Graphics2D) g2.create();
 		g2Temp.translate(x1, y1);
 
-		if (context == DrawingContext.UI) {
-			for (int y : mY) {
-				for (int x : mX) {
-					g2Temp.drawImage(mColorTileMap.get(mColorsMap.get(x).get(y)), x, y, null);
-				}
+		for (int y : mY) {
+			for (int i = 0; i < xs.length; ++i) {
+				colors[i] = mColorsMap.get(xs[i]).get(y);
 			}
-		} else {
-			for (int y : mY) {
-				for (int x : mX) {
-					g2Temp.setColor(mColorsMap.get(x).get(y));
 
-					g2Temp.fillRect(x, y, w, h);
-				}
-			}
+			HeatMapExport.fillRuns(g2Temp, xs, colors, xs.length, w, y, h);
 		}
 
 		g2Temp.dispose();
 	}
 
+	@Override
+	public boolean rasterLayer(RasterCanvas canvas, DrawingContext context, Figure figure, SubFigure subFigure,
+			Axes axes, Plot plot, DataFrame m) {
+		if (isTiled(axes)) {
+			// Tiles are drawn through the graphics clip
+			return false;
+		}
+
+		update(axes, plot, m);
+
+		canvas.drawImage(getImage(axes, plot, m), 0, 0);
+
+		return true;
+	}
+
+	/**
+	 * Set whether the heat map is always drawn on screen as tiles of the
+	 * visible area, which are rendered on demand and cached. Plots larger than
+	 * {@code MAX_IMAGE_PIXELS} are tiled regardless.
+	 *
+	 * @param tiled the new tiled
+	 */
+	public void setTiled(boolean tiled) {
+		mTiled = tiled;
+
+		fireChanged();
+	}
+
+	public boolean getTiled() {
+		return mTiled;
+	}
+
+	/**
+	 * Set the largest number of cells that are exported to vector formats as
+	 * rectangles. Larger heat maps are embedded as a single image.
+	 *
+	 * @param cells the new max vector cells
+	 */
+	public void setMaxVectorCells(int cells) {
+		mMaxVectorCells = cells;
+
+		fireChanged();
+	}
+
+	public int getMaxVectorCells() {
+		return mMaxVectorCells;
+	}
+
+	/**
+	 * Set how cells smaller than a pixel are reduced to one value per pixel
+	 * when drawing on screen.
+	 *
+	 * @param aggregation the new aggregation
+	 */
+	public void setAggregation(CellAggregation aggregation) {
+		mRaster.setAggregation(aggregation);
+
+		fireChanged();
+	}
+
+	public CellAggregation getAggregation() {
+		return mRaster.getAggregation();
+	}
+
+	/**
+	 * Returns true if the heat map should be drawn in tiles.
+	 *
+	 * @param axes the axes
+	 * @return true, if is tiled
+	 */
+	private boolean isTiled(Axes axes) {
+		return mTiled || (long) axes.getInternalSize().getW() * axes.getInternalSize().getH() > MAX_IMAGE_PIXELS;
+	}
+
+	/**
+	 * Bring the on screen renderer up to date, recoloring just the cells the
+	 * plot reports as changed where possible.
+	 *
+	 * @param axes the axes
+	 * @param plot the plot
+	 * @param m    the m
+	 */
+	private void update(Axes axes, Plot plot, DataFrame m) {
+		mRaster.update(axes, plot, m, getColors(plot), getRowOrder(m), getColumnOrder(m), getCacheEpoch(axes, plot));
+	}
+
+	/**
+	 * Returns the whole heat map rendered as an image the size of the plot
+	 * area.
+	 *
+	 * @param axes the axes
+	 * @param plot the plot
+	 * @param m    the m
+	 * @return the image
+	 */
+	protected BufferedImage getImage(Axes axes, Plot plot, DataFrame m) {
+		return mRaster.getImage(axes, m, getColors(plot), getRowOrder(m), getColumnOrder(m),
+				getCacheEpoch(axes, plot));
+	}
+
+	/**
+	 * Returns the plot color map and normalization compiled into a lookup
+	 * table.
+	 *
+	 * @param plot the plot
+	 * @return the colors
+	 */
+	protected CompiledColorMap getColors(Plot plot) {
+		return CompiledColorMap.get(plot.getColorMap(), getNorm(plot));
+	}
+
+	/**
+	 * Returns the normalization that maps values into the range of the color
+	 * map, or null if the values should be used as they are.
+	 *
+	 * @param plot the plot
+	 * @return the normalization
+	 */
+	protected Normalization getNorm(Plot plot) {
+		return plot.getNorm();
+	}
+
+	/**
+	 * Returns the matrix as it is displayed, row 0 at the top and column 0 on
+	 * the left. By default this is the matrix order.
+	 *
+	 * @param m the m
+	 * @return the view
+	 */
+	protected PermutedDataFrame getView(DataFrame m) {
+		return new PermutedDataFrame(m, null, null);
+	}
+
+	/**
+	 * Returns the matrix row to draw in each display row, top to bottom, or
+	 * null to draw the rows in matrix order.
+	 *
+	 * @param m the m
+	 * @return the row order
+	 */
+	private int[] getRowOrder(DataFrame m) {
+		return getView(m).getRowOrder();
+	}
+
+	/**
+	 * Returns the matrix column to draw in each display column, left to right,
+	 * or null to draw the columns in matrix order.
+	 *
+	 * @param m the m
+	 * @return the column order
+	 */
+	private int[] getColumnOrder(DataFrame m) {
+		return getView(m).getColumnOrder();
+	}
+
 	/**
 	 * Cache.
 	 *
@@ -135,7 +335,7 @@ public class HeatMapFillPlotLayer extends PlotClippedLayer {
 	protected void cache(DrawingContext context, Figure figure, SubFigure subFigure, Axes axes, Plot plot, DataFrame m,
 			int x1, int y1, int w, int h) {
 
-		if (mHashId == null || !mHashId.equals(subFigure.hashId())) {
+		if (mCacheEpoch != axes.getLayoutEpoch()) {
 			mX = new UniqueArrayList<Integer>(m.getCols());
 			mY = new UniqueArrayList<Integer>(m.getRows());
 
@@ -155,11 +355,14 @@ public class HeatMapFillPlotLayer extends PlotClippedLayer {
 		// Monitor for changes in the color plot and the normalization method
 		// which will cause the matrix to change
 
-		if (mColorMap == null || !plot.getColorMap().equals(mColorMap) || mM == null || !m.equals(mM) || mHashId == null
-				|| !mHashId.equals(subFigure.hashId())) {
+		if (mColorMap == null || !plot.getColorMap().equals(mColorMap) || mM == null || !m.equals(mM)
+				|| mCacheEpoch != axes.getLayoutEpoch() || mColorsEpoch != plot.getCellsEpoch()) {
 
 			mColorsMap.clear();
-			mColorTileMap.clear();
+
+			CompiledColorMap colors = getColors(plot);
+
+			PermutedDataFrame view = getView(m);
 
 			for (int i = 0; i < m.getRows(); ++i) {
 				int y = axes.toPlotY1(m.getRows() - i) - y1;
@@ -171,36 +374,16 @@ public class HeatMapFillPlotLayer extends PlotClippedLayer {
 						continue;
 					}
 
-					double v = m.getValue(i, j);
-
-					Color c;
-
-					if (Mathematics.isValidNumber(v)) {
-						c = plot.getColorMap().getColor(plot.getNorm().norm(v));
-					} else {
-						c = Color.WHITE;
-					}
+					Color c = colors.color(view.getValue(i, j));
 
 					mColorsMap.get(x).put(y, c);
-
-					if (context == DrawingContext.UI) {
-						if (!mColorTileMap.containsKey(c)) {
-							BufferedImage img = Image.createBuffIm(w, h);
-
-							Graphics2D g2Temp = (Graphics2D) img.createGraphics();
-							g2Temp.setColor(c);
-							g2Temp.fillRect(0, 0, img.getWidth(), img.getHeight());
-							g2Temp.dispose();
-
-							mColorTileMap.put(c, img);
-						}
-					}
 				}
 			}
 		}
 
 		mColorMap = plot.getColorMap();
 		mM = m;
-		mHashId = subFigure.hashId();
+		mCacheEpoch = axes.getLayoutEpoch();
+		mColorsEpoch = plot.getCellsEpoch();
 	}
 }
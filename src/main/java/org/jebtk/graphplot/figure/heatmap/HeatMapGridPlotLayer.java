@@ -48,8 +48,8 @@ public class HeatMapGridPlotLayer extends PlotClippedLayer {
 	/** The m Y 2. */
 	private Map<Integer, Integer> mY2 = new HashMap<Integer, Integer>();
 
-	/** The m hash id. */
-	private String mHashId = null;
+	/** The layout epoch of the axes when the cache was built. */
+	private long mCacheEpoch = NO_EPOCH;
 
 	@Override
 	public String getType() {
@@ -77,7 +77,7 @@ public class HeatMapGridPlotLayer extends PlotClippedLayer {
 		int y1 = axes.getMargins().getTop();
 		int y2 = y1 + axes.getInternalSize().getH() - 1;
 
-		if (mHashId == null || !mHashId.equals(subFigure.hashId())) {
+		if (mCacheEpoch != axes.getLayoutEpoch()) {
 			mX.clear(); // = new UniqueArrayList<Integer>(m.getColumnCount());
 			// = new UniqueArrayList<Integer>(m.getRowCount());
 
@@ -155,6 +155,6 @@ public class HeatMapGridPlotLayer extends PlotClippedLayer {
 			}
 		}
 
-		mHashId = subFigure.hashId();
+		mCacheEpoch = axes.getLayoutEpoch();
 	}
 }
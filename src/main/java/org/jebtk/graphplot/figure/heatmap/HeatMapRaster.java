@@ -0,0 +1,768 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.graphplot.figure.heatmap;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jebtk.graphplot.figure.Axes;
+import org.jebtk.graphplot.figure.CellRegion;
+import org.jebtk.graphplot.figure.Plot;
+import org.jebtk.graphplot.figure.RasterCanvas;
+import org.jebtk.math.matrix.DataFrame;
+
+/**
+ * Renders a matrix as a heat map straight into the {@code int[]} pixels of an
+ * image. Each value is mapped through a {@code CompiledColorMap}, each
+ * display row is built once as a scanline and then copied to every pixel row
+ * it covers. Large images are filled in parallel bands of pixel rows.
+ *
+ * The heat map can either be rendered as a single image the size of the plot
+ * area, which is kept until the color map, normalization, matrix, orders or
+ * layout change so a repaint is a single {@code drawImage}, or as fixed size
+ * tiles rendered on demand for the visible area only. Tiles are shared
+ * through a least recently used cache with a byte budget and are keyed by
+ * the renderer and a generation that changes with any of the inputs, so
+ * scrolling a very large heat map costs O(visible tiles).
+ *
+ * Row 0 is drawn at the top of the plot and column 0 on the left. Cells are
+ * at least one pixel in size; where several cells fall on the same pixel the
+ * last one drawn wins, unless an aggregation is set, in which case they are
+ * reduced to one value per pixel.
+ *
+ * @author Antony Holmes
+ *
+ */
+public class HeatMapRaster {
+
+	/**
+	 * The width and height of a tile in pixels.
+	 */
+	public static final int TILE_SIZE = 256;
+
+	/**
+	 * The default number of bytes of tiles to keep.
+	 */
+	public static final long DEFAULT_TILE_CACHE_BYTES = 64L * 1024 * 1024;
+
+	/** Used to give each renderer a unique id. */
+	private static final AtomicLong NEXT_ID = new AtomicLong();
+
+	/**
+	 * A tile of a particular generation of a renderer.
+	 */
+	private static class TileKey {
+		private final long mId;
+		private final long mGeneration;
+		private final int mTx;
+		private final int mTy;
+
+		public TileKey(long id, long generation, int tx, int ty) {
+			mId = id;
+			mGeneration = generation;
+			mTx = tx;
+			mTy = ty;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof TileKey)) {
+				return false;
+			}
+
+			TileKey k = (TileKey) o;
+
+			return mId == k.mId && mGeneration == k.mGeneration && mTx == k.mTx && mTy == k.mTy;
+		}
+
+		@Override
+		public int hashCode() {
+			int ret = Long.hashCode(mId);
+
+			ret = 31 * ret + Long.hashCode(mGeneration);
+			ret = 31 * ret + mTx;
+			ret = 31 * ret + mTy;
+
+			return ret;
+		}
+	}
+
+	/**
+	 * Least recently used tiles are evicted first once the cache holds more
+	 * than {@code TILE_CACHE_BYTES}.
+	 */
+	private static final LinkedHashMap<TileKey, BufferedImage> TILES = new LinkedHashMap<TileKey, BufferedImage>(
+			256, 0.75f, true);
+
+	/** The number of bytes of tiles in the cache. */
+	private static long TILE_BYTES = 0;
+
+	/** The budget of the tile cache. */
+	private static long TILE_CACHE_BYTES = DEFAULT_TILE_CACHE_BYTES;
+
+	/** Identifies the tiles of this renderer in the shared cache. */
+	private final long mId = NEXT_ID.incrementAndGet();
+
+	/** Changes whenever anything that affects the pixels changes. */
+	private long mGeneration = 0;
+
+	/** The rendered heat map. */
+	private BufferedImage mImage = null;
+
+	/** The colors used for the image. */
+	private CompiledColorMap mColors = null;
+
+	/** The matrix used for the image. */
+	private DataFrame mM = null;
+
+	/** The row order used for the image. */
+	private int[] mRowOrder = null;
+
+	/** The column order used for the image. */
+	private int[] mColumnOrder = null;
+
+	/** The cache epoch of the image. */
+	private long mEpoch = -1;
+
+	/** The epoch of the last cell region applied. */
+	private long mCellsEpoch = -1;
+
+	/** The pixel boundaries of the display columns. */
+	private int[] mXs = null;
+
+	/** The pixel boundaries of the display rows. */
+	private int[] mYs = null;
+
+	/** How cells that share a pixel are reduced. */
+	private CellAggregation mAggregation = CellAggregation.NONE;
+
+	/**
+	 * Aggregated blocks of cells, row by row, when cells are smaller than a
+	 * pixel. The boundaries are then those of the blocks rather than the
+	 * cells.
+	 */
+	private double[] mValues = null;
+
+	/** The number of blocks in a row of mValues. */
+	private int mValueCols = 0;
+
+	/** The first display row of each block, when aggregating. */
+	private int[] mRowGroups = null;
+
+	/** The first display column of each block, when aggregating. */
+	private int[] mColGroups = null;
+
+	/** The display row of each matrix row, built when first needed. */
+	private int[] mInverseRowOrder = null;
+
+	/** The display column of each matrix column, built when first needed. */
+	private int[] mInverseColumnOrder = null;
+
+	/**
+	 * Set how cells smaller than a pixel are reduced to the value of the
+	 * pixel. With {@code CellAggregation.NONE} the last cell drawn on a pixel
+	 * wins. Otherwise every cell is read once per layout and the blocks are
+	 * cached until the next layout change.
+	 *
+	 * @param aggregation the new aggregation
+	 */
+	public void setAggregation(CellAggregation aggregation) {
+		if (aggregation != mAggregation) {
+			mAggregation = aggregation;
+
+			// Force the next draw to start a new generation
+			mXs = null;
+		}
+	}
+
+	public CellAggregation getAggregation() {
+		return mAggregation;
+	}
+
+	/**
+	 * Returns the heat map image, rendering it if anything that affects it has
+	 * changed.
+	 *
+	 * @param axes        the axes
+	 * @param m           the m
+	 * @param colors      maps each value to a color.
+	 * @param rowOrder    the matrix row to draw in each display row, or null
+	 *                    for the matrix order.
+	 * @param columnOrder the matrix column to draw in each display column, or
+	 *                    null for the matrix order.
+	 * @param epoch       an epoch that changes with the layout or the matrix.
+	 * @return the image, to be drawn at the origin of the plot area.
+	 */
+	public BufferedImage getImage(Axes axes, DataFrame m, CompiledColorMap colors, int[] rowOrder,
+			int[] columnOrder, long epoch) {
+		update(axes, m, colors, rowOrder, columnOrder, epoch);
+
+		if (mImage == null) {
+			mImage = render(0, 0, axes.getInternalSize().getW(), axes.getInternalSize().getH());
+		}
+
+		return mImage;
+	}
+
+	/**
+	 * Draw the tiles of the heat map that intersect the clip of a graphics
+	 * context, rendering any that are not cached.
+	 *
+	 * @param g2          the g2
+	 * @param axes        the axes
+	 * @param m           the m
+	 * @param colors      the colors
+	 * @param rowOrder    the row order or null.
+	 * @param columnOrder the column order or null.
+	 * @param epoch       the epoch
+	 */
+	public void drawTiles(Graphics2D g2, Axes axes, DataFrame m, CompiledColorMap colors, int[] rowOrder,
+			int[] columnOrder, long epoch) {
+		update(axes, m, colors, rowOrder, columnOrder, epoch);
+
+		int w = axes.getInternalSize().getW();
+		int h = axes.getInternalSize().getH();
+
+		Rectangle clip = g2.getClipBounds();
+
+		if (clip == null) {
+			clip = new Rectangle(0, 0, w, h);
+		}
+
+		int tx1 = Math.max(0, clip.x / TILE_SIZE);
+		int ty1 = Math.max(0, clip.y / TILE_SIZE);
+		int tx2 = Math.min((w - 1) / TILE_SIZE, (clip.x + clip.width - 1) / TILE_SIZE);
+		int ty2 = Math.min((h - 1) / TILE_SIZE, (clip.y + clip.height - 1) / TILE_SIZE);
+
+		for (int ty = ty1; ty <= ty2; ++ty) {
+			for (int tx = tx1; tx <= tx2; ++tx) {
+				g2.drawImage(getTile(tx, ty, w, h), tx * TILE_SIZE, ty * TILE_SIZE, null);
+			}
+		}
+	}
+
+	/**
+	 * Returns a tile from the cache, rendering it if necessary.
+	 *
+	 * @param tx the tile column
+	 * @param ty the tile row
+	 * @param w  the width of the plot area.
+	 * @param h  the height of the plot area.
+	 * @return the tile
+	 */
+	private BufferedImage getTile(int tx, int ty, int w, int h) {
+		TileKey key = new TileKey(mId, mGeneration, tx, ty);
+
+		synchronized (TILES) {
+			BufferedImage ret = TILES.get(key);
+
+			if (ret != null) {
+				return ret;
+			}
+		}
+
+		int x = tx * TILE_SIZE;
+		int y = ty * TILE_SIZE;
+
+		BufferedImage ret = render(x, y, Math.min(TILE_SIZE, w - x), Math.min(TILE_SIZE, h - y));
+
+		synchronized (TILES) {
+			if (TILES.put(key, ret) == null) {
+				TILE_BYTES += bytes(ret);
+			}
+
+			trimTiles();
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Bring the renderer up to date with a plot before drawing. If only some
+	 * cells have been reported as changed through
+	 * {@code Plot.invalidateCells}, just their pixels are recolored; any
+	 * other change starts a new generation.
+	 *
+	 * @param axes        the axes
+	 * @param plot        the plot
+	 * @param m           the m
+	 * @param colors      the colors
+	 * @param rowOrder    the row order or null.
+	 * @param columnOrder the column order or null.
+	 * @param epoch       an epoch that changes with the layout or the matrix.
+	 */
+	public void update(Axes axes, Plot plot, DataFrame m, CompiledColorMap colors, int[] rowOrder,
+			int[] columnOrder, long epoch) {
+		if (!update(axes, m, colors, rowOrder, columnOrder, epoch)) {
+			List<CellRegion> regions = plot.getInvalidCells(mCellsEpoch);
+
+			if (regions != null) {
+				for (CellRegion r : regions) {
+					invalidateCells(r.getStartRow(), r.getEndRow(), r.getStartCol(), r.getEndCol());
+				}
+			} else {
+				// Another renderer has consumed some of the regions
+				invalidateCells(0, m.getRows(), 0, m.getCols());
+			}
+		}
+
+		mCellsEpoch = plot.getCellsEpoch();
+
+		plot.consumeCells(mCellsEpoch);
+	}
+
+	/**
+	 * Check whether anything that affects the pixels has changed and if so
+	 * start a new generation, discarding the image and this renderer's tiles.
+	 *
+	 * @param axes        the axes
+	 * @param m           the m
+	 * @param colors      the colors
+	 * @param rowOrder    the row order
+	 * @param columnOrder the column order
+	 * @param epoch       the epoch
+	 * @return true if a new generation was started, in which case everything
+	 *         will be redrawn.
+	 */
+	private boolean update(Axes axes, DataFrame m, CompiledColorMap colors, int[] rowOrder, int[] columnOrder,
+			long epoch) {
+		if (mXs != null && colors == mColors && m == mM && rowOrder == mRowOrder && columnOrder == mColumnOrder
+				&& epoch == mEpoch) {
+			return false;
+		}
+
+		removeTiles(mId, 0, 0, Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+		++mGeneration;
+
+		mImage = null;
+		mInverseRowOrder = null;
+		mInverseColumnOrder = null;
+		mColors = colors;
+		mM = m;
+		mRowOrder = rowOrder;
+		mColumnOrder = columnOrder;
+		mEpoch = epoch;
+
+		// Cell boundaries. Display row r spans [ys[r], ys[r + 1]).
+
+		int rows = m.getRows();
+		int cols = m.getCols();
+
+		mXs = new int[cols + 1];
+
+		for (int c = 0; c <= cols; ++c) {
+			mXs[c] = axes.toPlotX1(c);
+		}
+
+		mYs = new int[rows + 1];
+
+		for (int r = 0; r <= rows; ++r) {
+			mYs[r] = axes.toPlotY1(rows - r);
+		}
+
+		mValues = null;
+		mRowGroups = null;
+		mColGroups = null;
+
+		if (mAggregation != CellAggregation.NONE) {
+			// Blocks of cells sharing the same leading pixel
+			int[] rg = AggregatedCells.groups(mYs);
+			int[] cg = AggregatedCells.groups(mXs);
+
+			if (rg != null || cg != null) {
+				if (rg == null) {
+					rg = identity(rows);
+				}
+
+				if (cg == null) {
+					cg = identity(cols);
+				}
+
+				mValues = AggregatedCells.aggregate(m, rowOrder, columnOrder, rg, cg, mAggregation);
+				mValueCols = cg.length - 1;
+				mRowGroups = rg;
+				mColGroups = cg;
+				mYs = select(mYs, rg);
+				mXs = select(mXs, cg);
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Recolor the pixels of a block of matrix cells whose values have changed.
+	 * The whole plot image is updated in place and only the tiles that
+	 * overlap the cells are discarded. Must be called after {@code update}
+	 * for the current generation.
+	 *
+	 * @param startRow the first matrix row
+	 * @param endRow   the end matrix row (exclusive)
+	 * @param startCol the first matrix column
+	 * @param endCol   the end matrix column (exclusive)
+	 */
+	public void invalidateCells(int startRow, int endRow, int startCol, int endCol) {
+		if (mXs == null) {
+			return;
+		}
+
+		startRow = Math.max(0, startRow);
+		endRow = Math.min(mM.getRows(), endRow);
+		startCol = Math.max(0, startCol);
+		endCol = Math.min(mM.getCols(), endCol);
+
+		if (startRow >= endRow || startCol >= endCol) {
+			return;
+		}
+
+		// Display columns. Reordered columns are covered by their span.
+
+		int e1 = startCol;
+		int e2 = endCol;
+
+		if (mColumnOrder != null) {
+			if (mInverseColumnOrder == null) {
+				mInverseColumnOrder = inverse(mColumnOrder);
+			}
+
+			e1 = Integer.MAX_VALUE;
+			e2 = 0;
+
+			for (int c = startCol; c < endCol; ++c) {
+				e1 = Math.min(e1, mInverseColumnOrder[c]);
+				e2 = Math.max(e2, mInverseColumnOrder[c] + 1);
+			}
+		}
+
+		if (mRowOrder == null) {
+			invalidateDisplay(startRow, endRow, e1, e2);
+		} else {
+			// Reordered rows are scattered so each is redrawn on its own
+			if (mInverseRowOrder == null) {
+				mInverseRowOrder = inverse(mRowOrder);
+			}
+
+			for (int r = startRow; r < endRow; ++r) {
+				int d = mInverseRowOrder[r];
+
+				invalidateDisplay(d, d + 1, e1, e2);
+			}
+		}
+	}
+
+	/**
+	 * Recolor the pixels of a block of display cells.
+	 *
+	 * @param d1 the first display row
+	 * @param d2 the end display row
+	 * @param e1 the first display column
+	 * @param e2 the end display column
+	 */
+	private void invalidateDisplay(int d1, int d2, int e1, int e2) {
+		if (mValues != null) {
+			// Reduce the blocks containing the cells again and redraw those
+			int b1 = upperBound(mRowGroups, d1) - 1;
+			int b2 = upperBound(mRowGroups, d2 - 1);
+			int g1 = upperBound(mColGroups, e1) - 1;
+			int g2 = upperBound(mColGroups, e2 - 1);
+
+			for (int b = b1; b < b2; ++b) {
+				for (int g = g1; g < g2; ++g) {
+					mValues[b * mValueCols + g] = AggregatedCells.aggregate(mM, mRowOrder, mColumnOrder,
+							mRowGroups[b], mRowGroups[b + 1], mColGroups[g], mColGroups[g + 1], mAggregation);
+				}
+			}
+
+			d1 = b1;
+			d2 = b2;
+			e1 = g1;
+			e2 = g2;
+		}
+
+		int x1 = mXs[e1];
+		int x2 = Math.max(mXs[e2 - 1] + 1, mXs[e2]);
+		int y1 = mYs[d1];
+		int y2 = Math.max(mYs[d2 - 1] + 1, mYs[d2]);
+
+		if (mImage != null) {
+			int w = mImage.getWidth();
+
+			x1 = Math.max(0, x1);
+			x2 = Math.min(w, x2);
+			y1 = Math.max(0, y1);
+			y2 = Math.min(mImage.getHeight(), y2);
+
+			if (x1 < x2 && y1 < y2) {
+				fillBand(((DataBufferInt) mImage.getRaster().getDataBuffer()).getData(), 0, 0, w, x1, x2, y1, y2);
+			}
+		}
+
+		if (x2 > x1 && y2 > y1) {
+			removeTiles(mId, Math.max(0, x1) / TILE_SIZE, Math.max(0, y1) / TILE_SIZE, (x2 - 1) / TILE_SIZE,
+					(y2 - 1) / TILE_SIZE);
+		}
+	}
+
+	/**
+	 * Render the part of the heat map covering a rectangle of the plot area.
+	 * Large rectangles are filled in parallel bands of pixel rows.
+	 *
+	 * @param x0 the x of the rectangle
+	 * @param y0 the y of the rectangle
+	 * @param w  the w
+	 * @param h  the h
+	 * @return the image
+	 */
+	private BufferedImage render(final int x0, final int y0, int w, int h) {
+		BufferedImage ret = RasterCanvas.createImage(w, h);
+
+		final int[] pixels = ((DataBufferInt) ret.getRaster().getDataBuffer()).getData();
+		final int iw = ret.getWidth();
+
+		ParallelBands.fill(iw, ret.getHeight(), new ParallelBands.Band() {
+			@Override
+			public void fill(int y1, int y2) {
+				fillBand(pixels, x0, y0, iw, 0, iw, y1, y2);
+			}
+		});
+
+		return ret;
+	}
+
+	/**
+	 * Fill the pixel columns [px1, px2) of the rows [by1, by2) of an image
+	 * covering the plot area from (x0, y0). Only those pixels are written so
+	 * bands can be filled concurrently.
+	 *
+	 * @param pixels the pixels of the image.
+	 * @param x0     the x of the image in the plot area.
+	 * @param y0     the y of the image in the plot area.
+	 * @param w      the width of the image.
+	 * @param px1    the first column of the band.
+	 * @param px2    the end column of the band (exclusive).
+	 * @param by1    the first row of the band.
+	 * @param by2    the end row of the band (exclusive).
+	 */
+	private void fillBand(int[] pixels, int x0, int y0, int w, int px1, int px2, int by1, int by2) {
+		int[] xs = mXs;
+		int[] ys = mYs;
+
+		int rows = ys.length - 1;
+		int cols = xs.length - 1;
+
+		// Boundaries only increase so the rows and columns that touch the
+		// band can be found by bisection
+
+		int c1 = Math.max(0, upperBound(xs, x0 + px1) - 2);
+		int c2 = Math.min(cols, upperBound(xs, x0 + px2 - 1));
+
+		int r1 = Math.max(0, upperBound(ys, y0 + by1) - 2);
+		int r2 = Math.min(rows, upperBound(ys, y0 + by2 - 1));
+
+		int[] scan = new int[w];
+
+		for (int r = r1; r < r2; ++r) {
+			int y1 = Math.max(by1, ys[r] - y0);
+			int y2 = Math.min(by2, Math.max(ys[r] + 1, ys[r + 1]) - y0);
+
+			if (y1 >= y2) {
+				continue;
+			}
+
+			// Row r is a block of rows when aggregating
+			int i = mValues == null && mRowOrder != null ? mRowOrder[r] : r;
+
+			int sx1 = w;
+			int sx2 = 0;
+
+			for (int c = c1; c < c2; ++c) {
+				int x1 = Math.max(px1, xs[c] - x0);
+				int x2 = Math.min(px2, Math.max(xs[c] + 1, xs[c + 1]) - x0);
+
+				if (x1 >= x2) {
+					continue;
+				}
+
+				double v = mValues != null ? mValues[r * mValueCols + c]
+						: mM.getValue(i, mColumnOrder != null ? mColumnOrder[c] : c);
+
+				Arrays.fill(scan, x1, x2, mColors.argb(v));
+
+				sx1 = Math.min(sx1, x1);
+				sx2 = Math.max(sx2, x2);
+			}
+
+			if (sx1 >= sx2) {
+				continue;
+			}
+
+			for (int y = y1; y < y2; ++y) {
+				System.arraycopy(scan, sx1, pixels, y * w + sx1, sx2 - sx1);
+			}
+		}
+	}
+
+	/**
+	 * Returns the groups that put each of n cells in its own group.
+	 *
+	 * @param n the n
+	 * @return the groups
+	 */
+	private static int[] identity(int n) {
+		int[] ret = new int[n + 1];
+
+		for (int i = 0; i <= n; ++i) {
+			ret[i] = i;
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Returns the position of each value in an order.
+	 *
+	 * @param order the order
+	 * @return the inverse
+	 */
+	private static int[] inverse(int[] order) {
+		int[] ret = new int[order.length];
+
+		for (int i = 0; i < order.length; ++i) {
+			ret[order[i]] = i;
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Returns the boundaries at the starts of groups.
+	 *
+	 * @param bounds the bounds
+	 * @param groups the groups
+	 * @return the boundaries
+	 */
+	private static int[] select(int[] bounds, int[] groups) {
+		int[] ret = new int[groups.length];
+
+		for (int i = 0; i < groups.length; ++i) {
+			ret[i] = bounds[groups[i]];
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Returns the index of the first boundary greater than a value.
+	 *
+	 * @param a the boundaries in ascending order.
+	 * @param v the v
+	 * @return the index
+	 */
+	private static int upperBound(int[] a, int v) {
+		int lo = 0;
+		int hi = a.length;
+
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+
+			if (a[mid] <= v) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+
+		return lo;
+	}
+
+	/**
+	 * Set the number of bytes of tiles the shared cache may hold.
+	 *
+	 * @param bytes the bytes
+	 */
+	public static void setTileCacheSize(long bytes) {
+		synchronized (TILES) {
+			TILE_CACHE_BYTES = Math.max(0, bytes);
+
+			trimTiles();
+		}
+	}
+
+	public static long getTileCacheSize() {
+		synchronized (TILES) {
+			return TILE_CACHE_BYTES;
+		}
+	}
+
+	/**
+	 * Evict least recently used tiles until the cache is within its budget.
+	 * The caller must hold the lock on the cache.
+	 */
+	private static void trimTiles() {
+		Iterator<Map.Entry<TileKey, BufferedImage>> iter = TILES.entrySet().iterator();
+
+		while (TILE_BYTES > TILE_CACHE_BYTES && iter.hasNext()) {
+			TILE_BYTES -= bytes(iter.next().getValue());
+			iter.remove();
+		}
+	}
+
+	/**
+	 * Remove the tiles of a renderer in a range of tile rows and columns from
+	 * the cache.
+	 *
+	 * @param id  the renderer id
+	 * @param tx1 the first tile column
+	 * @param ty1 the first tile row
+	 * @param tx2 the last tile column (inclusive)
+	 * @param ty2 the last tile row (inclusive)
+	 */
+	private static void removeTiles(long id, int tx1, int ty1, int tx2, int ty2) {
+		synchronized (TILES) {
+			Iterator<Map.Entry<TileKey, BufferedImage>> iter = TILES.entrySet().iterator();
+
+			while (iter.hasNext()) {
+				Map.Entry<TileKey, BufferedImage> e = iter.next();
+
+				TileKey k = e.getKey();
+
+				if (k.mId == id && k.mTx >= tx1 && k.mTx <= tx2 && k.mTy >= ty1 && k.mTy <= ty2) {
+					TILE_BYTES -= bytes(e.getValue());
+					iter.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * The size of an int ARGB image in bytes.
+	 *
+	 * @param image the image
+	 * @return the bytes
+	 */
+	private static long bytes(BufferedImage image) {
+		return 4L * image.getWidth() * image.getHeight();
+	}
+}
@@ -16,13 +16,6 @@
 package org.jebtk.graphplot.figure.heatmap;
 
 import java.awt.Color;
-import java.util.ArrayDeque;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Deque;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 
 import org.jebtk.core.settings.SettingsService;
 import org.jebtk.graphplot.figure.PlotLayer;
@@ -54,14 +47,8 @@ public abstract class HierarchicalTreeLayer extends PlotLayer {
 	 */
 	protected Color mColor;
 
-	/** The m cluster offset map. */
-	protected Map<Cluster, Double> mClusterOffsetMap = new HashMap<Cluster, Double>();
-
-	/** The m cluster dist map. */
-	protected Map<Cluster, Double> mClusterDistMap = new HashMap<Cluster, Double>();
-
-	/** The m parents. */
-	protected List<Cluster> mParents = new ArrayList<Cluster>();
+	/** The layout of the tree or null if there is no tree. */
+	protected DendrogramGeometry mTree;
 
 	/**
 	 * Instantiates a new row hierarchical tree layer.
@@ -92,52 +79,6 @@ public abstract class HierarchicalTreeLayer extends PlotLayer {
 			return;
 		}
 
-		Deque<Cluster> stack = new ArrayDeque<Cluster>();
-
-		stack.push(mRootCluster);
-
-		double x = 0;
-
-		while (!stack.isEmpty()) {
-			Cluster cluster = stack.pop();
-
-			double d = cluster.getLevel() / mRootCluster.getLevel();
-
-			mClusterDistMap.put(cluster, d);
-
-			if (cluster.isParent()) {
-				mParents.add(cluster);
-
-				stack.push(cluster.getChild2());
-				stack.push(cluster.getChild1());
-
-				mClusterOffsetMap.put(cluster, -1.0);
-			} else {
-				// Since we encounter the leaf clusters in the order
-				// they appear in the tree, we can store their
-				// x position in order
-				mClusterOffsetMap.put(cluster, x++);
-			}
-		}
-
-		// The list must be reversed so that parents closest to the leaves
-		// are updated first so that branches further up the tree get the
-		// corrected offsets rather than -1
-		Collections.reverse(mParents);
-
-		for (Cluster cluster : mParents) {
-
-			Cluster c1 = cluster.getChild1();
-			Cluster c2 = cluster.getChild2();
-
-			double x1 = mClusterOffsetMap.get(c1);
-			double x2 = mClusterOffsetMap.get(c2);
-
-			double midX = (x1 + x2) / 2.0;
-
-			// Update the mid point of this cluster
-
-			mClusterOffsetMap.put(cluster, midX);
-		}
+		mTree = new DendrogramGeometry(mRootCluster);
 	}
 }
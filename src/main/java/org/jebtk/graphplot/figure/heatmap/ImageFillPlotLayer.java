@@ -15,26 +15,21 @@
  */
 package org.jebtk.graphplot.figure.heatmap;
 
-import java.awt.Color;
 import java.awt.Graphics2D;
-import java.util.List;
+import java.awt.image.BufferedImage;
 
-import org.jebtk.core.collections.DefaultHashMap;
-import org.jebtk.core.collections.HashMapCreator;
-import org.jebtk.core.collections.IterMap;
-import org.jebtk.core.collections.UniqueArrayList;
-import org.jebtk.core.sys.SysUtils;
 import org.jebtk.graphplot.figure.Axes;
 import org.jebtk.graphplot.figure.Figure;
 import org.jebtk.graphplot.figure.Plot;
 import org.jebtk.graphplot.figure.PlotClippedLayer;
+import org.jebtk.graphplot.figure.RasterCanvas;
 import org.jebtk.graphplot.figure.SubFigure;
 import org.jebtk.math.matrix.DataFrame;
 import org.jebtk.modern.graphics.DrawingContext;
-import org.jebtk.modern.graphics.colormap.ColorMap;
 
 /**
- * The class HeatMapFillPlotLayer.
+ * Draws a matrix as an image, one cell per value, through the shared
+ * {@code HeatMapRaster}.
  */
 public class ImageFillPlotLayer extends PlotClippedLayer {
 
@@ -43,24 +38,8 @@ public class ImageFillPlotLayer extends PlotClippedLayer {
 	 */
 	private static final long serialVersionUID = 1L;
 
-	/** The m X. */
-	protected List<Integer> mX = null;
-
-	/** The m Y. */
-	protected List<Integer> mY = null;
-
-	/** The m colors map. */
-	protected IterMap<Integer, IterMap<Integer, Color>> mColorsMap = DefaultHashMap
-			.create(new HashMapCreator<Integer, Color>());
-
-	/** The m color map. */
-	protected ColorMap mColorMap = null;
-
-	/** The m M. */
-	protected DataFrame mM;
-
-	/** The m hash id. */
-	protected String mHashId;
+	/** Renders the matrix as one image. */
+	private final HeatMapRaster mRaster = new HeatMapRaster();
 
 	public ImageFillPlotLayer() {
 		setRasterMode(true);
@@ -85,107 +64,31 @@ public class ImageFillPlotLayer extends PlotClippedLayer {
 	@Override
 	public void plotLayer(Graphics2D g2, DrawingContext context, Figure figure, SubFigure subFigure, Axes axes,
 			Plot plot, DataFrame m) {
+		g2.drawImage(getImage(axes, plot, m), 0, 0, null);
+	}
 
-		// int h = Math.max(1, axes.toPlotY1(0) - axes.toPlotY1(1));
-
-		cache(context, figure, subFigure, axes, plot, m);
-
-		for (int i = 0; i < mY.size() - 1; ++i) {
-			SysUtils.err().println("imgage i", i);
-
-			int y1 = mY.get(i);
-			int y2 = mY.get(i + 1);
-
-			int h = y1 - y2;
-
-			for (int j = 0; j < mX.size() - 1; ++j) {
-				int x = mX.get(j);
-
-				int w = Math.max(2, mX.get(j + 1) - x);
-
-				Color c = mColorsMap.get(x).get(y1);
-
-				g2.setColor(c);
-
-				// SysUtils.err().println("imgage fill", x, y1, w, h, c);
+	@Override
+	public boolean rasterLayer(RasterCanvas canvas, DrawingContext context, Figure figure, SubFigure subFigure,
+			Axes axes, Plot plot, DataFrame m) {
+		canvas.drawImage(getImage(axes, plot, m), 0, 0);
 
-				g2.fillRect(x, y2, w, h);
-			}
-		}
+		return true;
 	}
 
 	/**
-	 * Cache.
+	 * Returns the matrix rendered as an image the size of the plot area.
 	 *
-	 * @param context   the context
-	 * @param subFigure the sub figure
-	 * @param axes      the axes
-	 * @param plot      the plot
-	 * @param m         the m
-	 * @param x1        the x 1
-	 * @param y1        the y 1
-	 * @param w         the w
-	 * @param h         the h
+	 * @param axes the axes
+	 * @param plot the plot
+	 * @param m    the m
+	 * @return the image
 	 */
-	protected void cache(DrawingContext context, Figure figure, SubFigure subFigure, Axes axes, Plot plot,
-			DataFrame m) {
-
-		System.err.println("wtf " + m.getShape());
-
-		if (mHashId == null || !mHashId.equals(subFigure.hashId())) {
-			mX = new UniqueArrayList<Integer>(m.getCols());
-			mY = new UniqueArrayList<Integer>(m.getRows());
-
-			for (int i = 0; i < m.getCols(); ++i) {
-				int x = axes.toPlotX1(i);
-
-				mX.add(x);
-
-				System.err.println("img " + x + " " + i);
-			}
-
-			mX.add(axes.toPlotX1(m.getCols()));
-
-			for (int i = 0; i < m.getRows(); ++i) {
-				int y = axes.toPlotY1(m.getRows() - i - 1);
-
-				mY.add(y);
-			}
-
-			mY.add(axes.toPlotY1(m.getRows()));
-		}
-
-		// Monitor for changes in the color plot and the normalization method
-		// which will cause the matrix to change
-
-		if (mColorMap == null || !plot.getColorMap().equals(mColorMap) || mM == null || !m.equals(mM) || mHashId == null
-				|| !mHashId.equals(subFigure.hashId())) {
-
-			mColorsMap.clear();
-
-			for (int i = 0; i < m.getRows(); ++i) {
-				int y = axes.toPlotY1(m.getRows() - i - 1);
-
-				for (int j = 0; j < m.getCols(); ++j) {
-					int x = axes.toPlotX1(j);
-
-					if (mColorsMap.get(x).containsKey(y)) {
-						continue;
-					}
-
-					double v = m.getValue(i, j);
-
-					SysUtils.err().println("norm", i, j, v, plot.getNorm().norm(v));
-
-					Color c = plot.getColorMap().getColor(plot.getNorm().norm(v));
+	private BufferedImage getImage(Axes axes, Plot plot, DataFrame m) {
+		CompiledColorMap colors = CompiledColorMap.get(plot.getColorMap(), plot.getNorm());
+		long epoch = getCacheEpoch(axes, plot);
 
-					mColorsMap.get(x).put(y, c);
-				}
-			}
-		}
+		mRaster.update(axes, plot, m, colors, null, null, epoch);
 
-		mColorMap = plot.getColorMap();
-		mM = m;
-		mHashId = subFigure.hashId();
+		return mRaster.getImage(axes, m, colors, null, null, epoch);
 	}
 }
@@ -0,0 +1,172 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.graphplot.figure.heatmap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Splits the rows of a pixel buffer into disjoint bands and fills them
+ * concurrently. Each band writes only its own rows so no locking is needed,
+ * and the caller composites the finished buffer once. Small buffers are
+ * filled on the calling thread.
+ *
+ * @author Antony Holmes
+ *
+ */
+public class ParallelBands {
+
+	/**
+	 * Buffers with fewer pixels, or that read fewer values, than this are
+	 * filled on the calling thread.
+	 */
+	public static final int PARALLEL_PIXELS = 1 << 18;
+
+	/**
+	 * Bands are at least this many rows so that tasks are not too small.
+	 */
+	public static final int MIN_BAND_ROWS = 16;
+
+	/**
+	 * Fills a band of rows.
+	 */
+	public interface Band {
+
+		/**
+		 * Fill the rows [y1, y2). Must only write pixels in those rows.
+		 *
+		 * @param y1 the first row
+		 * @param y2 the end row (exclusive)
+		 */
+		void fill(int y1, int y2);
+	}
+
+	/** Runs the bands. */
+	private static ExecutorService EXECUTOR = ForkJoinPool.commonPool();
+
+	/** The number of bands to aim for. */
+	private static int PARALLELISM = ForkJoinPool.getCommonPoolParallelism();
+
+	/**
+	 * Instantiates a new parallel bands.
+	 */
+	private ParallelBands() {
+		// Do nothing
+	}
+
+	/**
+	 * Set the executor used to fill bands, for example a dedicated pool on a
+	 * server, and how many bands to split a buffer into. A parallelism of 1
+	 * fills every buffer on the calling thread.
+	 *
+	 * @param executor    the executor
+	 * @param parallelism the parallelism
+	 */
+	public static synchronized void setExecutor(ExecutorService executor, int parallelism) {
+		EXECUTOR = executor;
+		PARALLELISM = Math.max(1, parallelism);
+	}
+
+	/**
+	 * Fill the rows [0, h) of a buffer w pixels wide, in parallel if it is
+	 * large enough.
+	 *
+	 * @param w    the width of the buffer.
+	 * @param h    the height of the buffer.
+	 * @param band the band
+	 */
+	public static void fill(int w, int h, final Band band) {
+		fill((long) w * h, h, band);
+	}
+
+	/**
+	 * Fill the rows [0, h) of a buffer, in parallel if filling it reads
+	 * enough values. For example, a row of aggregated blocks reads every
+	 * cell in the blocks, which can be far more than its width.
+	 *
+	 * @param work the number of values read to fill the whole buffer.
+	 * @param h    the height of the buffer.
+	 * @param band the band
+	 */
+	public static void fill(long work, int h, final Band band) {
+		ExecutorService executor;
+		int parallelism;
+
+		synchronized (ParallelBands.class) {
+			executor = EXECUTOR;
+			parallelism = PARALLELISM;
+		}
+
+		int bands = Math.min(parallelism, h / MIN_BAND_ROWS);
+
+		if (bands < 2 || work < PARALLEL_PIXELS) {
+			band.fill(0, h);
+			return;
+		}
+
+		int size = (h + bands - 1) / bands;
+
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(bands);
+
+		for (int i = 0; i < bands; ++i) {
+			final int y1 = i * size;
+			final int y2 = Math.min(h, y1 + size);
+
+			tasks.add(new Callable<Object>() {
+				@Override
+				public Object call() {
+					band.fill(y1, y2);
+
+					return null;
+				}
+			});
+		}
+
+		try {
+			for (Future<Object> f : executor.invokeAll(tasks)) {
+				f.get();
+			}
+		} catch (InterruptedException e) {
+			// Keep the interrupt for the caller and fill on this thread.
+			// Bands are idempotent so any that completed are simply redrawn.
+			Thread.currentThread().interrupt();
+
+			band.fill(0, h);
+		} catch (RejectedExecutionException e) {
+			// The executor has been shut down
+			band.fill(0, h);
+		} catch (ExecutionException e) {
+			// Bands throw no checked exceptions so pass on what went wrong
+			Throwable cause = e.getCause();
+
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+
+			throw new IllegalStateException(cause);
+		}
+	}
+}
@@ -72,53 +72,20 @@ public class RowHierarchicalTreeLayer extends HierarchicalTreeLayer {
 	public void plot(Graphics2D g2, Dimension offset, DrawingContext context, Props params) {
 		Axes axes = (Axes) params.get("axes");
 
-		g2.setColor(mColor);
-
-		int w = axes.toPlotY1(0) - axes.toPlotY1(1);
-		int h = axes.getMargins().getLeft() - GAP;
-
-		int x1;
-		int x2;
-		int y1;
-		int y2;
-		double s1;
-		double s2;
-
-		int o = w / 2;
-
-		// process all the parents
-		for (Cluster cluster : mParents) {
-
-			// a pair
-			// Cluster cluster = parentStack.pop();
-			Cluster c1 = cluster.getChild1();
-			Cluster c2 = cluster.getChild2();
-
-			y1 = (int) (mClusterOffsetMap.get(c1.getId()) * w + o);
-			y2 = (int) (mClusterOffsetMap.get(c2.getId()) * w + o);
-
-			// now do some drawing
-
-			s1 = mClusterDistMap.get(cluster);
-
-			x1 = h - (int) (s1 * h);
-
-			// vertial line
-			g2.drawLine(x1, y1, x1, y2);
-
-			// horizontal lines
-
-			s2 = mClusterDistMap.get(c1);
-
-			x2 = h - (int) (s2 * h) - 1;
+		if (mTree == null) {
+			return;
+		}
 
-			g2.drawLine(x1, y1, x2, y1);
+		g2.setColor(mColor);
 
-			s2 = mClusterDistMap.get(c2);
+		// The pitch of the leaves is kept fractional so that the tree can
+		// collapse when there are more leaves than pixels
+		int n = Math.max(1, mTree.getLeafCount());
 
-			x2 = h - (int) (s2 * h) - 1;
+		double w = (axes.toPlotY1(0) - axes.toPlotY1(n)) / (double) n;
+		int h = axes.getMargins().getLeft() - GAP;
 
-			g2.drawLine(x1, y2, x2, y2);
-		}
+		// Leaves run down the plot with the root on the left
+		g2.draw(mTree.getPath(true, w / 2, w, h - 1, 0));
 	}
 }
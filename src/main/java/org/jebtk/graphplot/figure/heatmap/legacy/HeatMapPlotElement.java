@@ -20,12 +20,21 @@ import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.jebtk.core.Mathematics;
 import org.jebtk.core.Props;
 import org.jebtk.core.geom.DoubleDim;
+import org.jebtk.core.geom.IntDim;
+import org.jebtk.graphplot.figure.RasterCanvas;
+import org.jebtk.graphplot.figure.heatmap.AggregatedCells;
+import org.jebtk.graphplot.figure.heatmap.CellAggregation;
+import org.jebtk.graphplot.figure.heatmap.CompiledColorMap;
+import org.jebtk.graphplot.figure.heatmap.HeatMapExport;
+import org.jebtk.graphplot.figure.heatmap.ParallelBands;
 import org.jebtk.math.matrix.DataFrame;
 import org.jebtk.modern.ModernWidget;
 import org.jebtk.modern.graphics.DrawingContext;
@@ -57,12 +66,27 @@ public class HeatMapPlotElement extends MatrixPlotElement {
 	 */
 	private Color mOutline = null;
 
+	/** Heat maps with more cells are exported as an image. */
+	private int mMaxVectorCells = HeatMapExport.DEFAULT_MAX_VECTOR_CELLS;
+
 	/** The m cell image cache. */
 	private Map<Color, BufferedImage> mCellImageCache = new HashMap<Color, BufferedImage>();
 
+	/** Invalid cells are left transparent when rendering the cells. */
+	private static final Color INVALID_COLOR = new Color(0, 0, 0, 0);
+
 	/** The m blank image. */
 	private BufferedImage mBlankImage;
 
+	/** How blocks of cells are reduced when cells are smaller than a pixel. */
+	private CellAggregation mAggregation = CellAggregation.NONE;
+
+	/** The aggregated cells, row by row, for the current block size. */
+	private double[] mAggValues = null;
+
+	/** The ratio the aggregated cells were computed for. */
+	private IntDim mAggRatio = null;
+
 	private Color mGridRowColor;
 
 	private Color mGridColColor;
@@ -93,6 +117,19 @@ public class HeatMapPlotElement extends MatrixPlotElement {
 		mColorMap = colorMap;
 	}
 
+	/**
+	 * Set how the cells that fall on one drawn cell are reduced when the
+	 * block size is smaller than a pixel. With {@code CellAggregation.NONE}
+	 * the nearest cell is sampled.
+	 *
+	 * @param aggregation the new aggregation
+	 */
+	public void setAggregation(CellAggregation aggregation) {
+		mAggregation = aggregation;
+		mAggValues = null;
+		mAggRatio = null;
+	}
+
 	/**
 	 * Sets the grid color.
 	 * 
@@ -129,6 +166,16 @@ public class HeatMapPlotElement extends MatrixPlotElement {
 		mOutline = color;
 	}
 
+	/**
+	 * Sets the largest number of cells that are exported to vector formats as
+	 * rectangles. Larger heat maps are embedded as a single image.
+	 *
+	 * @param cells the new max vector cells
+	 */
+	public void setMaxVectorCells(int cells) {
+		mMaxVectorCells = cells;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -162,6 +209,8 @@ public class HeatMapPlotElement extends MatrixPlotElement {
 	 * @param context the context
 	 */
 	protected void drawMatrix(Graphics2D g2, DrawingContext context) {
+		aggregate();
+
 		int y = 0;
 
 		// System.err.println("create matrix " + matrix.getRowCount() + " " +
@@ -169,19 +218,18 @@ public class HeatMapPlotElement extends MatrixPlotElement {
 		int w = mBlockSize.getW();
 		int h = mBlockSize.getH();
 
+		CompiledColorMap colors = CompiledColorMap.get(mColorMap);
+
 		if (context == DrawingContext.UI) {
+			// Invalid cells are left transparent in the image and marked
+			// afterwards
+			g2.drawImage(renderMatrix(CompiledColorMap.get(mColorMap, null, INVALID_COLOR), w, h), 0, 0, null);
+
 			for (int i = 0; i < mDrawingDim.mRows; ++i) {
 				int x = 0;
 
 				for (int j = 0; j < mDrawingDim.mCols; ++j) {
-					double v = getValue(i, j);
-
-					// System.err.println("hmm " + i + " " + j + " " + mMatrix.getText(i,
-					// j) + " " + mMatrix.getValue(i, j) + " " + x + " " + y + " " + mBlockSize);
-
-					if (Mathematics.isValidNumber(v)) {
-						g2.drawImage(cacheCell(mColorMap.getColor(v)), x, y, null);
-					} else {
+					if (!Mathematics.isValidNumber(getValue(i, j))) {
 						g2.drawImage(cacheBlankCell(), x, y, null);
 					}
 
@@ -190,31 +238,152 @@ public class HeatMapPlotElement extends MatrixPlotElement {
 
 				y += h;
 			}
+		} else if (!HeatMapExport.isVector(mDrawingDim.mRows, mDrawingDim.mCols, mMaxVectorCells)) {
+			// Embed one pixel per cell, scaled up, rather than writing a
+			// rectangle per cell
+			g2.drawImage(renderMatrix(CompiledColorMap.get(mColorMap, null, INVALID_COLOR), 1, 1), 0, 0,
+					mDrawingDim.mCols * w, mDrawingDim.mRows * h, null);
+
+			drawInvalid(g2);
 		} else {
-			for (int i = 0; i < mDrawingDim.mRows; ++i) {
-				int x = 0;
+			int[] xs = new int[mDrawingDim.mCols];
+			Color[] rowColors = new Color[mDrawingDim.mCols];
 
-				for (int j = 0; j < mDrawingDim.mCols; ++j) {
+			for (int j = 0; j < mDrawingDim.mCols; ++j) {
+				xs[j] = j * w;
+			}
 
+			for (int i = 0; i < mDrawingDim.mRows; ++i) {
+				for (int j = 0; j < mDrawingDim.mCols; ++j) {
 					double v = getValue(i, j);
 
-					if (Mathematics.isValidNumber(v)) {
-						g2.setColor(mColorMap.getColor(v));
-						g2.fillRect(x, y, w, h);
-					} else {
-						g2.setColor(ModernWidget.DARK_LINE_COLOR);
-						g2.drawLine(x, y + h, x + w, y);
-					}
-
-					x += w;
+					rowColors[j] = Mathematics.isValidNumber(v) ? colors.color(v) : null;
 				}
 
+				HeatMapExport.fillRuns(g2, xs, rowColors, mDrawingDim.mCols, w, y, h);
+
 				y += h;
 			}
+
+			drawInvalid(g2);
 		}
 	}
 
+	/**
+	 * Mark cells with invalid values, such as NaN, with a diagonal line.
+	 *
+	 * @param g2 the g2
+	 */
+	private void drawInvalid(Graphics2D g2) {
+		int w = mBlockSize.getW();
+		int h = mBlockSize.getH();
+
+		g2.setColor(ModernWidget.DARK_LINE_COLOR);
+
+		int y = 0;
+
+		for (int i = 0; i < mDrawingDim.mRows; ++i) {
+			int x = 0;
+
+			for (int j = 0; j < mDrawingDim.mCols; ++j) {
+				if (!Mathematics.isValidNumber(getValue(i, j))) {
+					g2.drawLine(x, y + h, x + w, y);
+				}
+
+				x += w;
+			}
+
+			y += h;
+		}
+	}
+
+	/**
+	 * Render the cells into one image, filling bands of rows in parallel.
+	 *
+	 * @param colors the colors
+	 * @param w      the width of a cell in pixels.
+	 * @param h      the height of a cell in pixels.
+	 * @return the buffered image
+	 */
+	private BufferedImage renderMatrix(final CompiledColorMap colors, final int w, final int h) {
+		final int rows = mDrawingDim.mRows;
+		final int cols = mDrawingDim.mCols;
+
+		BufferedImage ret = RasterCanvas.createImage(cols * w, rows * h);
+
+		final int[] pixels = ((DataBufferInt) ret.getRaster().getDataBuffer()).getData();
+		final int iw = ret.getWidth();
+
+		ParallelBands.fill(iw, ret.getHeight(), new ParallelBands.Band() {
+			@Override
+			public void fill(int y1, int y2) {
+				int[] scan = new int[iw];
+
+				for (int i = y1 / h; i < rows && i * h < y2; ++i) {
+					for (int j = 0; j < cols; ++j) {
+						Arrays.fill(scan, j * w, (j + 1) * w, colors.argb(getValue(i, j)));
+					}
+
+					int end = Math.min(y2, (i + 1) * h);
+
+					for (int y = Math.max(y1, i * h); y < end; ++y) {
+						System.arraycopy(scan, 0, pixels, y * iw, cols * w);
+					}
+				}
+			}
+		});
+
+		return ret;
+	}
+
+	/**
+	 * Reduce each block of cells that falls on one drawn cell, if cells are
+	 * smaller than a pixel and an aggregation is set. The result is kept until
+	 * the block size changes.
+	 */
+	private void aggregate() {
+		if (mAggregation == CellAggregation.NONE || (!mScaleYMode && !mScaleXMode)) {
+			mAggValues = null;
+			return;
+		}
+
+		if (mAggValues != null && mAggRatio == mRatio) {
+			return;
+		}
+
+		mAggValues = AggregatedCells.aggregate(mMatrix, null, null,
+				starts(mMatrix.getRows(), mDrawingDim.mRows, mScaleYMode ? mRatio.h : 0),
+				starts(mMatrix.getCols(), mDrawingDim.mCols, mScaleXMode ? mRatio.w : 0), mAggregation);
+
+		mAggRatio = mRatio;
+	}
+
+	/**
+	 * Returns the first matrix cell of each drawn cell, followed by the end.
+	 *
+	 * @param n     the number of matrix cells.
+	 * @param drawn the number of drawn cells.
+	 * @param ratio the fixed point ratio of matrix to drawn cells, or 0 if
+	 *              they are the same.
+	 * @return the starts
+	 */
+	private static int[] starts(int n, int drawn, int ratio) {
+		int[] ret = new int[drawn + 1];
+
+		for (int i = 0; i < drawn; ++i) {
+			ret[i] = ratio > 0 ? Math.min(n, (int) (((long) i * ratio) >> 16)) : i;
+		}
+
+		ret[drawn] = n;
+
+		return ret;
+	}
+
 	private double getValue(int i, int j) {
+		if (mAggValues != null) {
+			return mAggValues[i * mDrawingDim.mCols + j];
+		}
+
 		if (mScaleYMode) {
 			i = (i * mRatio.h) >> 16;
 		}
@@ -315,21 +484,24 @@ public class HeatMapPlotElement extends MatrixPlotElement {
 
 		g2.setColor(mOutline);
 
-		int y = 0;
-
 		int w = mBlockSize.getW();
 		int h = mBlockSize.getH();
 
-		for (int i = 0; i < mDrawingDim.mRows; ++i) {
-			int x = 0;
+		int width = mDrawingDim.mCols * w;
+		int height = mDrawingDim.mRows * h;
 
-			for (int j = 0; j < mDrawingDim.mCols; ++j) {
-				g2.drawRect(x, y, w, h);
+		if (width == 0 || height == 0) {
+			return;
+		}
 
-				x += w;
-			}
+		// The outlines of the cells form a grid so draw one line per row and
+		// column boundary rather than a rectangle per cell
+		for (int i = 0; i <= mDrawingDim.mRows; ++i) {
+			g2.drawLine(0, i * h, width, i * h);
+		}
 
-			y += h;
+		for (int j = 0; j <= mDrawingDim.mCols; ++j) {
+			g2.drawLine(j * w, 0, j * w, height);
 		}
 	}
 
@@ -107,6 +107,7 @@ public abstract class MatrixPlotElement extends PlotElement {
 
 			yRatio = (int) ((r << 16) / rows) + 1;
 		} else {
+			mScaleYMode = false;
 			rows = getMatrix().getRows();
 			yRatio = 1;
 		}
@@ -121,6 +122,7 @@ public abstract class MatrixPlotElement extends PlotElement {
 
 			xRatio = (int) ((c << 16) / cols) + 1;
 		} else {
+			mScaleXMode = false;
 			cols = getMatrix().getCols();
 			xRatio = 1;
 		}
@@ -130,6 +132,34 @@ public abstract class MatrixPlotElement extends PlotElement {
 		mBlockSize = new IntDim((int) Math.max(1, dim.getW()), (int) Math.max(1, dim.getH()));
 	}
 
+	/**
+	 * Returns the height of a matrix row in pixels. When the rows are scaled
+	 * to fit this is fractional, unlike the block size.
+	 *
+	 * @return the row pitch
+	 */
+	protected double getRowPitch() {
+		if (mScaleYMode) {
+			return mDrawingDim.mRows / (double) Math.max(1, getMatrix().getRows());
+		}
+
+		return mBlockSize.getH();
+	}
+
+	/**
+	 * Returns the width of a matrix column in pixels. When the columns are
+	 * scaled to fit this is fractional, unlike the block size.
+	 *
+	 * @return the column pitch
+	 */
+	protected double getColumnPitch() {
+		if (mScaleXMode) {
+			return mDrawingDim.mCols / (double) Math.max(1, getMatrix().getCols());
+		}
+
+		return mBlockSize.getW();
+	}
+
 	/*
 	 * public void setCanvasSize(Dimension size) { blockSize.width = Math.max(1,
 	 * (int)(size.width / matrix.getColumnCount())); blockSize.height = Math.max(1,
@@ -16,14 +16,15 @@
 package org.jebtk.graphplot.figure.heatmap.legacy;
 
 import java.awt.Dimension;
+import java.awt.Font;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 import org.jebtk.core.Mathematics;
 import org.jebtk.core.Props;
-import org.jebtk.core.collections.CollectionUtils;
 import org.jebtk.core.geom.DoubleDim;
 import org.jebtk.core.settings.SettingsService;
 import org.jebtk.core.text.Formatter;
@@ -62,9 +63,33 @@ public class RowLabelsPlotElement extends RowMatrixPlotElement {
 	 */
 	private RowLabelProps mProps;
 
-	/** The m labels. */
+	/**
+	 * The labels of each displayed row. Numbers are formatted when the
+	 * widths are measured and text the first time the row is drawn.
+	 */
 	private String[][] mLabels;
 
+	/** The matrix row shown in each displayed row, or null. */
+	private final int[] mRowOrder;
+
+	/** The annotations to show. */
+	private String[] mNames;
+
+	/**
+	 * Whether each annotation appears to be an id, which should not be
+	 * formatted with commas or periods.
+	 */
+	private boolean[] mIds;
+
+	/** The font the advances were measured with. */
+	private Font mFont;
+
+	/** The advance width of each label in the current font, or null. */
+	private int[][] mAdvances;
+
+	/** The advance width of each title in the current font. */
+	private int[] mTitleAdvances;
+
 	/** The m widths. */
 	private int[] mWidths;
 
@@ -87,118 +112,61 @@ public class RowLabelsPlotElement extends RowMatrixPlotElement {
 	 * @param charWidth   the char width
 	 */
 	public RowLabelsPlotElement(DataFrame matrix, RowLabelProps properties, DoubleDim aspectRatio, int charWidth) {
+		this(matrix, null, properties, aspectRatio, charWidth);
+	}
+
+	/**
+	 * Instantiates a new row labels plot element showing the rows in a given
+	 * order.
+	 *
+	 * @param matrix      the matrix
+	 * @param rowOrder    the matrix row shown in each displayed row, or null
+	 *                    for the matrix order.
+	 * @param properties  the properties
+	 * @param aspectRatio the aspect ratio
+	 * @param charWidth   the char width
+	 */
+	protected RowLabelsPlotElement(DataFrame matrix, int[] rowOrder, RowLabelProps properties, DoubleDim aspectRatio,
+			int charWidth) {
 		super(matrix, aspectRatio, -1);
 
-		// mTitle = title;
 		mProps = properties;
 		mCharWidth = charWidth;
+		mRowOrder = rowOrder != null && rowOrder.length == matrix.getRows() ? rowOrder : null;
 
-		// List<String> labels = new ArrayList<String>(matrix.getRowCount());
-
-		String[][] labels = new String[matrix.getRows()][properties.showAnnotations.getVisibleCount()];
-
-		List<String> types = CollectionUtils.replicate("string", properties.showAnnotations.getVisibleCount());
+		mNames = new String[properties.showAnnotations.getVisibleCount()];
+		mIds = new boolean[mNames.length];
 
 		List<String> names = matrix.getIndex().getNames();
-		// List<String> lnames = TextUtils.toLowerCase(names);
 
 		Map<String, String> lnames = TextUtils.toLowerCaseMap(names);
 
-		for (int r = 0; r < matrix.getRows(); ++r) {
-			int c = 0;
-
-			for (int i = 0; i < names.size(); ++i) {
-				String name = names.get(i);
-
-				if (properties.showAnnotations.isVisible(name)) {
-					Matrix annMatrix = matrix.getIndex().getAnnotation(name);
-
-					// double v = annMatrix.getValue(r, 0);
-					// matrix.getIndex().getAnnotationValue(name, r);
-
-					// System.err.println("i " + i + " " + name + " " + r + " " +
-					// matrix.getIndex().getText(name, r) + " " + annMatrix.getCellType(0, r));
-
-					// System.err.println("sdfsdfsdf " + annMatrix.getClass() + " " +
-					// annMatrix.getType());
-
-					if (annMatrix.getCellType(0, r) == CellType.NUMBER) { // Matrix.isValidMatrixNum(v)) {
-
-						double v = annMatrix.getValue(0, r);
-
-						types.set(c, "number");
-
-						if (Mathematics.isInt(v)) {
-							String ln = lnames.get(name);
+		int c = 0;
 
-							int vi = (int) v;
+		for (String name : names) {
+			if (properties.showAnnotations.isVisible(name)) {
+				String ln = lnames.get(name);
 
-							if (ln.contains("entrez") || ln.contains("id")) {
-								// items that appear to be ids, should not
-								// be formatted with commas or periods.
-								labels[r][c] = Integer.toString(vi);
-							} else {
-								labels[r][c] = Formatter.number().format(vi);
-							}
-						} else {
-							labels[r][c] = Formatter.number().format(v);
-						}
-					} else {
-						labels[r][c] = matrix.getIndex().getText(name, r);
-					}
+				mNames[c] = name;
+				mIds[c] = ln.contains("entrez") || ln.contains("id");
 
-					++c;
-				}
+				++c;
 			}
-
-			/*
-			 * List<String> annotations = new ArrayList<String>();
-			 * 
-			 * if (properties.showAnnotations.get(matrix.getIndex().getNames().get(0))) {
-			 * text.append(matrix.getRowName(r)); }
-			 * 
-			 * 
-			 * 
-			 * for (int i = 1; i < matrix.getIndex().getNames().size(); ++i) { String name =
-			 * matrix.getIndex().getNames().get(i);
-			 * 
-			 * if (properties.showAnnotations.get(name)) {
-			 * extra.add(matrix.getIndex().getText(name, i)); } }
-			 * 
-			 * if (extra.size() > 0) {
-			 * text.append(" (").append(TextUtils.commaJoin(extra)).append(")"); }
-			 */
-
-			/*
-			 * for (int i = 0; i < matrix.getIndex().getNames().size(); ++i) { String name =
-			 * matrix.getIndex().getNames().get(i);
-			 * 
-			 * if (properties.showAnnotations != null &&
-			 * properties.showAnnotations.containsKey(name) &&
-			 * properties.showAnnotations.get(name)) {
-			 * 
-			 * double v = matrix.getIndex().getAnnotationValue(name, r);
-			 * 
-			 * if (Matrix.isValidMatrixNum(v)) {
-			 * annotations.add(Formatter.number().format(v)); } else {
-			 * annotations.add(matrix.getIndex().getText(name, r)); } } }
-			 * 
-			 * labels.add(Join.on(", ").values(annotations).toString());
-			 */
-
-			// labels.add(getLabel(matrix, r, properties));
 		}
 
-		setLabels(labels);
+		// Labels are formatted as they are needed
+		setLabels(new String[matrix.getRows()][]);
 	}
 
 	/**
-	 * Sets the labels.
+	 * Sets the labels. Rows, or labels within them, that are null are
+	 * formatted from the matrix annotations as they are needed.
 	 *
 	 * @param labels the new labels
 	 */
 	public void setLabels(String[][] labels) {
 		mLabels = labels;
+		mFont = null;
 
 		mTitles = new String[mProps.showAnnotations.getVisibleCount()];
 
@@ -214,14 +182,35 @@ public class RowLabelsPlotElement extends RowMatrixPlotElement {
 			}
 		}
 
-		// Find the max width of each column
-		mWidths = Mathematics.zerosIntArray(mLabels[0].length);
+		// Find the max width of each column. Text annotations are measured
+		// directly since they are drawn as they are. Numbers have to be
+		// formatted to be measured, so their labels are kept and each is only
+		// formatted once.
+		mWidths = Mathematics.zerosIntArray(mTitles.length);
 
 		for (int i = 0; i < mWidths.length; ++i) {
 			mWidths[i] = mTitles[i].length();
+		}
+
+		for (int j = 0; j < mLabels.length; ++j) {
+			for (int i = 0; i < mWidths.length; ++i) {
+				int length;
 
-			for (int j = 0; j < mLabels.length; ++j) {
-				mWidths[i] = Math.max(mWidths[i], mLabels[j][i].length());
+				if (mLabels[j] != null && mLabels[j][i] != null) {
+					length = mLabels[j][i].length();
+				} else if (isNumber(j, i)) {
+					if (mLabels[j] == null) {
+						mLabels[j] = new String[mWidths.length];
+					}
+
+					mLabels[j][i] = format(j, i);
+
+					length = mLabels[j][i].length();
+				} else {
+					length = getText(j, i).length();
+				}
+
+				mWidths[i] = Math.max(mWidths[i], length);
 			}
 		}
 
@@ -236,6 +225,89 @@ public class RowLabelsPlotElement extends RowMatrixPlotElement {
 		setWidth(mCharWidth * width);
 	}
 
+	/**
+	 * Returns the labels of a displayed row, filling in any that have not
+	 * been formatted yet.
+	 *
+	 * @param r the row
+	 * @return the labels
+	 */
+	private String[] getLabels(int r) {
+		String[] labels = mLabels[r];
+
+		if (labels == null) {
+			labels = new String[mTitles.length];
+
+			mLabels[r] = labels;
+		}
+
+		for (int i = 0; i < labels.length; ++i) {
+			if (labels[i] == null) {
+				labels[i] = format(r, i);
+			}
+		}
+
+		return labels;
+	}
+
+	/**
+	 * Returns true if an annotation of a displayed row is a number, and so
+	 * must be formatted.
+	 *
+	 * @param r the displayed row
+	 * @param c the index of the annotation
+	 * @return true, if is number
+	 */
+	private boolean isNumber(int r, int c) {
+		int row = mRowOrder != null ? mRowOrder[r] : r;
+
+		return mMatrix.getIndex().getAnnotation(mNames[c]).getCellType(0, row) == CellType.NUMBER;
+	}
+
+	/**
+	 * Returns a text annotation of a displayed row as it is drawn.
+	 *
+	 * @param r the displayed row
+	 * @param c the index of the annotation
+	 * @return the text
+	 */
+	private String getText(int r, int c) {
+		int row = mRowOrder != null ? mRowOrder[r] : r;
+
+		return mMatrix.getIndex().getText(mNames[c], row);
+	}
+
+	/**
+	 * Format an annotation of a displayed row.
+	 *
+	 * @param r the displayed row
+	 * @param c the index of the annotation
+	 * @return the label
+	 */
+	private String format(int r, int c) {
+		if (isNumber(r, c)) {
+			int row = mRowOrder != null ? mRowOrder[r] : r;
+
+			double v = mMatrix.getIndex().getAnnotation(mNames[c]).getValue(0, row);
+
+			if (Mathematics.isInt(v)) {
+				int vi = (int) v;
+
+				if (mIds[c]) {
+					// items that appear to be ids, should not
+					// be formatted with commas or periods.
+					return Integer.toString(vi);
+				} else {
+					return Formatter.number().format(vi);
+				}
+			} else {
+				return Formatter.number().format(v);
+			}
+		} else {
+			return getText(r, c);
+		}
+	}
+
 	/**
 	 * Gets the label.
 	 *
@@ -279,13 +351,27 @@ public class RowLabelsPlotElement extends RowMatrixPlotElement {
 	}
 
 	/**
-	 * Draw labels.
+	 * Draw labels. Only the rows that intersect the clip are drawn, so the
+	 * cost of a repaint depends on the visible rows rather than all rows.
 	 *
 	 * @param g2 the g2
 	 */
 	private void drawLabels(Graphics2D g2) {
 		g2.setColor(mProps.color);
 
+		// Advances are cached until the font changes
+		Font font = g2.getFont();
+
+		if (!font.equals(mFont)) {
+			mFont = font;
+			mAdvances = new int[mLabels.length][];
+			mTitleAdvances = new int[mTitles.length];
+
+			for (int i = 0; i < mTitles.length; ++i) {
+				mTitleAdvances[i] = ModernWidget.getStringWidth(g2, mTitles[i]);
+			}
+		}
+
 		int x = 0;
 		int y = (int) -mBlockSize.getH();
 
@@ -294,48 +380,52 @@ public class RowLabelsPlotElement extends RowMatrixPlotElement {
 
 			int d = mCharWidth * mWidths[i];
 
-			int x1 = x + (d - ModernWidget.getStringWidth(g2, title)) / 2;
+			int x1 = x + (d - mTitleAdvances[i]) / 2;
 
 			g2.drawString(title, x1, y);
 
 			x += d + FIELD_GAP;
 		}
 
-		// if (mTitle != null) {
-		// g2.drawString(mTitle, (getPreferredSize().width -
-		// g2.getFontMetrics().stringWidth(mTitle)), -mBlockSize.getH());
-		// }
-
 		int h = mBlockSize.getH(); // mBlockSize.getH();
 
-		y = (int) ((h + g2.getFontMetrics().getAscent() - g2.getFontMetrics().getDescent()) / 2);
+		int r1 = 0;
+		int r2 = mLabels.length;
+
+		Rectangle clip = g2.getClipBounds();
+
+		if (clip != null && h > 0) {
+			// Allow a row either side for text that overhangs its cell
+			r1 = Math.max(0, clip.y / h - 1);
+			r2 = Math.min(r2, (clip.y + clip.height) / h + 2);
+		}
+
+		y = (int) ((h + g2.getFontMetrics().getAscent() - g2.getFontMetrics().getDescent()) / 2) + r1 * h;
+
+		for (int r = r1; r < r2; ++r) {
+			String[] labels = getLabels(r);
+
+			if (mAdvances[r] == null) {
+				mAdvances[r] = new int[labels.length];
+
+				for (int i = 0; i < labels.length; ++i) {
+					mAdvances[r][i] = ModernWidget.getStringWidth(g2, labels[i]);
+				}
+			}
 
-		for (int r = 0; r < mLabels.length; ++r) {
 			x = 0;
 
 			for (int i = 0; i < mWidths.length; ++i) {
 				int d = mCharWidth * mWidths[i];
 
-				String label = mLabels[r][i];
+				int x1 = x + (d - mAdvances[r][i]) / 2;
 
-				int x1 = x + (d - ModernWidget.getStringWidth(g2, label)) / 2;
-
-				// if (mTypes.get(i).equals("number")) {
-				// x1 = x+ d - ModernWidget.getStringWidth(g2, label);
-				// }
-
-				g2.drawString(label, x1, y);
+				g2.drawString(labels[i], x1, y);
 
 				x += d + FIELD_GAP;
 			}
 
 			y += h;
 		}
-
-		/*
-		 * for (String label : mLabels) { g2.drawString(label, 0, y);
-		 * 
-		 * y += mBlockSize.getH(); }
-		 */
 	}
 }
@@ -16,10 +16,10 @@
 package org.jebtk.graphplot.figure.heatmap.legacy.clustering;
 
 import java.awt.Graphics2D;
-import java.util.ArrayDeque;
-import java.util.Deque;
 
 import org.jebtk.core.geom.DoubleDim;
+import org.jebtk.graphplot.figure.PermutedDataFrame;
+import org.jebtk.graphplot.figure.heatmap.CompiledColorMap;
 import org.jebtk.graphplot.figure.heatmap.legacy.HeatMapPlotElement;
 import org.jebtk.math.cluster.Cluster;
 import org.jebtk.math.matrix.DataFrame;
@@ -39,15 +39,14 @@ public class ClusterHeatMapPlotElement extends HeatMapPlotElement {
 	 */
 	private static final long serialVersionUID = 1L;
 
-	/**
-	 * The row order.
-	 */
-	private int[] rowOrder;
+	/** The row cluster or null. */
+	private Cluster mRowCluster;
 
-	/**
-	 * The column order.
-	 */
-	private int[] columnOrder;
+	/** The column cluster or null. */
+	private Cluster mColumnCluster;
+
+	/** The matrix in display order. */
+	private PermutedDataFrame mView;
 
 	/**
 	 * Instantiates a new cluster heat map plot element.
@@ -85,19 +84,8 @@ public class ClusterHeatMapPlotElement extends HeatMapPlotElement {
 	 * Setup.
 	 */
 	private void setup() {
-		// set the order so initially rows and columns
-		// map as they should do
-
-		rowOrder = new int[mMatrix.getRows()];
-		columnOrder = new int[mMatrix.getCols()];
-
-		for (int i = 0; i < rowOrder.length; ++i) {
-			rowOrder[i] = i;
-		}
-
-		for (int i = 0; i < columnOrder.length; ++i) {
-			columnOrder[i] = i;
-		}
+		// Without a cluster, rows or columns are in matrix order
+		mView = PermutedDataFrame.get(mMatrix, mRowCluster, mColumnCluster);
 	}
 
 	/**
@@ -106,7 +94,9 @@ public class ClusterHeatMapPlotElement extends HeatMapPlotElement {
 	 * @param cluster the new row cluster
 	 */
 	public void setRowCluster(Cluster cluster) {
-		newIndices(cluster, rowOrder);
+		mRowCluster = cluster;
+
+		setup();
 	}
 
 	/**
@@ -115,44 +105,9 @@ public class ClusterHeatMapPlotElement extends HeatMapPlotElement {
 	 * @param cluster the new column cluster
 	 */
 	public void setColumnCluster(Cluster cluster) {
-		newIndices(cluster, columnOrder);
-	}
+		mColumnCluster = cluster;
 
-	/**
-	 * New indices.
-	 *
-	 * @param rootCluster the root cluster
-	 * @param order       the order
-	 */
-	private static void newIndices(Cluster rootCluster, int[] order) {
-		if (rootCluster == null) {
-			return;
-		}
-
-		Deque<Cluster> stack = new ArrayDeque<Cluster>();
-
-		stack.push(rootCluster);
-
-		int index = 0;
-
-		while (stack.size() > 0) {
-			Cluster cluster = stack.pop();
-
-			if (cluster.isParent()) {
-				stack.push(cluster.getChild2());
-				stack.push(cluster.getChild1());
-			} else {
-				// end of the line
-				// if a cluster has no children, it
-				// is a leaf and has one child
-
-				order[index] = cluster.getId();
-
-				// System.err.println("order " + index + " " + order[index]);
-
-				++index;
-			}
-		}
+		setup();
 	}
 
 	/*
@@ -165,14 +120,16 @@ public class ClusterHeatMapPlotElement extends HeatMapPlotElement {
 	protected void drawMatrix(Graphics2D g2, DrawingContext context) {
 		int y = 0;
 
+		CompiledColorMap colors = CompiledColorMap.get(mColorMap);
+
 		if (context == DrawingContext.UI) {
 			for (int i = 0; i < mMatrix.getRows(); ++i) {
 				int x = 0;
 
 				for (int j = 0; j < mMatrix.getCols(); ++j) {
-					double v = mMatrix.getValue(rowOrder[i], columnOrder[j]);
+					double v = mView.getValue(i, j);
 
-					g2.drawImage(cacheCell(mColorMap.getColor(v)), x, y, null);
+					g2.drawImage(cacheCell(colors.color(v)), x, y, null);
 
 					x += mBlockSize.getW();
 				}
@@ -184,9 +141,9 @@ public class ClusterHeatMapPlotElement extends HeatMapPlotElement {
 				int x = 0;
 
 				for (int j = 0; j < mMatrix.getCols(); ++j) {
-					double v = mMatrix.getValue(rowOrder[i], columnOrder[j]);
+					double v = mView.getValue(i, j);
 
-					g2.setColor(mColorMap.getColor(v));
+					g2.setColor(colors.color(v));
 					g2.fillRect(x, y, mBlockSize.getW(), mBlockSize.getH());
 
 					x += mBlockSize.getW();
@@ -18,13 +18,12 @@ package org.jebtk.graphplot.figure.heatmap.legacy.clustering;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics2D;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Deque;
 
 import org.jebtk.core.Props;
 import org.jebtk.core.geom.DoubleDim;
 import org.jebtk.core.text.TextUtils;
+import org.jebtk.graphplot.figure.PermutedDataFrame;
 import org.jebtk.graphplot.figure.heatmap.legacy.ColumnMatrixPlotElement;
 import org.jebtk.math.cluster.Cluster;
 import org.jebtk.math.matrix.DataFrame;
@@ -69,24 +68,10 @@ public class ColumnHLabelBottomPlotElement extends ColumnMatrixPlotElement {
 
 		mColor = color;
 
-		Deque<Cluster> stack = new ArrayDeque<Cluster>();
-
-		stack.push(rootCluster);
-
 		mIds = new ArrayList<String>();
 
-		while (stack.size() > 0) {
-			Cluster cluster = stack.pop();
-
-			if (cluster.isParent()) {
-				Cluster c1 = cluster.getChild1();
-				Cluster c2 = cluster.getChild2();
-
-				stack.push(c2);
-				stack.push(c1);
-			} else {
-				mIds.add(matrix.getColumnName(cluster.getId()));
-			}
+		for (int c : PermutedDataFrame.getOrder(rootCluster)) {
+			mIds.add(matrix.getColumnName(c));
 		}
 	}
 
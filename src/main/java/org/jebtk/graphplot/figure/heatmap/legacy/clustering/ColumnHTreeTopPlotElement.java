@@ -18,16 +18,11 @@ package org.jebtk.graphplot.figure.heatmap.legacy.clustering;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics2D;
-import java.util.ArrayDeque;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Deque;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import org.jebtk.core.Props;
 import org.jebtk.core.geom.DoubleDim;
+import org.jebtk.graphplot.figure.heatmap.DendrogramGeometry;
 import org.jebtk.graphplot.figure.heatmap.legacy.ColumnMatrixPlotElement;
 import org.jebtk.graphplot.figure.series.XYSeriesGroup;
 import org.jebtk.math.cluster.Cluster;
@@ -60,26 +55,8 @@ public class ColumnHTreeTopPlotElement extends ColumnMatrixPlotElement {
 	/** The m group map. */
 	private Map<Integer, XYSeriesGroup> mGroupMap;
 
-	/** The m offset map. */
-	private Map<Integer, Integer> mOffsetMap;
-
-	/** The m order map. */
-	private Map<Integer, Integer> mOrderMap;
-
-	/** The m parents. */
-	private List<Cluster> mParents;
-
-	/** The m Y 1 map. */
-	private Map<Integer, Integer> mY1Map;
-
-	/** The m Y 2 map. */
-	private Map<Integer, Integer> mY2Map;
-
-	/** The m Y map. */
-	private Map<Integer, Integer> mYMap;
-
-	/** The m ordered cluster array. */
-	private ArrayList<Integer> mOrderedClusterArray;
+	/** The layout of the tree. */
+	private DendrogramGeometry mTree;
 
 	/**
 	 * Instantiates a new column hierarchical tree plot element.
@@ -143,156 +120,48 @@ public class ColumnHTreeTopPlotElement extends ColumnMatrixPlotElement {
 			return;
 		}
 
-		int h = getPreferredSize().height;
-		int x1;
-		int x2;
-		int y1;
-		int y2;
-		double s1;
-		int id;
-		int id1;
-		int id2;
-
-		if (mParents == null) {
-			mParents = new ArrayList<Cluster>(mMatrix.getCols());
-			mOffsetMap = new HashMap<Integer, Integer>();
-			mOrderMap = new HashMap<Integer, Integer>();
-
-			Deque<Cluster> stack = new ArrayDeque<Cluster>();
-
-			stack.push(mRootCluster);
-
-			int x = (int) (mBlockSize.getW() / 2);
-
-			int order = 0;
-
-			while (!stack.isEmpty()) {
-				Cluster cluster = stack.pop();
-
-				if (cluster.isParent()) {
-					mParents.add(cluster);
-
-					stack.push(cluster.getChild2());
-					stack.push(cluster.getChild1());
-
-					mOffsetMap.put(cluster.getId(), -1);
-				} else {
-					// Since we encounter the leaf clusters in the order
-					// they appear in the tree, we can store their
-					// x position in order
-					mOffsetMap.put(cluster.getId(), x);
-
-					// Since the plotted matrix is re-ordered to match the
-					// clustering. We need to map the cluster id to where it
-					// is on the matrix so that we can pick the right color
-					mOrderMap.put(cluster.getId(), order++);
-
-					// offsetMap.put(cluster.getId(),
-					// x + cluster.getId() * mBlockSize.getW());
-
-					x += mBlockSize.getW();
-				}
-			}
-
-			// Reverse the list so that the first cluster (the root) is at
-			// the end, since we must update and correct the sub nodes of
-			// a node before we can render a node.
-			Collections.reverse(mParents);
-
-			// Update the parents location using the midpoint of the children
-			for (Cluster c : mParents) {
-				Cluster c1 = c.getChild1();
-				Cluster c2 = c.getChild2();
-
-				// Update the mid point of this cluster
-				x1 = mOffsetMap.get(c1.getId());
-				x2 = mOffsetMap.get(c2.getId());
-
-				int midX = (x1 + x2) / 2;
-				mOffsetMap.put(c.getId(), midX);
-			}
-
-			// Cache the y coordinates
-
-			mYMap = new HashMap<Integer, Integer>();
-			mY1Map = new HashMap<Integer, Integer>();
-			mY2Map = new HashMap<Integer, Integer>();
-
-			mOrderedClusterArray = new ArrayList<Integer>(mParents.size() * 3);
-
-			for (Cluster c : mParents) {
-				Cluster c1 = c.getChild1();
-				Cluster c2 = c.getChild2();
-
-				id = c.getId();
-				id1 = c1.getId();
-				id2 = c2.getId();
-
-				s1 = c.getLevel() / mRootCluster.getLevel();
-				y1 = h - (int) (s1 * h);
-				mYMap.put(id, y1);
-
-				s1 = c1.getLevel() / mRootCluster.getLevel();
-				y1 = h - (int) (s1 * h);
-				mY1Map.put(id1, y1);
-
-				s1 = c2.getLevel() / mRootCluster.getLevel();
-				y1 = h - (int) (s1 * h);
-				mY2Map.put(id2, y1);
-
-				mOrderedClusterArray.add(id);
-				mOrderedClusterArray.add(id1);
-				mOrderedClusterArray.add(id2);
-			}
+		if (mTree == null) {
+			mTree = new DendrogramGeometry(mRootCluster);
 		}
 
-		// process all the nodes
-		for (int i = 0; i < mOrderedClusterArray.size(); i += 3) {
-			g2.setColor(mColor);
-
-			id = mOrderedClusterArray.get(i);
-			id1 = mOrderedClusterArray.get(i + 1);
-			id2 = mOrderedClusterArray.get(i + 2);
+		int h = getPreferredSize().height;
+		double w = getColumnPitch();
+		double offset = w / 2;
 
-			x1 = mOffsetMap.get(id1);
-			x2 = mOffsetMap.get(id2);
+		g2.setColor(mColor);
 
-			// now do some drawing
+		// Root at the top, leaves at the bottom
+		g2.draw(mTree.getPath(false, offset, w, h, 0));
 
-			y1 = mYMap.get(id);
+		if (!mColorLeaf || mGroupMap == null) {
+			return;
+		}
 
-			// horizontal line
-			g2.drawLine(x1, y1, x2, y1);
+		// Since the plotted matrix is re-ordered to match the clustering,
+		// the position of a leaf is its index in the matrix. Color the stems
+		// of leaves by the first group on their index.
+		for (int i = 0; i < mTree.getMergeCount(); ++i) {
+			int y1 = h - (int) (mTree.getLevel(i) * h);
 
-			//
-			// Vertical lines
-			//
+			for (int c = 0; c < 2; ++c) {
+				int child = mTree.getChild(i, c);
 
-			// c1
+				if (child >= 0) {
+					continue;
+				}
 
-			if (mColorLeaf && mGroupMap.containsKey(id1)) {
-				// System.err.println("C1 " + c1.getId() + " " +
-				// mOrderMap.get(c1.getId()) + " " + mMatrix.getColumnName(c1.getId()) +
-				// " " + mGroupMap.get(c1.getId()).get(0).getName() + " " + x1);
-				// Get the first group on the index and use its color
-				g2.setColor(mGroupMap.get(mOrderMap.get(id1)).get(0).getColor());
-			} else {
-				g2.setColor(mColor);
-			}
+				int leaf = -1 - child;
 
-			y2 = mY1Map.get(id1);
-			g2.drawLine(x1, y1, x1, y2);
+				if (!mGroupMap.containsKey(leaf)) {
+					continue;
+				}
 
-			// c2
+				int x = (int) (offset + mTree.getChildX(i, c) * w);
+				int y2 = h - (int) (mTree.getChildLevel(i, c) * h);
 
-			if (mColorLeaf && mGroupMap.containsKey(id2)) {
-				g2.setColor(mGroupMap.get(mOrderMap.get(id2)).get(0).getColor());
-			} else {
-				g2.setColor(mColor);
+				g2.setColor(mGroupMap.get(leaf).get(0).getColor());
+				g2.drawLine(x, y1, x, y2);
 			}
-
-			y2 = mY2Map.get(id2);
-			g2.drawLine(x2, y1, x2, y2);
 		}
 	}
 }
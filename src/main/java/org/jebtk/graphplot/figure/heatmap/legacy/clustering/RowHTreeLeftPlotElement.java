@@ -18,16 +18,10 @@ package org.jebtk.graphplot.figure.heatmap.legacy.clustering;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics2D;
-import java.util.ArrayDeque;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Deque;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 
 import org.jebtk.core.Props;
 import org.jebtk.core.geom.DoubleDim;
+import org.jebtk.graphplot.figure.heatmap.DendrogramGeometry;
 import org.jebtk.graphplot.figure.heatmap.legacy.RowMatrixPlotElement;
 import org.jebtk.math.cluster.Cluster;
 import org.jebtk.math.matrix.DataFrame;
@@ -53,6 +47,9 @@ public class RowHTreeLeftPlotElement extends RowMatrixPlotElement {
 	 */
 	protected Color mColor;
 
+	/** The layout of the tree. */
+	private DendrogramGeometry mTree;
+
 	/**
 	 * Instantiates a new row hierarchical tree plot element.
 	 *
@@ -95,146 +92,24 @@ public class RowHTreeLeftPlotElement extends RowMatrixPlotElement {
 
 		g2.setColor(mColor);
 
-		Deque<Cluster> stack = new ArrayDeque<Cluster>();
-		List<Cluster> parents = new ArrayList<Cluster>();
-
-		stack.push(mRootCluster);
-
-		Map<Integer, Integer> offsetMap = new HashMap<Integer, Integer>();
-
-		int y = (int) (mBlockSize.getH() / 2);
-
-		while (!stack.isEmpty()) {
-			Cluster cluster = stack.pop();
-
-			if (cluster.isParent()) {
-				parents.add(cluster);
-
-				stack.push(cluster.getChild2());
-				stack.push(cluster.getChild1());
-
-				offsetMap.put(cluster.getId(), -1);
-			} else {
-				// Since we encounter the leaf clusters in the order
-				// they appear in the tree, we can store their
-				// x position in order
-				offsetMap.put(cluster.getId(), y);
-
-				y += mBlockSize.getH();
-			}
-		}
-
-		// Reverse the list since the first cluster is at the
-		// end
-		Collections.reverse(parents);
-
 		int w = getPreferredSize().width;
-		int x1;
-		int x2;
-		int y1;
-		int y2;
-		int midY;
-		double s1;
-		double s2;
-
-		// process all the parents
-		for (Cluster cluster : parents) {
-
-			// a pair
-			// Cluster cluster = parentStack.pop();
-			Cluster c1 = cluster.getChild1();
-			Cluster c2 = cluster.getChild2();
-
-			y1 = offsetMap.get(c1.getId());
-			y2 = offsetMap.get(c2.getId());
 
-			midY = (y1 + y2) / 2;
+		// Root on the left, leaves on the right
+		double h = getRowPitch();
 
-			// Update the mid point of this cluster
-
-			offsetMap.put(cluster.getId(), midY);
-
-			// now do some drawing
-
-			s1 = cluster.getLevel() / mRootCluster.getLevel();
-
-			x1 = w - (int) (s1 * w);
-
-			// vertial line
-			g2.drawLine(x1, y1, x1, y2);
-
-			// horizontal lines
-
-			s2 = c1.getLevel() / mRootCluster.getLevel();
-
-			x2 = w - (int) (s2 * w);
-
-			g2.drawLine(x1, y1, x2, y1);
-
-			s2 = c2.getLevel() / mRootCluster.getLevel();
-
-			x2 = w - (int) (s2 * w);
+		g2.draw(getTree().getPath(true, h / 2, h, w, 0));
+	}
 
-			g2.drawLine(x1, y2, x2, y2);
+	/**
+	 * Returns the layout of the tree, computing it the first time.
+	 *
+	 * @return the tree
+	 */
+	protected DendrogramGeometry getTree() {
+		if (mTree == null) {
+			mTree = new DendrogramGeometry(mRootCluster);
 		}
 
-		/*
-		 * Deque<Cluster> stack = new ArrayDeque<Cluster>(); //Deque<Cluster>
-		 * parentStack = new ArrayDeque<Cluster>(); Deque<Integer> offsetStack = new
-		 * ArrayDeque<Integer>();
-		 * 
-		 * stack.push(rootCluster); offsetStack.push(0);
-		 * 
-		 * int w = getPreferredSize().width;
-		 * 
-		 * while (stack.size() > 0) { Cluster cluster = stack.pop();
-		 * 
-		 * int offset1 = offsetStack.pop();
-		 * 
-		 * if (!cluster.isParent()) { continue; }
-		 * 
-		 * 
-		 * Cluster c1 = cluster.getChild1(); Cluster c2 = cluster.getChild2();
-		 * 
-		 * //System.err.println(cluster.getId() + " child " + c1.getId() + " " +
-		 * c2.getId());
-		 * 
-		 * int height1 = c1.getCumulativeChildCount() * blockSize.height; int height2 =
-		 * c2.getCumulativeChildCount() * blockSize.height;
-		 * 
-		 * int offset2 = offset1 + height1;
-		 * 
-		 * int m1 = height1 / 2; int m2 = height2 / 2;
-		 * 
-		 * int y1 = offset1 + m1; int y2 = offset2 + m2;
-		 * 
-		 * 
-		 * 
-		 * double s = cluster.getLevel() / rootCluster.getLevel();
-		 * 
-		 * 
-		 * 
-		 * int x = w - (int)(s * w);
-		 * 
-		 * g2.drawLine(x, y1, x, y2);
-		 * 
-		 * // horizontal lines
-		 * 
-		 * s = c1.getLevel() / rootCluster.getLevel();
-		 * 
-		 * int x2 = w - (int)(s * w);
-		 * 
-		 * g2.drawLine(x, y1, x2, y1);
-		 * 
-		 * s = c2.getLevel() / rootCluster.getLevel();
-		 * 
-		 * x2 = w - (int)(s * w);
-		 * 
-		 * g2.drawLine(x, y2, x2, y2);
-		 * 
-		 * stack.push(c2); offsetStack.push(offset2);
-		 * 
-		 * stack.push(c1); offsetStack.push(offset1); }
-		 */
+		return mTree;
 	}
 }
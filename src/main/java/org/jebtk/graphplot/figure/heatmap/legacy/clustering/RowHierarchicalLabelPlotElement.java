@@ -15,16 +15,12 @@
  */
 package org.jebtk.graphplot.figure.heatmap.legacy.clustering;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
-
 import org.jebtk.core.geom.DoubleDim;
-import org.jebtk.core.text.Formatter;
+import org.jebtk.graphplot.figure.PermutedDataFrame;
 import org.jebtk.graphplot.figure.heatmap.legacy.RowLabelProps;
 import org.jebtk.graphplot.figure.heatmap.legacy.RowLabelsPlotElement;
 import org.jebtk.math.cluster.Cluster;
 import org.jebtk.math.matrix.DataFrame;
-import org.jebtk.math.matrix.Matrix;
 
 /**
  * The class RowHierarchicalLabelPlotElement.
@@ -47,67 +43,8 @@ public class RowHierarchicalLabelPlotElement extends RowLabelsPlotElement {
 	 */
 	public RowHierarchicalLabelPlotElement(DataFrame matrix, Cluster rootCluster, RowLabelProps properties,
 			DoubleDim aspectRatio, int charWidth) {
-		super(matrix, properties, aspectRatio, charWidth);
-
-		Deque<Cluster> stack = new ArrayDeque<Cluster>();
-
-		stack.push(rootCluster);
-
-		String[][] labels = new String[matrix.getRows()][properties.showAnnotations.getVisibleCount()];
-
-		while (stack.size() > 0) {
-			Cluster cluster = stack.pop();
-
-			if (cluster.isParent()) {
-				Cluster c1 = cluster.getChild1();
-				Cluster c2 = cluster.getChild2();
-
-				stack.push(c2);
-				stack.push(c1);
-			} else {
-				/*
-				 * StringBuilder text = new StringBuilder(matrix.getRowName(cluster.getId()));
-				 * 
-				 * List<String> extra = new ArrayList<String>();
-				 * 
-				 * for (int i = 0; i < matrix.getIndex().getNames().size(); ++i) { String name =
-				 * matrix.getIndex().getNames().get(i);
-				 * 
-				 * if (properties.showAnnotations != null &&
-				 * properties.showAnnotations.containsKey(name) &&
-				 * properties.showAnnotations.get(name)) {
-				 * extra.add(matrix.getIndex().getText(name, cluster.getId())); } }
-				 * 
-				 * text.append(" ").append(TextUtils.join(extra, "; "));
-				 * 
-				 * labels.add(text.toString());
-				 */
-
-				// labels.add(getLabel(matrix, cluster.getId(), properties));
-
-				int r = cluster.getId();
-
-				int c = 0;
-
-				for (int i = 0; i < matrix.getIndex().getNames().size(); ++i) {
-					String name = matrix.getIndex().getNames().get(i);
-
-					if (properties.showAnnotations.isVisible(name)) {
-
-						double v = matrix.getIndex().getValue(name, r);
-
-						if (Matrix.isValidMatrixNum(v)) {
-							labels[r][c] = Formatter.number().format(v);
-						} else {
-							labels[r][c] = matrix.getIndex().getText(name, r);
-						}
-
-						++c;
-					}
-				}
-			}
-		}
-
-		setLabels(labels);
+		// Labels are shown in the order of the leaves so they line up with
+		// the clustered rows
+		super(matrix, PermutedDataFrame.getOrder(rootCluster), properties, aspectRatio, charWidth);
 	}
 }
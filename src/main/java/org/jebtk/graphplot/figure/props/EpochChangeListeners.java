@@ -0,0 +1,88 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.graphplot.figure.props;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jebtk.core.event.ChangeEvent;
+import org.jebtk.core.event.ChangeListeners;
+
+/**
+ * Change listeners that also maintain a change epoch. The epoch is taken from a
+ * single global counter each time the object fires a change so that epochs are
+ * unique and only ever increase. Caches can therefore record the epoch of the
+ * objects they depend on and test for staleness by comparing longs. Because
+ * the counter is global, the maximum of several epochs also changes whenever
+ * any one of them does, which allows composite keys to be built cheaply.
+ *
+ * @author Antony Holmes
+ */
+public abstract class EpochChangeListeners extends ChangeListeners {
+
+	/**
+	 * The constant serialVersionUID.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/** Epoch 0 is never issued so it can be used to mean not cached. */
+	public static final long NO_EPOCH = 0;
+
+	/** The source of all epochs. */
+	private static final AtomicLong NEXT_EPOCH = new AtomicLong(NO_EPOCH);
+
+	/** The epoch of the last change. */
+	protected long mEpoch = nextEpoch();
+
+	/**
+	 * Returns the epoch of the most recent change to this object.
+	 *
+	 * @return the epoch.
+	 */
+	public long getEpoch() {
+		return mEpoch;
+	}
+
+	/**
+	 * Mark this object as changed without firing an event. Used by methods that
+	 * update state quietly but which must still invalidate caches.
+	 */
+	protected void updateEpoch() {
+		mEpoch = nextEpoch();
+	}
+
+	@Override
+	public void fireChanged() {
+		updateEpoch();
+
+		super.fireChanged();
+	}
+
+	@Override
+	public void fireChanged(ChangeEvent e) {
+		updateEpoch();
+
+		super.fireChanged(e);
+	}
+
+	/**
+	 * Returns a new epoch greater than all previously issued epochs.
+	 *
+	 * @return the epoch.
+	 */
+	public static long nextEpoch() {
+		return NEXT_EPOCH.incrementAndGet();
+	}
+}
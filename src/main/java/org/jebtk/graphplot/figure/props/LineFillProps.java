@@ -19,7 +19,6 @@ import java.awt.Color;
 
 import org.jebtk.core.event.ChangeEvent;
 import org.jebtk.core.event.ChangeListener;
-import org.jebtk.core.event.ChangeListeners;
 
 /**
  * Set the color and stroke of a line on a plot element.
@@ -27,7 +26,7 @@ import org.jebtk.core.event.ChangeListeners;
  * @author Antony Holmes
  *
  */
-public class LineFillProps extends ChangeListeners implements ChangeListener {
+public class LineFillProps extends EpochChangeListeners implements ChangeListener {
 
 	/**
 	 * The constant serialVersionUID.
@@ -17,7 +17,6 @@ package org.jebtk.graphplot.figure.props;
 
 import org.jebtk.core.event.ChangeEvent;
 import org.jebtk.core.event.ChangeListener;
-import org.jebtk.core.event.ChangeListeners;
 import org.jebtk.core.text.TextUtils;
 
 /**
@@ -26,7 +25,7 @@ import org.jebtk.core.text.TextUtils;
  * @author Antony Holmes
  *
  */
-public class MarginProps extends ChangeListeners implements Comparable<MarginProps> {
+public class MarginProps extends EpochChangeListeners implements Comparable<MarginProps> {
 
 	/**
 	 * The constant serialVersionUID.
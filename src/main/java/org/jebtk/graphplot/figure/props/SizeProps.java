@@ -15,14 +15,13 @@
  */
 package org.jebtk.graphplot.figure.props;
 
-import org.jebtk.core.event.ChangeListeners;
 import org.jebtk.core.geom.IntDim;
 
 /**
  * The class DataPointShape.
  */
 // Renders a data point shape
-public class SizeProps extends ChangeListeners {
+public class SizeProps extends EpochChangeListeners {
 
 	/**
 	 * The constant serialVersionUID.
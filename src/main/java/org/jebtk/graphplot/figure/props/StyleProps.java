@@ -17,7 +17,6 @@ package org.jebtk.graphplot.figure.props;
 
 import org.jebtk.core.event.ChangeEvent;
 import org.jebtk.core.event.ChangeListener;
-import org.jebtk.core.event.ChangeListeners;
 
 /**
  * Set the color of a plot element.
@@ -25,7 +24,7 @@ import org.jebtk.core.event.ChangeListeners;
  * @author Antony Holmes
  *
  */
-public class StyleProps extends ChangeListeners implements ChangeListener {
+public class StyleProps extends EpochChangeListeners implements ChangeListener {
 
 	/**
 	 * The constant serialVersionUID.
@@ -23,7 +23,6 @@ import java.util.List;
 import org.jebtk.core.collections.CollectionUtils;
 import org.jebtk.core.event.ChangeEvent;
 import org.jebtk.core.event.ChangeListener;
-import org.jebtk.core.event.ChangeListeners;
 import org.jebtk.core.text.TextUtils;
 import org.jebtk.graphplot.figure.series.XYAxesGroup;
 import org.jebtk.graphplot.figure.series.XYSeriesGroup;
@@ -34,7 +33,7 @@ import org.jebtk.graphplot.figure.series.XYSeriesGroup;
  * @author Antony Holmes
  *
  */
-public class TickMarkProps extends ChangeListeners implements Iterable<Tick>, ChangeListener {
+public class TickMarkProps extends EpochChangeListeners implements Iterable<Tick>, ChangeListener {
 
 	/**
 	 * The constant serialVersionUID.
@@ -19,7 +19,6 @@ import java.util.List;
 
 import org.jebtk.core.event.ChangeEvent;
 import org.jebtk.core.event.ChangeListener;
-import org.jebtk.core.event.ChangeListeners;
 import org.jebtk.math.Linspace;
 
 /**
@@ -27,7 +26,7 @@ import org.jebtk.math.Linspace;
  * 
  * @author Antony Holmes
  */
-public class TickProps extends ChangeListeners implements ChangeListener {
+public class TickProps extends EpochChangeListeners implements ChangeListener {
 
 	/**
 	 * The constant serialVersionUID.
@@ -15,14 +15,13 @@
  */
 package org.jebtk.graphplot.figure.props;
 
-import org.jebtk.core.event.ChangeListeners;
 
 /**
  * Specify if a graph element is visible or not.
  *
  * @author Antony Holmes
  */
-public abstract class VisibleProps extends ChangeListeners {
+public abstract class VisibleProps extends EpochChangeListeners {
 
 	/**
 	 * The constant serialVersionUID.
@@ -17,13 +17,16 @@ package org.jebtk.graphplot.figure.series;
 
 import java.awt.Graphics2D;
 import java.awt.Point;
+import java.awt.geom.Path2D;
 
 import org.jebtk.core.event.ChangeEvent;
 import org.jebtk.core.event.ChangeListener;
 import org.jebtk.core.geom.IntDim;
+import org.jebtk.graphplot.figure.PlotPointBuffer;
 import org.jebtk.graphplot.figure.props.StyleProps;
 import org.jebtk.graphplot.figure.props.VisibleProps;
 import org.jebtk.graphplot.icons.ShapeStyle;
+import org.jebtk.modern.graphics.DrawingContext;
 
 /**
  * The class DataPointShape.
@@ -90,7 +93,159 @@ public abstract class Marker extends VisibleProps implements ChangeListener {
 	 * @param style the style
 	 * @param p     the p
 	 */
-	public abstract void plot(Graphics2D g2, StyleProps style, Point p);
+	public void plot(Graphics2D g2, StyleProps style, Point p) {
+		plot(g2, style, p.x, p.y);
+	}
+
+	/**
+	 * Render the shape at the given coordinates.
+	 *
+	 * @param g2    the g2
+	 * @param style the style
+	 * @param x     the x
+	 * @param y     the y
+	 */
+	public abstract void plot(Graphics2D g2, StyleProps style, int x, int y);
+
+	/**
+	 * Render the shape at every point in a buffer. Subclasses that need to set
+	 * up graphics state per marker should override this so that the set up is
+	 * done once for the whole buffer.
+	 *
+	 * @param g2     the g2
+	 * @param style  the style
+	 * @param points the points
+	 */
+	public void plot(Graphics2D g2, StyleProps style, PlotPointBuffer points) {
+		int[] xs = points.getXs();
+		int[] ys = points.getYs();
+		int n = points.size();
+
+		for (int i = 0; i < n; ++i) {
+			plot(g2, style, xs[i], ys[i]);
+		}
+	}
+
+	/**
+	 * Render the shape at every point in a buffer. On screen the marker is
+	 * rendered once into a cached sprite which is then copied to each point.
+	 * For output, where the result may be vector graphics, the shapes are
+	 * combined into one path, or drawn individually if the marker cannot be
+	 * described as a path.
+	 *
+	 * @param g2      the g2
+	 * @param context the context
+	 * @param style   the style
+	 * @param points  the points
+	 */
+	public void plot(Graphics2D g2, DrawingContext context, StyleProps style, PlotPointBuffer points) {
+		if (context != DrawingContext.OUTPUT) {
+			MarkerSprite sprite = MarkerSprite.get(g2, this, style);
+
+			if (sprite != null) {
+				sprite.plot(g2, points);
+				return;
+			}
+		} else {
+			Path2D path = createPath(points);
+
+			if (path != null) {
+				plot(g2, style, path);
+				return;
+			}
+		}
+
+		plot(g2, style, points);
+	}
+
+	/**
+	 * Combine the markers at every point in a buffer into a single path so
+	 * that vector output, such as SVG, contains one element per series rather
+	 * than one per point.
+	 *
+	 * @param points the points
+	 * @return the path or null if the marker cannot be drawn as a path.
+	 */
+	public Path2D createPath(PlotPointBuffer points) {
+		int[] xs = points.getXs();
+		int[] ys = points.getYs();
+		int n = points.size();
+
+		Path2D ret = new Path2D.Float(Path2D.WIND_NON_ZERO, Math.max(16, n * 5));
+
+		for (int i = 0; i < n; ++i) {
+			if (!append(ret, xs[i], ys[i])) {
+				return null;
+			}
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Fill and stroke a path created by {@code createPath(PlotPointBuffer)}.
+	 * All of the markers are filled before any are outlined.
+	 *
+	 * @param g2    the g2
+	 * @param style the style
+	 * @param path  the path
+	 */
+	public void plot(Graphics2D g2, StyleProps style, Path2D path) {
+		Graphics2D g2Temp = createPathGraphics(g2);
+
+		try {
+			if (isFilled() && style.getFillStyle().getVisible()) {
+				g2Temp.setColor(style.getFillStyle().getColor());
+				g2Temp.fill(path);
+			}
+
+			if (style.getLineStyle().getVisible()) {
+				g2Temp.setColor(style.getLineStyle().getColor());
+				g2Temp.setStroke(style.getLineStyle().getStroke());
+				g2Temp.draw(path);
+			}
+		} finally {
+			g2Temp.dispose();
+		}
+	}
+
+	/**
+	 * Returns the graphics used to draw a combined path of markers. The
+	 * default keeps the rendering hints of the caller; markers that switch on
+	 * anti-aliasing when drawn individually should do the same here so the
+	 * output looks the same.
+	 *
+	 * @param g2 the g2
+	 * @return a graphics that will be disposed of once the path is drawn.
+	 */
+	protected Graphics2D createPathGraphics(Graphics2D g2) {
+		return (Graphics2D) g2.create();
+	}
+
+	/**
+	 * Append the outline of the marker centered at (x, y) to a path.
+	 * Subclasses that can be described as a path should override this and
+	 * return true. The default returns false so that the marker is drawn
+	 * point by point.
+	 *
+	 * @param path the path
+	 * @param x    the x
+	 * @param y    the y
+	 * @return true if the marker was appended.
+	 */
+	public boolean append(Path2D path, int x, int y) {
+		return false;
+	}
+
+	/**
+	 * Returns true if the marker has an interior that should be filled.
+	 * Markers made only of lines return false.
+	 *
+	 * @return true, if is filled
+	 */
+	protected boolean isFilled() {
+		return true;
+	}
 
 	/*
 	 * (non-Javadoc)
@@ -16,8 +16,10 @@
 package org.jebtk.graphplot.figure.series;
 
 import java.awt.Graphics2D;
-import java.awt.Point;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
 
+import org.jebtk.graphplot.figure.PlotPointBuffer;
 import org.jebtk.graphplot.figure.props.StyleProps;
 import org.jebtk.graphplot.icons.ShapeStyle;
 import org.jebtk.modern.graphics.ImageUtils;
@@ -41,10 +43,10 @@ public class MarkerCircle extends Marker {
 	 * @see edu.columbia.rdf.lib.bioinformatics.plot.figure.series.DataPointShape#
 	 * render(java.awt.Graphics2D,
 	 * edu.columbia.rdf.lib.bioinformatics.plot.figure.properties.StyleProps,
-	 * java.awt.Point)
+	 * int, int)
 	 */
 	@Override
-	public void plot(Graphics2D g2, StyleProps style, Point p) {
+	public void plot(Graphics2D g2, StyleProps style, int x, int y) {
 		int w = mDim.getW();
 
 		Graphics2D g2Temp = ImageUtils.createAAStrokeGraphics(g2);
@@ -52,20 +54,76 @@ public class MarkerCircle extends Marker {
 		try {
 			if (style.getFillStyle().getVisible()) {
 				g2Temp.setColor(style.getFillStyle().getColor());
-				g2Temp.fillOval(p.x - mHalfSize.getW(), p.y - mHalfSize.getW(), w, w);
+				g2Temp.fillOval(x - mHalfSize.getW(), y - mHalfSize.getW(), w, w);
 			}
 
 			if (style.getLineStyle().getVisible()) {
 				g2Temp.setColor(style.getLineStyle().getColor());
 				g2Temp.setStroke(style.getLineStyle().getStroke());
 
-				g2Temp.drawOval(p.x - mHalfSize.getW(), p.y - mHalfSize.getW(), w, w);
+				g2Temp.drawOval(x - mHalfSize.getW(), y - mHalfSize.getW(), w, w);
 			}
 		} finally {
 			g2Temp.dispose();
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jebtk.graphplot.figure.series.Marker#plot(java.awt.Graphics2D,
+	 * org.jebtk.graphplot.figure.props.StyleProps,
+	 * org.jebtk.graphplot.figure.PlotPointBuffer)
+	 */
+	@Override
+	public void plot(Graphics2D g2, StyleProps style, PlotPointBuffer points) {
+		int w = mDim.getW();
+		int h = mHalfSize.getW();
+
+		int[] xs = points.getXs();
+		int[] ys = points.getYs();
+		int n = points.size();
+
+		boolean fill = style.getFillStyle().getVisible();
+		boolean line = style.getLineStyle().getVisible();
+
+		// Create the anti-aliased context once for all of the markers rather
+		// than once per marker
+		Graphics2D g2Temp = ImageUtils.createAAStrokeGraphics(g2);
+
+		try {
+			g2Temp.setStroke(style.getLineStyle().getStroke());
+
+			for (int i = 0; i < n; ++i) {
+				if (fill) {
+					g2Temp.setColor(style.getFillStyle().getColor());
+					g2Temp.fillOval(xs[i] - h, ys[i] - h, w, w);
+				}
+
+				if (line) {
+					g2Temp.setColor(style.getLineStyle().getColor());
+					g2Temp.drawOval(xs[i] - h, ys[i] - h, w, w);
+				}
+			}
+		} finally {
+			g2Temp.dispose();
+		}
+	}
+
+	@Override
+	protected Graphics2D createPathGraphics(Graphics2D g2) {
+		return ImageUtils.createAAStrokeGraphics(g2);
+	}
+
+	@Override
+	public boolean append(Path2D path, int x, int y) {
+		int w = mDim.getW();
+
+		path.append(new Ellipse2D.Float(x - mHalfSize.getW(), y - mHalfSize.getW(), w, w), false);
+
+		return true;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
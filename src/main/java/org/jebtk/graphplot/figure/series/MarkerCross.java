@@ -16,7 +16,7 @@
 package org.jebtk.graphplot.figure.series;
 
 import java.awt.Graphics2D;
-import java.awt.Point;
+import java.awt.geom.Path2D;
 
 import org.jebtk.graphplot.figure.props.StyleProps;
 import org.jebtk.graphplot.icons.ShapeStyle;
@@ -40,24 +40,40 @@ public class MarkerCross extends Marker {
 	 * @see edu.columbia.rdf.lib.bioinformatics.plot.figure.series.DataPointShape#
 	 * render(java.awt.Graphics2D,
 	 * edu.columbia.rdf.lib.bioinformatics.plot.figure.properties.StyleProps,
-	 * java.awt.Point)
+	 * int, int)
 	 */
 	@Override
-	public void plot(Graphics2D g2, StyleProps style, Point p) {
+	public void plot(Graphics2D g2, StyleProps style, int x, int y) {
 
 		if (style.getLineStyle().getVisible()) {
 
 			g2.setColor(style.getLineStyle().getColor());
 			g2.setStroke(style.getLineStyle().getStroke());
 
-			g2.drawLine(p.x - mHalfSize.getW() + 1, p.y - mHalfSize.getW() + 1, p.x + mHalfSize.getW() - 1,
-					p.y + mHalfSize.getW() - 1);
+			g2.drawLine(x - mHalfSize.getW() + 1, y - mHalfSize.getW() + 1, x + mHalfSize.getW() - 1,
+					y + mHalfSize.getW() - 1);
 
-			g2.drawLine(p.x - mHalfSize.getW() + 1, p.y + mHalfSize.getW() - 1, p.x + mHalfSize.getW() - 1,
-					p.y - mHalfSize.getW() + 1);
+			g2.drawLine(x - mHalfSize.getW() + 1, y + mHalfSize.getW() - 1, x + mHalfSize.getW() - 1,
+					y - mHalfSize.getW() + 1);
 		}
 	}
 
+	@Override
+	public boolean append(Path2D path, int x, int y) {
+		path.moveTo(x - mHalfSize.getW() + 1, y - mHalfSize.getW() + 1);
+		path.lineTo(x + mHalfSize.getW() - 1, y + mHalfSize.getW() - 1);
+
+		path.moveTo(x - mHalfSize.getW() + 1, y + mHalfSize.getW() - 1);
+		path.lineTo(x + mHalfSize.getW() - 1, y - mHalfSize.getW() + 1);
+
+		return true;
+	}
+
+	@Override
+	protected boolean isFilled() {
+		return false;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -16,8 +16,8 @@
 package org.jebtk.graphplot.figure.series;
 
 import java.awt.Graphics2D;
-import java.awt.Point;
 import java.awt.geom.GeneralPath;
+import java.awt.geom.Path2D;
 
 import org.jebtk.graphplot.figure.props.StyleProps;
 import org.jebtk.graphplot.icons.ShapeStyle;
@@ -41,16 +41,16 @@ public class MarkerDiamond extends Marker {
 	 * @see edu.columbia.rdf.lib.bioinformatics.plot.figure.series.DataPointShape#
 	 * render(java.awt.Graphics2D,
 	 * edu.columbia.rdf.lib.bioinformatics.plot.figure.properties.StyleProps,
-	 * java.awt.Point)
+	 * int, int)
 	 */
 	@Override
-	public void plot(Graphics2D g2, StyleProps style, Point p) {
+	public void plot(Graphics2D g2, StyleProps style, int x, int y) {
 		GeneralPath path = new GeneralPath();
 
-		path.moveTo(p.x - mHalfSize.getW() + 1, p.y);
-		path.lineTo(p.x, p.y - mHalfSize.getW() + 1);
-		path.lineTo(p.x + mHalfSize.getW() - 1, p.y);
-		path.lineTo(p.x, p.y + mHalfSize.getH() - 1);
+		path.moveTo(x - mHalfSize.getW() + 1, y);
+		path.lineTo(x, y - mHalfSize.getW() + 1);
+		path.lineTo(x + mHalfSize.getW() - 1, y);
+		path.lineTo(x, y + mHalfSize.getH() - 1);
 		path.closePath();
 
 		if (style.getFillStyle().getVisible()) {
@@ -65,6 +65,17 @@ public class MarkerDiamond extends Marker {
 		}
 	}
 
+	@Override
+	public boolean append(Path2D path, int x, int y) {
+		path.moveTo(x - mHalfSize.getW() + 1, y);
+		path.lineTo(x, y - mHalfSize.getW() + 1);
+		path.lineTo(x + mHalfSize.getW() - 1, y);
+		path.lineTo(x, y + mHalfSize.getH() - 1);
+		path.closePath();
+
+		return true;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -0,0 +1,273 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.graphplot.figure.series;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Stroke;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jebtk.graphplot.figure.PlotPointBuffer;
+import org.jebtk.graphplot.figure.RasterCanvas;
+import org.jebtk.graphplot.figure.props.StyleProps;
+import org.jebtk.graphplot.icons.ShapeStyle;
+
+/**
+ * A marker pre-rendered into a small ARGB image so that large scatter plots
+ * can be drawn by copying the image to each point rather than building and
+ * anti-aliasing the shape every time. Sprites are cached by shape, size,
+ * colours, stroke and device scale so that each combination is rendered
+ * once. Sprites are only for on screen rendering; vector output should draw
+ * the marker shapes directly.
+ *
+ * @author Antony Holmes
+ *
+ */
+public class MarkerSprite {
+
+	/**
+	 * The number of sprites to keep.
+	 */
+	private static final int CACHE_SIZE = 64;
+
+	/**
+	 * Least recently used sprites are evicted first.
+	 */
+	private static final Map<Key, MarkerSprite> CACHE = new LinkedHashMap<Key, MarkerSprite>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, MarkerSprite> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+
+	/**
+	 * Everything that affects how a marker is rendered.
+	 */
+	private static class Key {
+		private final Class<?> mC;
+		private final ShapeStyle mType;
+		private final int mSize;
+		private final Color mFill;
+		private final Color mLine;
+		private final Stroke mStroke;
+		private final double mSx;
+		private final double mSy;
+
+		public Key(Marker marker, StyleProps style, double sx, double sy) {
+			mC = marker.getClass();
+			mType = marker.getType();
+			mSize = marker.getSize();
+			mFill = style.getFillStyle().getVisible() ? style.getFillStyle().getColor() : null;
+
+			if (style.getLineStyle().getVisible()) {
+				mLine = style.getLineStyle().getColor();
+				mStroke = style.getLineStyle().getStroke();
+			} else {
+				mLine = null;
+				mStroke = null;
+			}
+
+			mSx = sx;
+			mSy = sy;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) {
+				return false;
+			}
+
+			Key k = (Key) o;
+
+			return mC == k.mC && mType == k.mType && mSize == k.mSize && equals(mFill, k.mFill)
+					&& equals(mLine, k.mLine) && equals(mStroke, k.mStroke) && mSx == k.mSx && mSy == k.mSy;
+		}
+
+		@Override
+		public int hashCode() {
+			int ret = mC.hashCode();
+
+			ret = 31 * ret + (mType != null ? mType.hashCode() : 0);
+			ret = 31 * ret + mSize;
+			ret = 31 * ret + (mFill != null ? mFill.hashCode() : 0);
+			ret = 31 * ret + (mLine != null ? mLine.hashCode() : 0);
+			ret = 31 * ret + (mStroke != null ? mStroke.hashCode() : 0);
+			ret = 31 * ret + Double.hashCode(mSx);
+			ret = 31 * ret + Double.hashCode(mSy);
+
+			return ret;
+		}
+
+		private static boolean equals(Object o1, Object o2) {
+			return o1 == null ? o2 == null : o1.equals(o2);
+		}
+	}
+
+	/** The rendered marker. */
+	private final BufferedImage mImage;
+
+	/**
+	 * The offset of the marker center from the top left of the image in user
+	 * space.
+	 */
+	private final int mC;
+
+	/** The device scale the sprite was rendered at. */
+	private final double mSx;
+	private final double mSy;
+
+	/**
+	 * Render a marker into a new sprite.
+	 *
+	 * @param marker the marker
+	 * @param style  the style
+	 * @param sx     the device x scale
+	 * @param sy     the device y scale
+	 */
+	private MarkerSprite(Marker marker, StyleProps style, double sx, double sy) {
+		// Leave room for the stroke to extend beyond the marker bounds
+		int pad = style.getLineStyle().getVisible() ? style.getLineStyle().getWidth() + 1 : 1;
+
+		mC = marker.getSize() / 2 + pad;
+		mSx = sx;
+		mSy = sy;
+
+		int side = 2 * mC + 1;
+
+		mImage = new BufferedImage((int) Math.ceil(side * sx), (int) Math.ceil(side * sy),
+				BufferedImage.TYPE_INT_ARGB_PRE);
+
+		Graphics2D g2 = mImage.createGraphics();
+
+		try {
+			g2.scale(sx, sy);
+
+			marker.plot(g2, style, mC, mC);
+		} finally {
+			g2.dispose();
+		}
+	}
+
+	/**
+	 * Draw the sprite centered on each point in a buffer.
+	 *
+	 * @param g2     the g2
+	 * @param points the points
+	 */
+	public void plot(Graphics2D g2, PlotPointBuffer points) {
+		int[] xs = points.getXs();
+		int[] ys = points.getYs();
+		int n = points.size();
+
+		if (mSx == 1 && mSy == 1) {
+			for (int i = 0; i < n; ++i) {
+				g2.drawImage(mImage, xs[i] - mC, ys[i] - mC, null);
+			}
+		} else {
+			// The sprite is already at device resolution so undo the scale
+			// when copying it
+			AffineTransform t = new AffineTransform();
+
+			for (int i = 0; i < n; ++i) {
+				t.setToTranslation(xs[i] - mC, ys[i] - mC);
+				t.scale(1 / mSx, 1 / mSy);
+
+				g2.drawImage(mImage, t, null);
+			}
+		}
+	}
+
+	/**
+	 * Copy the sprite centered on each point in a buffer into a raster canvas.
+	 * The sprite should have been created at a scale of 1.
+	 *
+	 * @param canvas the canvas
+	 * @param points the points
+	 */
+	public void plot(RasterCanvas canvas, PlotPointBuffer points) {
+		int[] xs = points.getXs();
+		int[] ys = points.getYs();
+		int n = points.size();
+
+		for (int i = 0; i < n; ++i) {
+			canvas.drawImage(mImage, xs[i] - mC, ys[i] - mC);
+		}
+	}
+
+	/**
+	 * Returns the sprite for a marker at a scale of 1, rendering it if
+	 * necessary.
+	 *
+	 * @param marker the marker
+	 * @param style  the style
+	 * @return the marker sprite
+	 */
+	public static MarkerSprite get(Marker marker, StyleProps style) {
+		return get(marker, style, 1, 1);
+	}
+
+	/**
+	 * Returns the sprite for a marker, rendering it if necessary. Returns null
+	 * if the graphics transform rotates or shears, since a sprite cannot be
+	 * reused in that case.
+	 *
+	 * @param g2     the g2
+	 * @param marker the marker
+	 * @param style  the style
+	 * @return the marker sprite or null.
+	 */
+	public static MarkerSprite get(Graphics2D g2, Marker marker, StyleProps style) {
+		AffineTransform t = g2.getTransform();
+
+		if ((t.getType() & (AffineTransform.TYPE_GENERAL_ROTATION | AffineTransform.TYPE_QUADRANT_ROTATION
+				| AffineTransform.TYPE_FLIP | AffineTransform.TYPE_GENERAL_TRANSFORM)) != 0) {
+			return null;
+		}
+
+		return get(marker, style, t.getScaleX(), t.getScaleY());
+	}
+
+	/**
+	 * Returns the sprite for a marker at a given device scale, rendering it if
+	 * necessary.
+	 *
+	 * @param marker the marker
+	 * @param style  the style
+	 * @param sx     the sx
+	 * @param sy     the sy
+	 * @return the marker sprite
+	 */
+	private static MarkerSprite get(Marker marker, StyleProps style, double sx, double sy) {
+		Key key = new Key(marker, style, sx, sy);
+
+		synchronized (CACHE) {
+			MarkerSprite ret = CACHE.get(key);
+
+			if (ret == null) {
+				ret = new MarkerSprite(marker, style, sx, sy);
+
+				CACHE.put(key, ret);
+			}
+
+			return ret;
+		}
+	}
+}
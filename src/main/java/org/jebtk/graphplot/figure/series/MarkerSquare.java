@@ -16,7 +16,7 @@
 package org.jebtk.graphplot.figure.series;
 
 import java.awt.Graphics2D;
-import java.awt.Point;
+import java.awt.geom.Path2D;
 
 import org.jebtk.graphplot.figure.props.StyleProps;
 import org.jebtk.graphplot.icons.ShapeStyle;
@@ -40,24 +40,40 @@ public class MarkerSquare extends Marker {
 	 * @see edu.columbia.rdf.lib.bioinformatics.plot.figure.series.DataPointShape#
 	 * render(java.awt.Graphics2D,
 	 * edu.columbia.rdf.lib.bioinformatics.plot.figure.properties.StyleProps,
-	 * java.awt.Point)
+	 * int, int)
 	 */
 	@Override
-	public void plot(Graphics2D g2, StyleProps style, Point p) {
+	public void plot(Graphics2D g2, StyleProps style, int x, int y) {
 
 		if (style.getFillStyle().getVisible()) {
 			g2.setColor(style.getFillStyle().getColor());
-			g2.fillRect(p.x - mHalfSize.getW(), p.y - mHalfSize.getH(), mDim.getW() - 1, mDim.getH() - 1);
+			g2.fillRect(x - mHalfSize.getW(), y - mHalfSize.getH(), mDim.getW() - 1, mDim.getH() - 1);
 		}
 
 		if (style.getLineStyle().getVisible()) {
 			g2.setColor(style.getLineStyle().getColor());
 			g2.setStroke(style.getLineStyle().getStroke());
 
-			g2.drawRect(p.x - mHalfSize.getW(), p.y - mHalfSize.getH(), mDim.getW() - 1, mDim.getH() - 1);
+			g2.drawRect(x - mHalfSize.getW(), y - mHalfSize.getH(), mDim.getW() - 1, mDim.getH() - 1);
 		}
 	}
 
+	@Override
+	public boolean append(Path2D path, int x, int y) {
+		int x1 = x - mHalfSize.getW();
+		int y1 = y - mHalfSize.getH();
+		int x2 = x1 + mDim.getW() - 1;
+		int y2 = y1 + mDim.getH() - 1;
+
+		path.moveTo(x1, y1);
+		path.lineTo(x2, y1);
+		path.lineTo(x2, y2);
+		path.lineTo(x1, y2);
+		path.closePath();
+
+		return true;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
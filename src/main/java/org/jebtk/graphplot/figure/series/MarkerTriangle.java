@@ -16,9 +16,11 @@
 package org.jebtk.graphplot.figure.series;
 
 import java.awt.Graphics2D;
-import java.awt.Point;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.GeneralPath;
+import java.awt.geom.Path2D;
 
+import org.jebtk.graphplot.figure.PlotPointBuffer;
 import org.jebtk.graphplot.figure.props.StyleProps;
 import org.jebtk.graphplot.icons.ShapeStyle;
 
@@ -79,13 +81,13 @@ public class MarkerTriangle extends Marker {
 	 * @see edu.columbia.rdf.lib.bioinformatics.plot.figure.series.DataPointShape#
 	 * render(java.awt.Graphics2D,
 	 * edu.columbia.rdf.lib.bioinformatics.plot.figure.properties.StyleProps,
-	 * java.awt.Point)
+	 * int, int)
 	 */
 	@Override
-	public void plot(Graphics2D g2, StyleProps style, Point p) {
+	public void plot(Graphics2D g2, StyleProps style, int x, int y) {
 		Graphics2D g2Temp = (Graphics2D) g2.create();
 
-		g2Temp.translate(p.x, p.y);
+		g2Temp.translate(x, y);
 
 		if (style.getFillStyle().getVisible()) {
 			g2Temp.setColor(style.getFillStyle().getColor());
@@ -101,6 +103,60 @@ public class MarkerTriangle extends Marker {
 		g2Temp.dispose();
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.jebtk.graphplot.figure.series.Marker#plot(java.awt.Graphics2D,
+	 * org.jebtk.graphplot.figure.props.StyleProps,
+	 * org.jebtk.graphplot.figure.PlotPointBuffer)
+	 */
+	@Override
+	public void plot(Graphics2D g2, StyleProps style, PlotPointBuffer points) {
+		int[] xs = points.getXs();
+		int[] ys = points.getYs();
+		int n = points.size();
+
+		boolean fill = style.getFillStyle().getVisible();
+		boolean line = style.getLineStyle().getVisible();
+
+		// Share one graphics context and move it between markers rather than
+		// creating a new context for each marker
+		Graphics2D g2Temp = (Graphics2D) g2.create();
+
+		try {
+			g2Temp.setStroke(style.getLineStyle().getStroke());
+
+			int tx = 0;
+			int ty = 0;
+
+			for (int i = 0; i < n; ++i) {
+				g2Temp.translate(xs[i] - tx, ys[i] - ty);
+
+				tx = xs[i];
+				ty = ys[i];
+
+				if (fill) {
+					g2Temp.setColor(style.getFillStyle().getColor());
+					g2Temp.fill(mPath);
+				}
+
+				if (line) {
+					g2Temp.setColor(style.getLineStyle().getColor());
+					g2Temp.draw(mPath);
+				}
+			}
+		} finally {
+			g2Temp.dispose();
+		}
+	}
+
+	@Override
+	public boolean append(Path2D path, int x, int y) {
+		path.append(mPath.getPathIterator(AffineTransform.getTranslateInstance(x, y)), false);
+
+		return true;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
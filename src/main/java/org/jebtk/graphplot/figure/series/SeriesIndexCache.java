@@ -0,0 +1,197 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.graphplot.figure.series;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.jebtk.core.event.ChangeEvent;
+import org.jebtk.graphplot.figure.props.EpochChangeListeners;
+import org.jebtk.math.matrix.DataFrame;
+import org.jebtk.math.matrix.MatrixEventListener;
+import org.jebtk.math.matrix.MatrixGroup;
+
+/**
+ * Caches the column (or row) indices a series resolves to in a matrix so that
+ * the series regexes do not have to be run against every header on each call.
+ * The cache is keyed on the matrix identity, a header epoch that changes
+ * whenever the matrix reports a change, and a snapshot of the series patterns.
+ * Each series owns its own cache and only remembers the last matrix it was
+ * used with, which covers the usual case of a series belonging to one plot.
+ *
+ * @author Antony Holmes
+ */
+public class SeriesIndexCache {
+
+	/** Returned when a series does not match anything. */
+	public static final int[] NO_INDICES = new int[0];
+
+	/**
+	 * Listens to a matrix and records the epoch of its last change. The cache
+	 * has one listener, registered with the matrix it currently remembers, and
+	 * the listener holds no reference back to the cache.
+	 */
+	private static class HeaderListener implements MatrixEventListener {
+
+		/** The epoch. */
+		private volatile long mEpoch = EpochChangeListeners.nextEpoch();
+
+		@Override
+		public void matrixChanged(ChangeEvent e) {
+			mEpoch = EpochChangeListeners.nextEpoch();
+		}
+
+		/**
+		 * Gets the epoch.
+		 *
+		 * @return the epoch
+		 */
+		public long getEpoch() {
+			return mEpoch;
+		}
+	}
+
+	/** Whether to match row names rather than column names. */
+	private final boolean mRows;
+
+	/** The matrix the indices were resolved against. */
+	private WeakReference<DataFrame> mM = null;
+
+	/** Listens for changes to the header of the cached matrix. */
+	private HeaderListener mListener = null;
+
+	/** The header epoch the indices were resolved at. */
+	private long mEpoch = EpochChangeListeners.NO_EPOCH;
+
+	/** The series patterns at the time the indices were resolved. */
+	private Pattern[] mPatterns = null;
+
+	/** The cached indices. */
+	private int[] mIndices = NO_INDICES;
+
+	/**
+	 * Instantiates a new series index cache.
+	 *
+	 * @param rows true to match row names, false to match column names.
+	 */
+	public SeriesIndexCache(boolean rows) {
+		mRows = rows;
+	}
+
+	/**
+	 * Returns the indices the group resolves to in the matrix. The returned
+	 * array is shared and must not be modified.
+	 *
+	 * @param m     the matrix
+	 * @param group the group
+	 * @return the indices
+	 */
+	public synchronized int[] get(DataFrame m, MatrixGroup group) {
+		if (m == null) {
+			return NO_INDICES;
+		}
+
+		DataFrame cached = mM != null ? mM.get() : null;
+
+		if (cached != m) {
+			// New matrix so stop listening to the old one, if it is still
+			// around, and start listening to this one
+			if (cached != null) {
+				cached.removeMatrixListener(mListener);
+			}
+
+			mListener = new HeaderListener();
+			m.addMatrixListener(mListener);
+			mM = new WeakReference<DataFrame>(m);
+			mPatterns = null;
+		}
+
+		if (mPatterns == null || mEpoch != mListener.getEpoch() || !samePatterns(group)) {
+			mEpoch = mListener.getEpoch();
+			mPatterns = patterns(group);
+			mIndices = toArray(mRows ? MatrixGroup.findRowIndices(m, group) : MatrixGroup.findColumnIndices(m, group));
+		}
+
+		return mIndices;
+	}
+
+	/**
+	 * Forces the indices to be resolved again on the next call.
+	 */
+	public synchronized void clear() {
+		mPatterns = null;
+	}
+
+	/**
+	 * Tests whether the group patterns are the same objects, in the same order,
+	 * as when the cache was built. Series typically have one or two patterns so
+	 * this is much cheaper than matching the headers.
+	 *
+	 * @param group the group
+	 * @return true, if the patterns are unchanged
+	 */
+	private boolean samePatterns(MatrixGroup group) {
+		int i = 0;
+
+		for (Pattern p : group) {
+			if (i == mPatterns.length || p != mPatterns[i]) {
+				return false;
+			}
+
+			++i;
+		}
+
+		return i == mPatterns.length;
+	}
+
+	/**
+	 * Snapshot the patterns of a group.
+	 *
+	 * @param group the group
+	 * @return the patterns
+	 */
+	private static Pattern[] patterns(MatrixGroup group) {
+		List<Pattern> ret = new ArrayList<Pattern>();
+
+		for (Pattern p : group) {
+			ret.add(p);
+		}
+
+		return ret.toArray(new Pattern[ret.size()]);
+	}
+
+	/**
+	 * Convert a list of indices to an array.
+	 *
+	 * @param indices the indices
+	 * @return the int[]
+	 */
+	private static int[] toArray(List<Integer> indices) {
+		if (indices == null || indices.size() == 0) {
+			return NO_INDICES;
+		}
+
+		int[] ret = new int[indices.size()];
+
+		for (int i = 0; i < ret.length; ++i) {
+			ret[i] = indices.get(i);
+		}
+
+		return ret;
+	}
+}
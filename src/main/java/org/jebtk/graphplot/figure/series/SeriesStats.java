@@ -0,0 +1,457 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.graphplot.figure.series;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.jebtk.core.event.ChangeEvent;
+import org.jebtk.math.matrix.DataFrame;
+import org.jebtk.math.matrix.MatrixEventListener;
+
+/**
+ * Column statistics (min, max, sum, count and NaN count) for a matrix. Columns
+ * are computed on demand, but all columns requested together are computed in a
+ * single pass over the rows, split across the common fork-join pool when the
+ * matrix is large. Results are cached per matrix until it fires
+ * {@code matrixChanged}.
+ *
+ * NaN values are counted but otherwise ignored so a column containing only
+ * NaN has a min of positive infinity, a max of negative infinity and a sum of
+ * zero.
+ *
+ * @author Antony Holmes
+ */
+public class SeriesStats implements MatrixEventListener {
+
+	/**
+	 * Matrices with more rows than this are scanned in parallel.
+	 */
+	public static final int PARALLEL_ROWS = 65536;
+
+	/**
+	 * The number of matrices to keep statistics for.
+	 */
+	private static final int CACHE_SIZE = 16;
+
+	/**
+	 * Most recently used statistics first. Matrices are compared by identity.
+	 */
+	private static final List<SeriesStats> CACHE = new ArrayList<SeriesStats>(CACHE_SIZE);
+
+	/**
+	 * Partial statistics for a set of columns over a range of rows.
+	 */
+	private static class Partial {
+		private final double[] mMin;
+		private final double[] mMax;
+		private final double[] mSum;
+		private final int[] mCount;
+		private final int[] mNaN;
+
+		public Partial(int n) {
+			mMin = new double[n];
+			mMax = new double[n];
+			mSum = new double[n];
+			mCount = new int[n];
+			mNaN = new int[n];
+
+			Arrays.fill(mMin, Double.POSITIVE_INFINITY);
+			Arrays.fill(mMax, Double.NEGATIVE_INFINITY);
+		}
+
+		/**
+		 * Scan a block of rows. The outer loop is over rows so that each row of
+		 * the matrix is visited once regardless of the number of columns.
+		 *
+		 * @param m     the m
+		 * @param cols  the cols
+		 * @param start the start row
+		 * @param end   the end row (exclusive)
+		 */
+		public void scan(DataFrame m, int[] cols, int start, int end) {
+			for (int i = start; i < end; ++i) {
+				for (int k = 0; k < cols.length; ++k) {
+					double v = m.getValue(i, cols[k]);
+
+					if (Double.isNaN(v)) {
+						++mNaN[k];
+						continue;
+					}
+
+					if (v < mMin[k]) {
+						mMin[k] = v;
+					}
+
+					if (v > mMax[k]) {
+						mMax[k] = v;
+					}
+
+					mSum[k] += v;
+					++mCount[k];
+				}
+			}
+		}
+
+		/**
+		 * Merge another partial into this one.
+		 *
+		 * @param p the p
+		 * @return this partial
+		 */
+		public Partial merge(Partial p) {
+			for (int k = 0; k < mMin.length; ++k) {
+				mMin[k] = Math.min(mMin[k], p.mMin[k]);
+				mMax[k] = Math.max(mMax[k], p.mMax[k]);
+				mSum[k] += p.mSum[k];
+				mCount[k] += p.mCount[k];
+				mNaN[k] += p.mNaN[k];
+			}
+
+			return this;
+		}
+	}
+
+	/**
+	 * Fork-join task that splits the rows in half until blocks are small enough
+	 * to scan directly.
+	 */
+	private static class ScanTask extends RecursiveTask<Partial> {
+		private static final long serialVersionUID = 1L;
+
+		private final DataFrame mM;
+		private final int[] mCols;
+		private final int mStart;
+		private final int mEnd;
+
+		public ScanTask(DataFrame m, int[] cols, int start, int end) {
+			mM = m;
+			mCols = cols;
+			mStart = start;
+			mEnd = end;
+		}
+
+		@Override
+		protected Partial compute() {
+			if (mEnd - mStart <= PARALLEL_ROWS) {
+				Partial ret = new Partial(mCols.length);
+
+				ret.scan(mM, mCols, mStart, mEnd);
+
+				return ret;
+			}
+
+			int mid = (mStart + mEnd) >>> 1;
+
+			ScanTask left = new ScanTask(mM, mCols, mStart, mid);
+			left.fork();
+
+			Partial right = new ScanTask(mM, mCols, mid, mEnd).compute();
+
+			return left.join().merge(right);
+		}
+	}
+
+	/** The matrix. */
+	private final WeakReference<DataFrame> mM;
+
+	private double[] mMin;
+	private double[] mMax;
+	private double[] mSum;
+	private int[] mCount;
+	private int[] mNaN;
+
+	/** Which columns have been computed. */
+	private boolean[] mDone;
+
+	/**
+	 * Instantiates a new series stats.
+	 *
+	 * @param m the m
+	 */
+	private SeriesStats(DataFrame m) {
+		mM = new WeakReference<DataFrame>(m);
+
+		reset(m.getCols());
+
+		m.addMatrixListener(this);
+	}
+
+	/**
+	 * Stop listening to the matrix once the statistics leave the cache, so
+	 * the matrix does not keep them alive or notify them.
+	 */
+	private void dispose() {
+		DataFrame m = mM.get();
+
+		if (m != null) {
+			m.removeMatrixListener(this);
+		}
+	}
+
+	/**
+	 * Discard all computed columns.
+	 *
+	 * @param cols the number of columns
+	 */
+	private void reset(int cols) {
+		mMin = new double[cols];
+		mMax = new double[cols];
+		mSum = new double[cols];
+		mCount = new int[cols];
+		mNaN = new int[cols];
+		mDone = new boolean[cols];
+	}
+
+	@Override
+	public synchronized void matrixChanged(ChangeEvent e) {
+		DataFrame m = mM.get();
+
+		reset(m != null ? m.getCols() : 0);
+	}
+
+	/**
+	 * Make sure statistics exist for the given columns. Any columns not already
+	 * cached are computed together in a single pass over the rows.
+	 *
+	 * @param cols the cols
+	 * @return this object
+	 */
+	public synchronized SeriesStats ensure(int... cols) {
+		DataFrame m = mM.get();
+
+		if (m == null) {
+			return this;
+		}
+
+		if (m.getCols() != mDone.length) {
+			reset(m.getCols());
+		}
+
+		int[] missing = new int[cols.length];
+		int n = 0;
+
+		// Columns are only marked as done once their statistics have been
+		// stored, so a failed scan is retried on the next call
+		boolean[] queued = new boolean[mDone.length];
+
+		for (int c : cols) {
+			if (!mDone[c] && !queued[c]) {
+				queued[c] = true;
+				missing[n++] = c;
+			}
+		}
+
+		if (n == 0) {
+			return this;
+		}
+
+		missing = Arrays.copyOf(missing, n);
+
+		int rows = m.getRows();
+
+		Partial p;
+
+		if (rows > PARALLEL_ROWS) {
+			p = ForkJoinPool.commonPool().invoke(new ScanTask(m, missing, 0, rows));
+		} else {
+			p = new Partial(n);
+			p.scan(m, missing, 0, rows);
+		}
+
+		for (int k = 0; k < n; ++k) {
+			int c = missing[k];
+
+			mMin[c] = p.mMin[k];
+			mMax[c] = p.mMax[k];
+			mSum[c] = p.mSum[k];
+			mCount[c] = p.mCount[k];
+			mNaN[c] = p.mNaN[k];
+			mDone[c] = true;
+		}
+
+		return this;
+	}
+
+	/**
+	 * Make sure statistics exist for all columns of the matrix.
+	 *
+	 * @return this object
+	 */
+	public synchronized SeriesStats ensureAll() {
+		int[] cols = new int[mDone.length];
+
+		for (int i = 0; i < cols.length; ++i) {
+			cols[i] = i;
+		}
+
+		return ensure(cols);
+	}
+
+	public synchronized double getMin(int c) {
+		ensure(c);
+		return mMin[c];
+	}
+
+	public synchronized double getMax(int c) {
+		ensure(c);
+		return mMax[c];
+	}
+
+	public synchronized double getSum(int c) {
+		ensure(c);
+		return mSum[c];
+	}
+
+	/**
+	 * Returns the number of non-NaN values in a column.
+	 *
+	 * @param c the c
+	 * @return the count
+	 */
+	public synchronized int getCount(int c) {
+		ensure(c);
+		return mCount[c];
+	}
+
+	public synchronized int getNaNCount(int c) {
+		ensure(c);
+		return mNaN[c];
+	}
+
+	/**
+	 * Returns the min of all values in the matrix.
+	 *
+	 * @return the min
+	 */
+	public synchronized double getMin() {
+		ensureAll();
+
+		double ret = Double.POSITIVE_INFINITY;
+
+		for (double v : mMin) {
+			ret = Math.min(ret, v);
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Returns the max of all values in the matrix.
+	 *
+	 * @return the max
+	 */
+	public synchronized double getMax() {
+		ensureAll();
+
+		double ret = Double.NEGATIVE_INFINITY;
+
+		for (double v : mMax) {
+			ret = Math.max(ret, v);
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Returns the largest column sum in the matrix.
+	 *
+	 * @return the max column sum
+	 */
+	public synchronized double getMaxSum() {
+		ensureAll();
+
+		double ret = Double.NEGATIVE_INFINITY;
+
+		for (double v : mSum) {
+			ret = Math.max(ret, v);
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Returns the cached statistics for a matrix, creating them if necessary.
+	 *
+	 * @param m the m
+	 * @return the series stats
+	 */
+	public static SeriesStats get(DataFrame m) {
+		synchronized (CACHE) {
+			Iterator<SeriesStats> iter = CACHE.iterator();
+
+			while (iter.hasNext()) {
+				SeriesStats s = iter.next();
+
+				DataFrame sm = s.mM.get();
+
+				if (sm == m) {
+					// Move to front
+					iter.remove();
+					CACHE.add(0, s);
+					return s;
+				}
+
+				if (sm == null) {
+					iter.remove();
+				}
+			}
+
+			SeriesStats ret = new SeriesStats(m);
+
+			CACHE.add(0, ret);
+
+			if (CACHE.size() > CACHE_SIZE) {
+				CACHE.remove(CACHE.size() - 1).dispose();
+			}
+
+			return ret;
+		}
+	}
+
+	/**
+	 * Returns the statistics for a matrix with the columns of a series group
+	 * already computed in one pass.
+	 *
+	 * @param m      the m
+	 * @param series the series
+	 * @return the series stats
+	 */
+	public static SeriesStats get(DataFrame m, Iterable<XYSeries> series) {
+		SeriesStats ret = get(m);
+
+		List<Integer> cols = new ArrayList<Integer>();
+
+		for (XYSeries s : series) {
+			for (int c : XYSeries.findColumns(m, s)) {
+				cols.add(c);
+			}
+		}
+
+		int[] a = new int[cols.size()];
+
+		for (int i = 0; i < a.length; ++i) {
+			a[i] = cols.get(i);
+		}
+
+		return ret.ensure(a);
+	}
+}
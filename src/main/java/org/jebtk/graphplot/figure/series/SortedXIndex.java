@@ -0,0 +1,278 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.graphplot.figure.series;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.jebtk.core.event.ChangeEvent;
+import org.jebtk.math.matrix.DataFrame;
+import org.jebtk.math.matrix.MatrixEventListener;
+
+/**
+ * Records whether a column of a matrix is sorted in ascending order so that
+ * layers can binary search for the rows visible between the axis limits
+ * rather than visiting every row. Sortedness is detected once per matrix and
+ * column, and forgotten when the matrix changes. Indexes stop listening to
+ * their matrix when they leave the cache.
+ *
+ * @author Antony Holmes
+ */
+public class SortedXIndex implements MatrixEventListener {
+
+	/**
+	 * The number of columns to remember.
+	 */
+	private static final int CACHE_SIZE = 32;
+
+	/**
+	 * Most recently used first.
+	 */
+	private static final List<SortedXIndex> CACHE = new ArrayList<SortedXIndex>(CACHE_SIZE);
+
+	/** The matrix. */
+	private final WeakReference<DataFrame> mM;
+
+	/** The column. */
+	private final int mC;
+
+	/** The number of rows when the index was created. */
+	private final int mN;
+
+	/** Whether the column is sorted. */
+	private final boolean mSorted;
+
+	/** Set once the matrix changes. */
+	private volatile boolean mStale = false;
+
+	/**
+	 * Instantiates a new sorted x index.
+	 *
+	 * @param m the m
+	 * @param c the c
+	 */
+	private SortedXIndex(DataFrame m, int c) {
+		mM = new WeakReference<DataFrame>(m);
+		mC = c;
+		mN = m.getRows();
+		mSorted = isSorted(m, c);
+
+		m.addMatrixListener(this);
+	}
+
+	@Override
+	public void matrixChanged(ChangeEvent e) {
+		mStale = true;
+	}
+
+	/**
+	 * Stop listening to the matrix once the index is removed from the cache.
+	 */
+	private void dispose() {
+		DataFrame m = mM.get();
+
+		if (m != null) {
+			m.removeMatrixListener(this);
+		}
+	}
+
+	/**
+	 * Returns true if the column is sorted in ascending order and contains no
+	 * NaN values.
+	 *
+	 * @return true, if is sorted
+	 */
+	public boolean isSorted() {
+		return mSorted;
+	}
+
+	/**
+	 * Returns the index of the first row whose value is >= v, or 0 if the
+	 * column is not sorted.
+	 *
+	 * @param v the v
+	 * @return the row
+	 */
+	public int lowerBound(double v) {
+		DataFrame m = mM.get();
+
+		if (!mSorted || m == null) {
+			return 0;
+		}
+
+		return lowerBound(m, mC, 0, mN, v);
+	}
+
+	/**
+	 * Returns the index after the last row whose value is <= v, or the number
+	 * of rows if the column is not sorted.
+	 *
+	 * @param v the v
+	 * @return the row
+	 */
+	public int upperBound(double v) {
+		DataFrame m = mM.get();
+
+		if (!mSorted || m == null) {
+			return mN;
+		}
+
+		return upperBound(m, mC, 0, mN, v);
+	}
+
+	/**
+	 * Returns the start and end (exclusive) of the rows whose values lie
+	 * within [min, max]. If the column is not sorted, all rows are returned.
+	 *
+	 * @param min the min
+	 * @param max the max
+	 * @return an array of the start and end rows.
+	 */
+	public int[] getRows(double min, double max) {
+		int lo = lowerBound(min);
+
+		return new int[] { lo, Math.max(lo, upperBound(max)) };
+	}
+
+	/**
+	 * Returns the sorted index for a column, creating it if necessary. The
+	 * first call for a column is O(n); later calls until the matrix changes are
+	 * O(1).
+	 *
+	 * @param m the m
+	 * @param c the c
+	 * @return the sorted x index
+	 */
+	public static SortedXIndex get(DataFrame m, int c) {
+		synchronized (CACHE) {
+			Iterator<SortedXIndex> iter = CACHE.iterator();
+
+			while (iter.hasNext()) {
+				SortedXIndex index = iter.next();
+
+				DataFrame im = index.mM.get();
+
+				if (im == null || index.mStale) {
+					iter.remove();
+					index.dispose();
+					continue;
+				}
+
+				if (im == m && index.mC == c && index.mN == m.getRows()) {
+					iter.remove();
+					CACHE.add(0, index);
+					return index;
+				}
+			}
+
+			SortedXIndex ret = new SortedXIndex(m, c);
+
+			CACHE.add(0, ret);
+
+			if (CACHE.size() > CACHE_SIZE) {
+				CACHE.remove(CACHE.size() - 1).dispose();
+			}
+
+			return ret;
+		}
+	}
+
+	/**
+	 * Test whether a column is sorted in ascending order.
+	 *
+	 * @param m the m
+	 * @param c the c
+	 * @return true, if is sorted
+	 */
+	private static boolean isSorted(DataFrame m, int c) {
+		int n = m.getRows();
+
+		if (n == 0) {
+			return true;
+		}
+
+		double prev = m.getValue(0, c);
+
+		if (Double.isNaN(prev)) {
+			return false;
+		}
+
+		for (int i = 1; i < n; ++i) {
+			double x = m.getValue(i, c);
+
+			// Also rejects NaN
+			if (!(x >= prev)) {
+				return false;
+			}
+
+			prev = x;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Index of the first row in [lo, hi) whose value is >= v. The column must
+	 * be sorted.
+	 *
+	 * @param m  the m
+	 * @param c  the c
+	 * @param lo the lo
+	 * @param hi the hi
+	 * @param v  the v
+	 * @return the row
+	 */
+	public static int lowerBound(DataFrame m, int c, int lo, int hi, double v) {
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+
+			if (m.getValue(mid, c) < v) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+
+		return lo;
+	}
+
+	/**
+	 * Index of the first row in [lo, hi) whose value is > v. The column must be
+	 * sorted.
+	 *
+	 * @param m  the m
+	 * @param c  the c
+	 * @param lo the lo
+	 * @param hi the hi
+	 * @param v  the v
+	 * @return the row
+	 */
+	public static int upperBound(DataFrame m, int c, int lo, int hi, double v) {
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+
+			if (m.getValue(mid, c) <= v) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+
+		return lo;
+	}
+}
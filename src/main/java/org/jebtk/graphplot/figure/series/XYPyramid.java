@@ -0,0 +1,449 @@
+/**
+ * Copyright 2016 Antony Holmes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jebtk.graphplot.figure.series;
+
+import java.util.Arrays;
+
+import org.jebtk.core.event.ChangeEvent;
+import org.jebtk.math.matrix.DataFrame;
+import org.jebtk.math.matrix.MatrixEventListener;
+
+/**
+ * Multi-resolution summary of a long series whose x values are sorted. Level k
+ * stores the min and max y of consecutive buckets of 2^k rows, and the rows
+ * they occur in, starting at {@code BASE_LEVEL} so that the pyramid uses
+ * roughly 1/10 of the memory of the y column. Sampling a window of the series
+ * for display then costs O(pixels * log n) rather than O(n), since each pixel
+ * column can be summarised from a handful of buckets.
+ *
+ * The pyramid reads the raw values straight from the matrix so it does not
+ * copy the series. It listens to the matrix and becomes stale, releasing its
+ * summaries, as soon as the matrix changes, and stops listening once it is
+ * disposed.
+ *
+ * @author Antony Holmes
+ */
+public class XYPyramid implements MatrixEventListener {
+
+	/**
+	 * Series with fewer rows than this are cheap enough to decimate directly.
+	 */
+	public static final int MIN_ROWS = 1 << 16;
+
+	/**
+	 * The smallest bucket size is 2^BASE_LEVEL rows.
+	 */
+	public static final int BASE_LEVEL = 6;
+
+	/**
+	 * Points sampled from the pyramid. Each bucket contributes its first,
+	 * min, max and last rows, with the min and max in row, and so x, order.
+	 */
+	public static class Samples {
+		private double[] mX = new double[64];
+		private double[] mY = new double[64];
+		private int[] mRow = new int[64];
+		private int mSize = 0;
+
+		private void add(int row, double x, double y) {
+			if (mSize == mX.length) {
+				mX = Arrays.copyOf(mX, mSize * 2);
+				mY = Arrays.copyOf(mY, mSize * 2);
+				mRow = Arrays.copyOf(mRow, mSize * 2);
+			}
+
+			mX[mSize] = x;
+			mY[mSize] = y;
+			mRow[mSize] = row;
+			++mSize;
+		}
+
+		/**
+		 * Returns the x values. Only the first {@code size()} are valid.
+		 *
+		 * @return the x values.
+		 */
+		public double[] getXs() {
+			return mX;
+		}
+
+		/**
+		 * Returns the y values. Only the first {@code size()} are valid.
+		 *
+		 * @return the y values.
+		 */
+		public double[] getYs() {
+			return mY;
+		}
+
+		/**
+		 * Returns the matrix row of each sample. Only the first
+		 * {@code size()} are valid.
+		 *
+		 * @return the rows.
+		 */
+		public int[] getRows() {
+			return mRow;
+		}
+
+		public int size() {
+			return mSize;
+		}
+	}
+
+	/** The matrix. */
+	private final DataFrame mM;
+
+	/** The x column. */
+	private final int mXC;
+
+	/** The y column. */
+	private final int mYC;
+
+	/** The number of rows. */
+	private final int mN;
+
+	/** Per level bucket minimums, indexed from BASE_LEVEL. */
+	private double[][] mMin;
+
+	/** Per level bucket maximums, indexed from BASE_LEVEL. */
+	private double[][] mMax;
+
+	/** The row of each bucket minimum. */
+	private int[][] mMinRow;
+
+	/** The row of each bucket maximum. */
+	private int[][] mMaxRow;
+
+	/** Set once the matrix changes. */
+	private volatile boolean mStale = false;
+
+	/**
+	 * Instantiates a new XY pyramid.
+	 *
+	 * @param m  the m
+	 * @param xc the x column
+	 * @param yc the y column
+	 */
+	private XYPyramid(DataFrame m, int xc, int yc) {
+		mM = m;
+		mXC = xc;
+		mYC = yc;
+		mN = m.getRows();
+
+		int levels = Math.max(1, 32 - Integer.numberOfLeadingZeros(mN) - BASE_LEVEL);
+
+		mMin = new double[levels][];
+		mMax = new double[levels][];
+		mMinRow = new int[levels][];
+		mMaxRow = new int[levels][];
+
+		// Base level straight from the data
+
+		int size = 1 << BASE_LEVEL;
+		int buckets = (mN + size - 1) / size;
+
+		double[] min = new double[buckets];
+		double[] max = new double[buckets];
+		int[] minRow = new int[buckets];
+		int[] maxRow = new int[buckets];
+
+		for (int b = 0; b < buckets; ++b) {
+			int start = b * size;
+			int end = Math.min(mN, start + size);
+
+			double bmin = Double.POSITIVE_INFINITY;
+			double bmax = Double.NEGATIVE_INFINITY;
+			int bminRow = start;
+			int bmaxRow = start;
+
+			for (int i = start; i < end; ++i) {
+				double y = m.getValue(i, yc);
+
+				if (y < bmin) {
+					bmin = y;
+					bminRow = i;
+				}
+
+				if (y > bmax) {
+					bmax = y;
+					bmaxRow = i;
+				}
+			}
+
+			min[b] = bmin;
+			max[b] = bmax;
+			minRow[b] = bminRow;
+			maxRow[b] = bmaxRow;
+		}
+
+		mMin[0] = min;
+		mMax[0] = max;
+		mMinRow[0] = minRow;
+		mMaxRow[0] = maxRow;
+
+		// Each level above merges pairs of buckets from the level below
+
+		for (int l = 1; l < levels; ++l) {
+			double[] pmin = mMin[l - 1];
+			double[] pmax = mMax[l - 1];
+			int[] pminRow = mMinRow[l - 1];
+			int[] pmaxRow = mMaxRow[l - 1];
+
+			buckets = (pmin.length + 1) / 2;
+
+			min = new double[buckets];
+			max = new double[buckets];
+			minRow = new int[buckets];
+			maxRow = new int[buckets];
+
+			for (int b = 0; b < buckets; ++b) {
+				int c = b * 2;
+
+				// Take the second child only if it is strictly beyond the
+				// first so that ties keep the earlier row
+				int cmin = c + 1 < pmin.length && pmin[c + 1] < pmin[c] ? c + 1 : c;
+				int cmax = c + 1 < pmax.length && pmax[c + 1] > pmax[c] ? c + 1 : c;
+
+				min[b] = pmin[cmin];
+				max[b] = pmax[cmax];
+				minRow[b] = pminRow[cmin];
+				maxRow[b] = pmaxRow[cmax];
+			}
+
+			mMin[l] = min;
+			mMax[l] = max;
+			mMinRow[l] = minRow;
+			mMaxRow[l] = maxRow;
+		}
+
+		m.addMatrixListener(this);
+	}
+
+	@Override
+	public void matrixChanged(ChangeEvent e) {
+		// The matrix is notifying its listeners so the listener is removed
+		// later, when the pyramid is replaced
+		release();
+	}
+
+	/**
+	 * Mark the pyramid as stale and release the summaries.
+	 */
+	private void release() {
+		mStale = true;
+		mMin = null;
+		mMax = null;
+		mMinRow = null;
+		mMaxRow = null;
+	}
+
+	/**
+	 * Release the summaries and stop listening to the matrix. Should be called
+	 * when the pyramid is replaced so that the matrix does not keep it alive.
+	 */
+	public void dispose() {
+		release();
+
+		mM.removeMatrixListener(this);
+	}
+
+	/**
+	 * Returns true if the matrix has changed since the pyramid was built.
+	 *
+	 * @return true, if is stale
+	 */
+	public boolean isStale() {
+		return mStale;
+	}
+
+	/**
+	 * Returns true if this pyramid summarises the given columns of a matrix.
+	 *
+	 * @param m  the m
+	 * @param xc the xc
+	 * @param yc the yc
+	 * @return true, if successful
+	 */
+	public boolean isFor(DataFrame m, int xc, int yc) {
+		return !mStale && m == mM && xc == mXC && yc == mYC && m.getRows() == mN;
+	}
+
+	/**
+	 * Sample the rows whose x lies within [xMin, xMax] so that there are about
+	 * two buckets per pixel column. If the window is small enough the raw rows
+	 * are returned.
+	 *
+	 * @param xMin   the x min
+	 * @param xMax   the x max
+	 * @param pixels the number of pixel columns the window spans
+	 * @return the samples
+	 */
+	public Samples sample(double xMin, double xMax, int pixels) {
+		Samples ret = new Samples();
+
+		double[][] mins = mMin;
+		double[][] maxs = mMax;
+		int[][] minRows = mMinRow;
+		int[][] maxRows = mMaxRow;
+
+		if (mins == null || minRows == null) {
+			return ret;
+		}
+
+		int lo = SortedXIndex.lowerBound(mM, mXC, 0, mN, xMin);
+		int hi = SortedXIndex.upperBound(mM, mXC, lo, mN, xMax);
+
+		int rows = hi - lo;
+
+		if (rows <= 0) {
+			return ret;
+		}
+
+		// Aim for two buckets per pixel column
+		int perBucket = Math.max(1, rows / Math.max(1, pixels * 2));
+
+		int level = 31 - Integer.numberOfLeadingZeros(perBucket);
+
+		if (level < BASE_LEVEL) {
+			// Few enough rows to use them directly
+			for (int i = lo; i < hi; ++i) {
+				ret.add(i, mM.getValue(i, mXC), mM.getValue(i, mYC));
+			}
+
+			return ret;
+		}
+
+		double[] mm = new double[2];
+		int[] mmRows = new int[2];
+
+		for (int start = lo; start < hi;) {
+			// Buckets are aligned to the level so the pyramid can answer full
+			// buckets in O(1). Only the two ends of the window are partial.
+			int end = Math.min(hi, ((start >> level) + 1) << level);
+
+			minMax(mins, maxs, minRows, maxRows, start, end, mm, mmRows);
+
+			ret.add(start, mM.getValue(start, mXC), mM.getValue(start, mYC));
+
+			// An all NaN bucket has no envelope. Otherwise the min and max
+			// are placed at their own x, in x order, as in M4.
+			if (mm[0] <= mm[1]) {
+				int first = mmRows[0] <= mmRows[1] ? 0 : 1;
+				int second = 1 - first;
+
+				ret.add(mmRows[first], mM.getValue(mmRows[first], mXC), mm[first]);
+				ret.add(mmRows[second], mM.getValue(mmRows[second], mXC), mm[second]);
+			}
+
+			ret.add(end - 1, mM.getValue(end - 1, mXC), mM.getValue(end - 1, mYC));
+
+			start = end;
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Find the min and max y of the rows [start, end), and the rows they are
+	 * in, using the largest aligned buckets available and raw rows for the
+	 * unaligned remainder. This visits O(log n + 2^BASE_LEVEL) values.
+	 *
+	 * @param mins    the mins
+	 * @param maxs    the maxs
+	 * @param minRows the rows of the mins
+	 * @param maxRows the rows of the maxs
+	 * @param start   the start
+	 * @param end     the end
+	 * @param out     receives the min and max.
+	 * @param outRows receives the rows of the min and max.
+	 */
+	private void minMax(double[][] mins, double[][] maxs, int[][] minRows, int[][] maxRows, int start, int end,
+			double[] out, int[] outRows) {
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		int minRow = start;
+		int maxRow = start;
+
+		int i = start;
+
+		while (i < end) {
+			int l = -1;
+
+			// Largest level such that i is aligned and the bucket fits
+			for (int k = mins.length - 1; k >= 0; --k) {
+				int size = 1 << (k + BASE_LEVEL);
+
+				if ((i & (size - 1)) == 0 && i + size <= end) {
+					l = k;
+					break;
+				}
+			}
+
+			if (l == -1) {
+				double y = mM.getValue(i, mYC);
+
+				if (y < min) {
+					min = y;
+					minRow = i;
+				}
+
+				if (y > max) {
+					max = y;
+					maxRow = i;
+				}
+
+				++i;
+			} else {
+				int b = i >> (l + BASE_LEVEL);
+
+				if (mins[l][b] < min) {
+					min = mins[l][b];
+					minRow = minRows[l][b];
+				}
+
+				if (maxs[l][b] > max) {
+					max = maxs[l][b];
+					maxRow = maxRows[l][b];
+				}
+
+				i += 1 << (l + BASE_LEVEL);
+			}
+		}
+
+		out[0] = min;
+		out[1] = max;
+		outRows[0] = minRow;
+		outRows[1] = maxRow;
+	}
+
+	/**
+	 * Build a pyramid for a pair of columns. Returns null if the series is too
+	 * short to benefit or its x values are not sorted in ascending order.
+	 *
+	 * @param m  the m
+	 * @param xc the x column
+	 * @param yc the y column
+	 * @return the XY pyramid or null.
+	 */
+	public static XYPyramid create(DataFrame m, int xc, int yc) {
+		if (m.getRows() < MIN_ROWS || !SortedXIndex.get(m, xc).isSorted()) {
+			return null;
+		}
+
+		return new XYPyramid(m, xc, yc);
+	}
+}
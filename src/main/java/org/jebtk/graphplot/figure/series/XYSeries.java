@@ -83,6 +83,15 @@ public class XYSeries extends MatrixGroup implements ChangeListener {
 	/** The m M. */
 	private DataFrame mM = null;
 
+	/** The columns the series resolves to in the last matrix it was used with. */
+	private final SeriesIndexCache mColumnCache = new SeriesIndexCache(false);
+
+	/** The rows the series resolves to in the last matrix it was used with. */
+	private final SeriesIndexCache mRowCache = new SeriesIndexCache(true);
+
+	/** Min/max summaries of the series for the last matrix it was drawn from. */
+	private XYPyramid mPyramid = null;
+
 	/**
 	 * The constant NEXT_ID.
 	 */
@@ -378,6 +387,102 @@ public class XYSeries extends MatrixGroup implements ChangeListener {
 		return compareTo((XYSeries) o) == 0;
 	}
 
+	/**
+	 * Returns the indices of the columns in a matrix that match this series. The
+	 * result is cached until the matrix reports a change or the series patterns
+	 * change. The returned array is shared and must not be modified.
+	 *
+	 * @param m the m
+	 * @return the column indices
+	 */
+	public int[] getColumnIndices(DataFrame m) {
+		return mColumnCache.get(m, this);
+	}
+
+	/**
+	 * Returns the indices of the rows in a matrix that match this series. The
+	 * returned array is shared and must not be modified.
+	 *
+	 * @param m the m
+	 * @return the row indices
+	 */
+	public int[] getRowIndices(DataFrame m) {
+		return mRowCache.get(m, this);
+	}
+
+	/**
+	 * Returns the start and end (exclusive) rows of the series whose x values
+	 * lie within [min, max]. If the x values are not sorted this is all rows, so
+	 * callers must still check each point.
+	 *
+	 * @param m   the m
+	 * @param min the min
+	 * @param max the max
+	 * @return the visible rows
+	 */
+	public int[] getVisibleRows(DataFrame m, double min, double max) {
+		int[] columns = getColumnIndices(m);
+
+		if (columns.length == 0) {
+			return new int[] { 0, m.getRows() };
+		}
+
+		return SortedXIndex.get(m, columns[0]).getRows(min, max);
+	}
+
+	/**
+	 * Returns a multi-resolution min/max pyramid of the series in a matrix so
+	 * that very long series can be drawn without visiting every row. The
+	 * pyramid is built on first use and kept until the matrix changes. Returns
+	 * null if the series is short, or if its x values are not sorted, in which
+	 * case it should be decimated directly.
+	 *
+	 * @param m the m
+	 * @return the pyramid or null
+	 */
+	public synchronized XYPyramid getPyramid(DataFrame m) {
+		int[] columns = getColumnIndices(m);
+
+		if (columns.length < 2) {
+			return null;
+		}
+
+		if (mPyramid == null || !mPyramid.isFor(m, columns[0], columns[1])) {
+			if (mPyramid != null) {
+				mPyramid.dispose();
+			}
+
+			mPyramid = XYPyramid.create(m, columns[0], columns[1]);
+		}
+
+		return mPyramid;
+	}
+
+	/**
+	 * Returns the cached indices of the columns in a matrix that match a series.
+	 * Should be used in preference to
+	 * {@code MatrixGroup.findColumnIndices(m, series)} which matches the series
+	 * regexes against every column name on each call.
+	 *
+	 * @param m      the m
+	 * @param series the series
+	 * @return the column indices
+	 */
+	public static int[] findColumns(DataFrame m, XYSeries series) {
+		return series.getColumnIndices(m);
+	}
+
+	/**
+	 * Returns the cached indices of the rows in a matrix that match a series.
+	 *
+	 * @param m      the m
+	 * @param series the series
+	 * @return the row indices
+	 */
+	public static int[] findRows(DataFrame m, XYSeries series) {
+		return series.getRowIndices(m);
+	}
+
 	/**
 	 * Values.
 	 *
@@ -399,9 +504,9 @@ public class XYSeries extends MatrixGroup implements ChangeListener {
 	public static List<Double> xValues(DataFrame m, XYSeries series) {
 		List<Double> values = new ArrayList<Double>();
 
-		List<Integer> columns = MatrixGroup.findColumnIndices(m, series);
+		int[] columns = findColumns(m, series);
 
-		int c = columns.get(0);
+		int c = columns[0];
 
 		for (int i = 0; i < m.getRows(); ++i) {
 			values.add(m.getValue(i, c));
@@ -420,9 +525,9 @@ public class XYSeries extends MatrixGroup implements ChangeListener {
 	public static List<Double> yValues(DataFrame m, XYSeries series) {
 		List<Double> values = new ArrayList<Double>();
 
-		List<Integer> columns = MatrixGroup.findColumnIndices(m, series);
+		int[] columns = findColumns(m, series);
 
-		int c = columns.get(1);
+		int c = columns[1];
 
 		for (int i = 0; i < m.getRows(); ++i) {
 			values.add(m.getValue(i, c));
@@ -431,6 +536,37 @@ public class XYSeries extends MatrixGroup implements ChangeListener {
 		return values;
 	}
 
+	/**
+	 * Copy a column of a matrix into a primitive array so that it can be
+	 * translated into plot coordinates in bulk.
+	 *
+	 * @param m      the m
+	 * @param column the column
+	 * @return the column values
+	 */
+	public static double[] toArray(DataFrame m, int column) {
+		return toArray(m, column, 0, m.getRows());
+	}
+
+	/**
+	 * Copy the rows [start, end) of a column into a primitive array.
+	 *
+	 * @param m      the m
+	 * @param column the column
+	 * @param start  the start row
+	 * @param end    the end row (exclusive)
+	 * @return the values
+	 */
+	public static double[] toArray(DataFrame m, int column, int start, int end) {
+		double[] ret = new double[end - start];
+
+		for (int i = start; i < end; ++i) {
+			ret[i - start] = m.getValue(i, column);
+		}
+
+		return ret;
+	}
+
 	/**
 	 * Returns the max x in a series.
 	 *
@@ -439,23 +575,13 @@ public class XYSeries extends MatrixGroup implements ChangeListener {
 	 * @return the x max
 	 */
 	public static double getXMax(DataFrame m, XYSeries series) {
-		double ret = Double.MIN_VALUE;
-
-		List<Integer> columns = MatrixGroup.findColumnIndices(m, series);
-
-		for (int i = 0; i < m.getRows(); ++i) {
-			for (int c : columns) {
-				double v = m.getValue(i, c);
+		int[] columns = findColumns(m, series);
 
-				if (v > ret) {
-					ret = v;
-				}
-
-				break;
-			}
+		if (columns.length == 0) {
+			return Double.MIN_VALUE;
 		}
 
-		return ret;
+		return Math.max(Double.MIN_VALUE, SeriesStats.get(m).getMax(columns[0]));
 	}
 
 	/**
@@ -466,19 +592,9 @@ public class XYSeries extends MatrixGroup implements ChangeListener {
 	 * @return the y max
 	 */
 	public static double getYMax(DataFrame m, XYSeries series) {
-		double ret = Double.MIN_VALUE;
-
-		List<Integer> columns = MatrixGroup.findColumnIndices(m, series);
+		int[] columns = findColumns(m, series);
 
-		for (int i = 0; i < m.getRows(); ++i) {
-			double v = m.getValue(i, columns.get(1));
-
-			if (v > ret) {
-				ret = v;
-			}
-		}
-
-		return ret;
+		return Math.max(Double.MIN_VALUE, SeriesStats.get(m).getMax(columns[1]));
 	}
 
 	/**
@@ -489,17 +605,9 @@ public class XYSeries extends MatrixGroup implements ChangeListener {
 	 * @return the y sum
 	 */
 	public static double getYSum(DataFrame m, XYSeries series) {
-		double ret = 0;
-
-		List<Integer> columns = MatrixGroup.findColumnIndices(m, series);
+		int[] columns = findColumns(m, series);
 
-		for (int i = 0; i < m.getRows(); ++i) {
-			double v = m.getValue(i, columns.get(1));
-
-			ret += v;
-		}
-
-		return ret;
+		return SeriesStats.get(m).getSum(columns[1]);
 	}
 
 	/**
@@ -510,17 +618,9 @@ public class XYSeries extends MatrixGroup implements ChangeListener {
 	 * @return the x min
 	 */
 	public static double getXMin(DataFrame m, XYSeries series) {
-		double ret = Double.MAX_VALUE;
-
-		List<Integer> columns = MatrixGroup.findColumnIndices(m, series);
+		int[] columns = findColumns(m, series);
 
-		for (int i = 0; i < m.getRows(); ++i) {
-			double v = m.getValue(i, columns.get(0));
-
-			ret = Math.min(ret, v);
-		}
-
-		return ret;
+		return Math.min(Double.MAX_VALUE, SeriesStats.get(m).getMin(columns[0]));
 	}
 
 	/**
@@ -531,17 +631,9 @@ public class XYSeries extends MatrixGroup implements ChangeListener {
 	 * @return the y min
 	 */
 	public static double getYMin(DataFrame m, XYSeries series) {
-		double ret = Double.MAX_VALUE;
-
-		List<Integer> columns = MatrixGroup.findColumnIndices(m, series);
+		int[] columns = findColumns(m, series);
 
-		for (int i = 0; i < m.getRows(); ++i) {
-			double v = m.getValue(i, columns.get(1));
-
-			ret = Math.min(ret, v);
-		}
-
-		return ret;
+		return Math.min(Double.MAX_VALUE, SeriesStats.get(m).getMin(columns[1]));
 	}
 
 	/**
@@ -552,9 +644,9 @@ public class XYSeries extends MatrixGroup implements ChangeListener {
 	 * @return the double
 	 */
 	public static double mean(DataFrame m, XYSeries series) {
-		List<Integer> columns = MatrixGroup.findColumnIndices(m, series);
+		int[] columns = findColumns(m, series);
 
-		int c = columns.get(0);
+		int c = columns[0];
 
 		double[] v = new double[m.getRows()];
 
@@ -573,9 +665,9 @@ public class XYSeries extends MatrixGroup implements ChangeListener {
 	 * @return the double
 	 */
 	public static double sd(DataFrame m, XYSeries series) {
-		List<Integer> columns = MatrixGroup.findColumnIndices(m, series);
+		int[] columns = findColumns(m, series);
 
-		int c = columns.get(0);
+		int c = columns[0];
 
 		double[] v = new double[m.getRows()];
 
@@ -597,16 +689,16 @@ public class XYSeries extends MatrixGroup implements ChangeListener {
 	 * @return the XY points
 	 */
 	public static List<DoublePos2D> getXYPoints(DataFrame m, XYSeries series) {
-		List<Integer> columns = MatrixGroup.findColumnIndices(m, series);
+		int[] columns = findColumns(m, series);
 
-		if (columns.size() < 2) {
+		if (columns.length < 2) {
 			return Collections.emptyList();
 		}
 
 		List<DoublePos2D> points = new ArrayList<DoublePos2D>();
 
 		for (int i = 0; i < m.getRows(); ++i) {
-			points.add(new DoublePos2D(m.getValue(i, columns.get(0)), m.getValue(i, columns.get(1))));
+			points.add(new DoublePos2D(m.getValue(i, columns[0]), m.getValue(i, columns[1])));
 		}
 
 		return points;
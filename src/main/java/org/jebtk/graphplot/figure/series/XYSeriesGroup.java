@@ -19,11 +19,9 @@ import java.awt.Color;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.file.Path;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -38,6 +36,7 @@ import org.jebtk.core.event.ChangeListener;
 import org.jebtk.core.io.FileUtils;
 import org.jebtk.core.io.Io;
 import org.jebtk.core.text.TextUtils;
+import org.jebtk.graphplot.figure.PermutedDataFrame;
 import org.jebtk.math.cluster.Cluster;
 import org.jebtk.math.matrix.DataFrame;
 import org.jebtk.math.matrix.MatrixGroup;
@@ -150,6 +149,9 @@ public class XYSeriesGroup extends Group<XYSeries> implements ChangeListener {
 	public static double getXMax(DataFrame m, XYSeriesGroup seriesGroup) {
 		double ret = Double.MIN_VALUE;
 
+		// Compute all columns in one pass
+		SeriesStats.get(m, seriesGroup);
+
 		for (XYSeries p : seriesGroup) {
 			double v = XYSeries.getXMax(m, p);
 
@@ -171,6 +173,9 @@ public class XYSeriesGroup extends Group<XYSeries> implements ChangeListener {
 	public static double getYMax(DataFrame m, XYSeriesGroup collection) {
 		double ret = Double.MIN_VALUE;
 
+		// Compute all columns in one pass
+		SeriesStats.get(m, collection);
+
 		for (XYSeries p : collection) {
 			double v = XYSeries.getYMax(m, p);
 
@@ -192,6 +197,9 @@ public class XYSeriesGroup extends Group<XYSeries> implements ChangeListener {
 	public static double getXMin(DataFrame m, XYSeriesGroup collection) {
 		double ret = Double.MAX_VALUE;
 
+		// Compute all columns in one pass
+		SeriesStats.get(m, collection);
+
 		for (XYSeries p : collection) {
 			double min = XYSeries.getXMin(m, p);
 
@@ -213,6 +221,9 @@ public class XYSeriesGroup extends Group<XYSeries> implements ChangeListener {
 	public static double getYMin(DataFrame m, XYSeriesGroup collection) {
 		double ret = Double.MAX_VALUE;
 
+		// Compute all columns in one pass
+		SeriesStats.get(m, collection);
+
 		for (XYSeries p : collection) {
 			double min = XYSeries.getYMin(m, p);
 
@@ -234,6 +245,9 @@ public class XYSeriesGroup extends Group<XYSeries> implements ChangeListener {
 	public static double getYSum(DataFrame m, XYSeriesGroup seriesGroup) {
 		double ret = 0;
 
+		// Compute all columns in one pass
+		SeriesStats.get(m, seriesGroup);
+
 		for (XYSeries s : seriesGroup) {
 			ret += XYSeries.getYSum(m, s);
 		}
@@ -304,35 +318,14 @@ public class XYSeriesGroup extends Group<XYSeries> implements ChangeListener {
 		// First get the normal order
 		Map<Integer, XYSeriesGroup> orderedGroups = arrangeGroupsByIndex(m, groups);
 
-		List<Integer> newOrder = new ArrayList<Integer>();
-
-		Deque<Cluster> stack = new ArrayDeque<Cluster>();
-
-		stack.push(rootCluster);
-
-		while (stack.size() > 0) {
-			Cluster cluster = stack.pop();
-
-			if (cluster.isParent()) {
-				Cluster c1 = cluster.getChild1();
-				Cluster c2 = cluster.getChild2();
-
-				// Determine which is closest
-				stack.push(c2);
-				stack.push(c1);
-			} else {
-				// add the indices in the order they appear in the
-				// cluster tree
-				newOrder.add(cluster.getId());
-			}
-		}
+		int[] newOrder = PermutedDataFrame.getOrder(rootCluster);
 
 		// reorder the groups
 
 		Map<Integer, XYSeriesGroup> ret = new HashMap<Integer, XYSeriesGroup>();
 
-		for (int i = 0; i < newOrder.size(); ++i) {
-			ret.put(i, orderedGroups.get(newOrder.get(i)));
+		for (int i = 0; i < newOrder.length; ++i) {
+			ret.put(i, orderedGroups.get(newOrder[i]));
 		}
 
 		return ret;
@@ -350,9 +343,7 @@ public class XYSeriesGroup extends Group<XYSeries> implements ChangeListener {
 		Map<Integer, XYSeriesGroup> orderedGroups = new HashMap<Integer, XYSeriesGroup>();
 
 		for (XYSeries group : groups) {
-			List<Integer> indices = XYSeries.findColumnIndices(m, group);
-
-			for (int i : indices) {
+			for (int i : XYSeries.findColumns(m, group)) {
 				if (!orderedGroups.containsKey(i)) {
 					orderedGroups.put(i, new XYSeriesGroup());
 				}
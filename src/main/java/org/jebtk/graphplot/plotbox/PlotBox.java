@@ -34,7 +34,6 @@ import org.jebtk.core.IntId;
 import org.jebtk.core.NameGetter;
 import org.jebtk.core.Props;
 import org.jebtk.core.UidProperty;
-import org.jebtk.core.event.ChangeListeners;
 import org.jebtk.core.geom.IntPos2D;
 import org.jebtk.core.sys.SysUtils;
 import org.jebtk.core.text.Join;
@@ -42,6 +41,7 @@ import org.jebtk.core.text.TextUtils;
 import org.jebtk.graphplot.figure.GridLocation;
 import org.jebtk.graphplot.figure.PlotHashProperty;
 import org.jebtk.graphplot.figure.PlotStyle;
+import org.jebtk.graphplot.figure.props.EpochChangeListeners;
 import org.jebtk.graphplot.figure.props.MarginProps;
 import org.jebtk.math.matrix.DataFrame;
 import org.jebtk.modern.graphics.AAModes;
@@ -52,7 +52,7 @@ import org.jebtk.modern.graphics.colormap.ColorMap;
 /**
  * The class PlotBox.
  */
-public abstract class PlotBox extends ChangeListeners
+public abstract class PlotBox extends EpochChangeListeners
 		implements Iterable<PlotBox>, IdProperty, NameGetter, PlotHashProperty, UidProperty {
 
 	private static final long serialVersionUID = 1L;
@@ -180,6 +180,20 @@ public abstract class PlotBox extends ChangeListeners
 		return mParent;
 	}
 
+	/**
+	 * Updates the epoch of this plot box and rolls it up to all of its ancestors
+	 * so that a cache keyed on a parent's epoch sees changes to any of its
+	 * descendants, even if event propagation has been suppressed.
+	 */
+	@Override
+	protected void updateEpoch() {
+		super.updateEpoch();
+
+		for (PlotBox p = mParent; p != null; p = p.mParent) {
+			p.mEpoch = mEpoch;
+		}
+	}
+
 	public void setStorage(PlotBoxStorage s) {
 
 	}
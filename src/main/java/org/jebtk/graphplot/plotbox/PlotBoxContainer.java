@@ -53,6 +53,9 @@ public class PlotBoxContainer extends PlotBox implements ChangeListener {
 	 */
 	private boolean mFireEvents = true;
 
+	/** The epoch of the last change to the margins. */
+	private long mMarginsEpoch = nextEpoch();
+
 	public PlotBoxContainer(String id) {
 		this(id, new PlotBoxDimStorage(), new PlotBoxColumnLayout());
 	}
@@ -81,6 +84,7 @@ public class PlotBoxContainer extends PlotBox implements ChangeListener {
 	
 	public PlotBox add(PlotBox plot, GridLocation l) {
 	  System.err.println("add cont " + plot + " " + l + " " + mStorage);
+		plot.setParent(this);
 		mStorage.add(plot, l);
 		
 		return plot;
@@ -192,12 +196,23 @@ public class PlotBoxContainer extends PlotBox implements ChangeListener {
 	public boolean updateMargins(MarginProps margins) {
 		if (!margins.equals(mMargins)) {
 			mMargins = margins;
+			mMarginsEpoch = nextEpoch();
+			updateEpoch();
 			return true;
 		} else {
 			return false;
 		}
 	}
 
+	/**
+	 * Returns the epoch of the last change to the margins.
+	 *
+	 * @return the epoch
+	 */
+	public long getMarginsEpoch() {
+		return mMarginsEpoch;
+	}
+
 	public void addMargin(Dimension dim) {
 		dim.width += mMargins.getLineMargin();
 		dim.height += mMargins.getPageMargin();
@@ -253,6 +268,7 @@ public class PlotBoxContainer extends PlotBox implements ChangeListener {
 
 	@Override
 	public PlotBox addChild(PlotBox plot) {
+		plot.setParent(this);
 		mStorage.add(plot);
 		
 		return this;
@@ -260,6 +276,7 @@ public class PlotBoxContainer extends PlotBox implements ChangeListener {
 
 	@Override
 	public PlotBox addChild(PlotBox plot, int i) {
+		plot.setParent(this);
 		mStorage.add(plot, i);
 		
 		return this;
@@ -267,6 +284,7 @@ public class PlotBoxContainer extends PlotBox implements ChangeListener {
 	
 	@Override
 	public PlotBox addChild(PlotBox plot, int i, int j) {
+		plot.setParent(this);
 		mStorage.add(plot, i, j);
 		
 		return this;
@@ -384,6 +402,9 @@ public class PlotBoxContainer extends PlotBox implements ChangeListener {
 	public void fireChanged() {
 		if (mFireEvents) {
 			super.fireChanged();
+		} else {
+			// Caches must still see the change even if no event is sent
+			updateEpoch();
 		}
 	}
 